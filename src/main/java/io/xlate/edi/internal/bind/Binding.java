@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.bind;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlValue;
+
+/**
+ * The binding of a class annotated with {@link XmlElement} and
+ * {@link XmlValue}, with a constructor and field setters resolved once as
+ * method handles.
+ */
+final class Binding {
+
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+
+    private static final Map<Class<?>, Function<String, Object>> converters = new HashMap<>();
+
+    static {
+        converters.put(String.class, value -> value);
+        converters.put(Integer.class, Integer::valueOf);
+        converters.put(int.class, Integer::valueOf);
+        converters.put(Long.class, Long::valueOf);
+        converters.put(long.class, Long::valueOf);
+        converters.put(BigInteger.class, BigInteger::new);
+        converters.put(BigDecimal.class, value -> new BigDecimal(value.replace(',', '.')));
+        converters.put(LocalDate.class, Binding::parseDate);
+        converters.put(LocalTime.class, Binding::parseTime);
+    }
+
+    final Class<?> type;
+    final Map<String, Property> named = new HashMap<>();
+    Property[] elements = new Property[0];
+    Property[] components = new Property[0];
+    Property value;
+    private MethodHandle constructor;
+
+    private Binding(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * Resolve the binding of the class and, recursively, the classes of its
+     * annotated fields.
+     *
+     * @param type
+     *            the annotated class
+     * @param bindings
+     *            bindings already resolved, shared by the classes of a model
+     * @return the binding of the class
+     * @throws IllegalArgumentException
+     *             when the class can not be bound
+     */
+    static Binding of(Class<?> type, Map<Class<?>, Binding> bindings) {
+        Binding binding = bindings.get(type);
+
+        if (binding == null) {
+            binding = new Binding(type);
+            bindings.put(type, binding);
+            binding.resolve(bindings);
+        }
+
+        return binding;
+    }
+
+    /**
+     * Resolve the binding of the class and the classes of its annotated
+     * fields, indexing the element fields of each segment class once all
+     * classes of the model are resolved.
+     *
+     * @param type
+     *            the annotated class
+     * @return the binding of the class
+     * @throws IllegalArgumentException
+     *             when the class can not be bound
+     */
+    static Binding bind(Class<?> type) {
+        Map<Class<?>, Binding> bindings = new HashMap<>();
+        Binding binding = of(type, bindings);
+
+        for (Binding container : bindings.values()) {
+            for (Property property : container.named.values()) {
+                if (property.binding != null) {
+                    property.binding.indexElements(property.name);
+                }
+            }
+        }
+
+        return binding;
+    }
+
+    private void resolve(Map<Class<?>, Binding> bindings) {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+            constructor = lookup.unreflectConstructor(accessible(type.getDeclaredConstructor())).asType(CONSTRUCTOR);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("No default constructor available for " + type.getName(), e);
+        }
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                XmlElement element = field.getAnnotation(XmlElement.class);
+
+                if (element != null) {
+                    String name = "##default".equals(element.name()) ? field.getName() : element.name();
+                    addProperty(new Property(name, field, lookup, bindings));
+                } else if (field.isAnnotationPresent(XmlValue.class)) {
+                    value = new Property(field.getName(), field, lookup, bindings);
+
+                    if (value.converter == null) {
+                        throw new IllegalArgumentException("Unsupported value type: " + field);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addProperty(Property property) {
+        final String name = property.name;
+        final int dash = name.lastIndexOf('-');
+
+        named.put(name, property);
+
+        if (dash > -1) {
+            int position = position(name, dash + 1);
+
+            if (position > 0) {
+                components = put(components, position, property);
+            }
+        }
+    }
+
+    /**
+     * Index the element fields of this class as a segment with the given
+     * tag. The position of an element is given by all digits following the
+     * tag in the field name, e.g. <code>N101</code> is element 1 of segment
+     * <code>N1</code> and <code>SEG100</code> is element 100 of segment
+     * <code>SEG</code>.
+     *
+     * @param tag
+     *            the segment tag, i.e. the name of a field of this class
+     */
+    private void indexElements(String tag) {
+        final int start = tag.length();
+
+        for (Property property : named.values()) {
+            final String name = property.name;
+
+            if (name.length() > start + 1 && name.startsWith(tag)) {
+                int position = position(name, start);
+
+                if (position > 0) {
+                    elements = put(elements, position, property);
+                }
+            }
+        }
+    }
+
+    static int position(String name, int start) {
+        if (start >= name.length()) {
+            return -1;
+        }
+
+        int position = 0;
+
+        for (int i = start; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            position = position * 10 + (c - '0');
+        }
+
+        return position;
+    }
+
+    static Property[] put(Property[] properties, int position, Property property) {
+        if (position >= properties.length) {
+            properties = Arrays.copyOf(properties, position + 1);
+        }
+
+        properties[position] = property;
+        return properties;
+    }
+
+    static Property get(Property[] properties, int position) {
+        return position > 0 && position < properties.length ? properties[position] : null;
+    }
+
+    Object newInstance() {
+        try {
+            return constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static <T extends java.lang.reflect.AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    static LocalDate parseDate(String value) {
+        switch (value.length()) {
+        case 6:
+            // YYMMDD, assumed to be within the current century
+            return LocalDate.of(2000 + Integer.parseInt(value.substring(0, 2)),
+                                Integer.parseInt(value.substring(2, 4)),
+                                Integer.parseInt(value.substring(4, 6)));
+        case 8:
+            return LocalDate.of(Integer.parseInt(value.substring(0, 4)),
+                                Integer.parseInt(value.substring(4, 6)),
+                                Integer.parseInt(value.substring(6, 8)));
+        default:
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    static LocalTime parseTime(String value) {
+        if (value.length() < 4) {
+            throw new IllegalArgumentException("Invalid time: " + value);
+        }
+
+        int hour = Integer.parseInt(value.substring(0, 2));
+        int minute = Integer.parseInt(value.substring(2, 4));
+        int second = value.length() >= 6 ? Integer.parseInt(value.substring(4, 6)) : 0;
+        int nanos = 0;
+
+        if (value.length() > 6) {
+            String fraction = value.substring(6);
+            nanos = Integer.parseInt(fraction) * (int) Math.pow(10, 9 - fraction.length());
+        }
+
+        return LocalTime.of(hour, minute, second, nanos);
+    }
+
+    /**
+     * An annotated field of a bound class. A field is either a simple value
+     * (converted from the element text), a bound class, or a list of either.
+     */
+    static final class Property {
+        final String name;
+        final boolean list;
+        final Class<?> itemType;
+        final Function<String, Object> converter;
+        final Binding binding;
+        private final MethodHandle setter;
+        private final MethodHandle getter;
+
+        Property(String name, Field field, MethodHandles.Lookup lookup, Map<Class<?>, Binding> bindings) {
+            this.name = name;
+            this.list = List.class.isAssignableFrom(field.getType());
+            this.itemType = list ? itemType(field) : field.getType();
+
+            try {
+                accessible(field);
+                this.setter = lookup.unreflectSetter(field).asType(SETTER);
+                this.getter = list ? lookup.unreflectGetter(field).asType(GETTER) : null;
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Field not accessible: " + field, e);
+            }
+
+            this.converter = converters.get(itemType);
+
+            if (converter != null || itemType == byte[].class) {
+                this.binding = null;
+            } else {
+                this.binding = Binding.of(itemType, bindings);
+            }
+        }
+
+        static Class<?> itemType(Field field) {
+            Type generic = field.getGenericType();
+
+            if (generic instanceof ParameterizedType) {
+                Type item = ((ParameterizedType) generic).getActualTypeArguments()[0];
+
+                if (item instanceof Class) {
+                    return (Class<?>) item;
+                }
+            }
+
+            throw new IllegalArgumentException("List item type not resolvable: " + field);
+        }
+
+        boolean isSimple() {
+            return binding == null || binding.value != null;
+        }
+
+        /**
+         * Set the field of the instance, or add the value to the field's list.
+         */
+        @SuppressWarnings("unchecked")
+        void set(Object instance, Object value) {
+            try {
+                if (list) {
+                    Object current = getter.invokeExact(instance);
+                    List<Object> values = (List<Object>) current;
+
+                    if (values == null) {
+                        values = new ArrayList<>();
+                        setter.invokeExact(instance, (Object) values);
+                    }
+
+                    values.add(value);
+                } else {
+                    setter.invokeExact(instance, value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Convert the text of an element to the type of the field, wrapping
+         * the value in the bound class of an {@link XmlValue} when necessary.
+         */
+        Object convert(String text) {
+            if (binding == null) {
+                return converter.apply(text);
+            }
+
+            Object wrapper = binding.newInstance();
+            binding.value.set(wrapper, binding.value.converter.apply(text));
+            return wrapper;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.bind;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.util.Arrays;
+
+import io.xlate.edi.internal.bind.Binding.Property;
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDITransactionBinder;
+import io.xlate.edi.stream.Location;
+
+/**
+ * The implementation of {@link EDITransactionBinder}, created by
+ * {@link io.xlate.edi.stream.EDIInputFactory#createTransactionBinder(Class, Schema)}.
+ *
+ * @param <T>
+ *            the type of the bound transactions
+ */
+public class TransactionBinder<T> implements EDITransactionBinder<T> {
+
+    private static final int SKIPPED = 0;
+    private static final int CONTAINER = 1;
+    private static final int SEGMENT = 2;
+    private static final int COMPOSITE = 3;
+
+    private final Class<T> type;
+    private final Binding binding;
+    private final Schema transactionSchema;
+
+    /**
+     * Create a binder that sets a transaction schema on the reader at the
+     * start of each transaction, reporting the transaction's loops.
+     *
+     * @param type
+     *            the annotated class of the transaction
+     * @param transactionSchema
+     *            schema of the transaction, or null to use the reader's
+     *            configuration
+     * @throws IllegalArgumentException
+     *             when the class (or a class of its fields) can not be bound
+     */
+    public TransactionBinder(Class<T> type, Schema transactionSchema) {
+        this.type = type;
+        this.binding = Binding.bind(type);
+        this.transactionSchema = transactionSchema;
+    }
+
+    @Override
+    public T read(EDIStreamReader reader) throws EDIStreamException {
+        while (reader.getEventType() != EDIStreamEvent.START_TRANSACTION) {
+            if (!reader.hasNext()) {
+                return null;
+            }
+            reader.next();
+        }
+
+        if (transactionSchema != null) {
+            reader.setTransactionSchema(transactionSchema);
+        }
+
+        return type.cast(new Transaction(reader).bind());
+    }
+
+    /**
+     * State of binding a single transaction: the stack of open instances and
+     * their bindings.
+     */
+    class Transaction {
+        final EDIStreamReader reader;
+        Object[] instances = new Object[8];
+        Binding[] bindings = new Binding[8];
+        int[] kinds = new int[8];
+        int depth = 0;
+
+        Transaction(EDIStreamReader reader) {
+            this.reader = reader;
+            instances[0] = binding.newInstance();
+            bindings[0] = binding;
+            kinds[0] = CONTAINER;
+        }
+
+        Object bind() throws EDIStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case START_LOOP:
+                    startChild(CONTAINER);
+                    break;
+                case START_SEGMENT:
+                    startChild(SEGMENT);
+                    break;
+                case START_COMPOSITE:
+                    startComposite();
+                    break;
+                case END_LOOP:
+                case END_SEGMENT:
+                case END_COMPOSITE:
+                    depth--;
+                    break;
+                case ELEMENT_DATA:
+                    elementData();
+                    break;
+                case ELEMENT_DATA_BINARY:
+                    binaryData();
+                    break;
+                case END_TRANSACTION:
+                    return instances[0];
+                default:
+                    // Validation errors are left to the reader's consumer
+                    break;
+                }
+            }
+
+            throw new EDIStreamException("Unexpected end of stream", reader.getLocation());
+        }
+
+        void push(int kind, Binding childBinding, Object instance) {
+            if (++depth == kinds.length) {
+                instances = Arrays.copyOf(instances, depth * 2);
+                bindings = Arrays.copyOf(bindings, depth * 2);
+                kinds = Arrays.copyOf(kinds, depth * 2);
+            }
+
+            kinds[depth] = kind;
+            bindings[depth] = childBinding;
+            instances[depth] = instance;
+        }
+
+        void startChild(int kind) {
+            Property property = kinds[depth] == CONTAINER ? bindings[depth].named.get(reader.getText()) : null;
+
+            if (property == null || property.isSimple()) {
+                push(SKIPPED, null, null);
+            } else {
+                Object child = property.binding.newInstance();
+                property.set(instances[depth], child);
+                push(kind, property.binding, child);
+            }
+        }
+
+        void startComposite() {
+            Property property = null;
+
+            if (kinds[depth] == SEGMENT) {
+                property = Binding.get(bindings[depth].elements, reader.getLocation().getElementPosition());
+            }
+
+            if (property == null || property.isSimple()) {
+                push(SKIPPED, null, null);
+            } else {
+                Object composite = property.binding.newInstance();
+                property.set(instances[depth], composite);
+                push(COMPOSITE, property.binding, composite);
+            }
+        }
+
+        Property elementProperty() {
+            final Location location = reader.getLocation();
+
+            switch (kinds[depth]) {
+            case SEGMENT:
+                if (location.getComponentPosition() > 0) {
+                    return null;
+                }
+                return Binding.get(bindings[depth].elements, location.getElementPosition());
+            case COMPOSITE:
+                return Binding.get(bindings[depth].components, location.getComponentPosition());
+            default:
+                return null;
+            }
+        }
+
+        void elementData() throws EDIStreamException {
+            Property property = elementProperty();
+
+            if (property == null || !property.isSimple() || property.itemType == byte[].class
+                    || reader.getTextLength() == 0) {
+                return;
+            }
+
+            final String text = reader.getText();
+            final Object value;
+
+            try {
+                value = property.convert(text);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new EDIStreamException("Invalid value for " + property.name + ": " + text,
+                                             reader.getLocation(),
+                                             e);
+            }
+
+            property.set(instances[depth], value);
+        }
+
+        void binaryData() throws EDIStreamException {
+            Property property = elementProperty();
+
+            if (property == null || property.itemType != byte[].class) {
+                return;
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            InputStream input = reader.getBinaryData();
+            byte[] chunk = new byte[4096];
+            int amount;
+
+            try {
+                while ((amount = input.read(chunk)) > -1) {
+                    buffer.write(chunk, 0, amount);
+                }
+            } catch (IOException e) {
+                throw new EDIStreamException("Error reading binary element " + property.name, reader.getLocation(), e);
+            }
+
+            property.set(instances[depth], buffer.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,684 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.generate;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+import io.xlate.edi.schema.EDIComplexType;
+import io.xlate.edi.schema.EDIReference;
+import io.xlate.edi.schema.EDISimpleType;
+import io.xlate.edi.schema.EDISyntaxRule;
+import io.xlate.edi.schema.EDIType;
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.stream.EDIOutputFactory;
+import io.xlate.edi.stream.EDIStreamConstants.Standards;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamWriter;
+
+/**
+ * Generates synthetic interchanges of a single transaction type from its
+ * transaction schema, for load and soak testing.
+ *
+ * <p>
+ * The transactions are built by walking the main loop of the schema: each
+ * segment, loop and element occurs between its minimum and maximum number of
+ * times (limited by the maximum repeat), optional items are present about
+ * half of the time, and element values are random values of the element's
+ * base type, length and value set. Syntax rules of segments and composites
+ * are satisfied. Binary elements are left empty.
+ *
+ * <p>
+ * With a non-zero error rate, each generated value is replaced with an
+ * invalid one (too long, invalid characters, a code not in the value set or
+ * a missing mandatory element) with that probability. One injected error
+ * may be reported by a validating reader as more than one error.
+ *
+ * <p>
+ * The same seed and settings always produce the same document. Instances are
+ * not thread safe.
+ */
+public class DocumentGenerator {
+
+    static final String ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    static final String DIGITS = "0123456789";
+
+    /*
+     * Upper limit of the length of generated values, for elements with large
+     * maximum lengths.
+     */
+    static final int MAX_VALUE_LENGTH = 35;
+    static final LocalDate BASE_DATE = LocalDate.of(2000, 1, 1);
+
+    private final String standard;
+    private final String version;
+    private final String transactionType;
+    private final EDIComplexType transaction;
+    private final Map<EDISimpleType, String[]> codes = new HashMap<>();
+
+    private long seed = 0;
+    private int transactionCount = 1;
+    private long targetSize = 0;
+    private int maxRepeat = 5;
+    private double errorRate = 0;
+    private String functionalIdentifier = "FA";
+
+    private Random random;
+    private long injectedErrorCount;
+
+    /**
+     * Create a generator of interchanges containing transactions of a single
+     * type.
+     *
+     * @param standard
+     *            X12 or EDIFACT
+     * @param version
+     *            the transaction version, GS08 for X12 (e.g.
+     *            <code>005010X230</code>) or the components of UNH02 following
+     *            the message type for EDIFACT (e.g. <code>D:97B:UN</code>)
+     * @param transactionType
+     *            ST01 for X12 or UNH02-1 for EDIFACT
+     * @param transactionSchema
+     *            the schema of the transaction
+     * @throws IllegalArgumentException
+     *             when the standard is not supported or the schema is not a
+     *             transaction schema
+     */
+    public DocumentGenerator(String standard, String version, String transactionType, Schema transactionSchema) {
+        if (!Standards.X12.equals(standard) && !Standards.EDIFACT.equals(standard)) {
+            throw new IllegalArgumentException("Unsupported standard: " + standard);
+        }
+
+        EDIComplexType mainLoop = transactionSchema.getMainLoop();
+
+        if (!mainLoop.isType(EDIType.Type.TRANSACTION)) {
+            throw new IllegalArgumentException("Not a transaction schema: " + mainLoop.getId());
+        }
+
+        this.standard = standard;
+        this.version = version;
+        this.transactionType = transactionType;
+        this.transaction = mainLoop;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Set the number of transactions to generate, used when no target size is
+     * set. The default is 1.
+     *
+     * @param transactionCount
+     *            number of transactions in the interchange
+     */
+    public void setTransactionCount(int transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    /**
+     * Set the approximate size of the interchange. Transactions are generated
+     * until the size is reached, overriding the transaction count.
+     *
+     * @param targetSize
+     *            the minimum size in bytes, or 0 to use the transaction count
+     */
+    public void setTargetSize(long targetSize) {
+        this.targetSize = targetSize;
+    }
+
+    /**
+     * Set the maximum number of occurrences of repeatable segments, loops and
+     * elements, unless their minimum number of occurrences is higher. The
+     * default is 5.
+     *
+     * @param maxRepeat
+     *            the maximum number of occurrences generated
+     */
+    public void setMaxRepeat(int maxRepeat) {
+        this.maxRepeat = maxRepeat;
+    }
+
+    /**
+     * Set the probability of each generated value being invalid.
+     *
+     * @param errorRate
+     *            probability between 0 (the default, a valid document) and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Set the functional identifier of the X12 group (GS01). The default is
+     * <code>FA</code>.
+     *
+     * @param functionalIdentifier
+     *            the functional identifier code
+     */
+    public void setFunctionalIdentifier(String functionalIdentifier) {
+        this.functionalIdentifier = functionalIdentifier;
+    }
+
+    /**
+     * Get the number of invalid values injected by the last call to
+     * {@link #generate(OutputStream)}.
+     *
+     * @return the number of injected errors
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrorCount;
+    }
+
+    /**
+     * Generate an interchange and write it to the stream. The stream is
+     * flushed but not closed.
+     *
+     * @param stream
+     *            the output stream
+     * @return the number of transactions written
+     * @throws EDIStreamException
+     *             when the interchange can not be written
+     */
+    public int generate(OutputStream stream) throws EDIStreamException {
+        CountingOutputStream output = new CountingOutputStream(stream);
+        EDIStreamWriter writer = EDIOutputFactory.newFactory().createEDIStreamWriter(output);
+        boolean x12 = Standards.X12.equals(standard);
+        int count = 0;
+
+        random = new Random(seed);
+        injectedErrorCount = 0;
+
+        writer.startInterchange();
+
+        if (x12) {
+            writeX12Header(writer);
+        } else {
+            writeEDIFACTHeader(writer);
+        }
+
+        while (targetSize > 0 ? output.count < targetSize : count < transactionCount) {
+            count++;
+            writer.writeStartSegment(x12 ? "ST" : "UNH");
+
+            if (x12) {
+                writer.writeElement(transactionType).writeElement(String.format("%04d", count));
+            } else {
+                writer.writeElement(String.format("%04d", count)).writeStartElement();
+                writeComponents(writer, (transactionType + ':' + version).split(":"));
+                writer.endElement();
+            }
+
+            writer.writeEndSegment();
+            writeChildren(writer, transaction, false);
+            writer.writeEndTransaction();
+
+            if (targetSize > 0) {
+                // Bring the count up to date with the writer's buffer
+                writer.flush();
+            }
+        }
+
+        if (x12) {
+            writer.writeEndGroup();
+        }
+
+        writer.writeEndInterchange();
+        writer.endInterchange();
+        writer.flush();
+
+        return count;
+    }
+
+    void writeX12Header(EDIStreamWriter writer) throws EDIStreamException {
+        final String isaVersion = version.length() >= 5 ? version.substring(0, 5) : "00401";
+
+        writer.writeStartSegment("ISA")
+              .writeElement("00")
+              .writeElement("          ")
+              .writeElement("00")
+              .writeElement("          ")
+              .writeElement("ZZ")
+              .writeElement("SENDER         ")
+              .writeElement("ZZ")
+              .writeElement("RECEIVER       ")
+              .writeElement("200101")
+              .writeElement("1200")
+              .writeElement(isaVersion.compareTo("00402") > 0 ? "^" : "U")
+              .writeElement(isaVersion)
+              .writeElement("000000001")
+              .writeElement("0")
+              .writeElement("T")
+              .writeElement(":")
+              .writeEndSegment();
+
+        writer.writeStartSegment("GS")
+              .writeElement(functionalIdentifier)
+              .writeElement("SENDER")
+              .writeElement("RECEIVER")
+              .writeElement("20200101")
+              .writeElement("1200")
+              .writeElement("1")
+              .writeElement("X")
+              .writeElement(version)
+              .writeEndSegment();
+    }
+
+    void writeEDIFACTHeader(EDIStreamWriter writer) throws EDIStreamException {
+        writer.writeStartSegment("UNB").writeStartElement();
+        writeComponents(writer, "UNOA", "4");
+        writer.endElement().writeElement("SENDER").writeElement("RECEIVER").writeStartElement();
+        writeComponents(writer, "20200101", "1200");
+        writer.endElement().writeElement("1").writeEndSegment();
+    }
+
+    static void writeComponents(EDIStreamWriter writer, String... components) throws EDIStreamException {
+        for (String component : components) {
+            writer.startComponent();
+
+            if (!component.isEmpty()) {
+                writer.writeElementData(component);
+            }
+
+            writer.endComponent();
+        }
+    }
+
+    /**
+     * Write the segments and loops of a transaction or loop. The first
+     * segment of a loop is always written, the loop being recognized by it.
+     */
+    void writeChildren(EDIStreamWriter writer, EDIComplexType parent, boolean loop) throws EDIStreamException {
+        boolean first = loop;
+
+        for (EDIReference reference : parent.getReferences()) {
+            EDIType type = reference.getReferencedType();
+            int occurrences = occurrences(reference);
+
+            if (first) {
+                occurrences = Math.max(occurrences, 1);
+                first = false;
+            }
+
+            for (int i = 0; i < occurrences; i++) {
+                if (type.isType(EDIType.Type.LOOP)) {
+                    writeChildren(writer, (EDIComplexType) type, true);
+                } else {
+                    writeSegment(writer, (EDIComplexType) type);
+                }
+            }
+        }
+    }
+
+    void writeSegment(EDIStreamWriter writer, EDIComplexType segment) throws EDIStreamException {
+        final List<EDIReference> references = segment.getReferences();
+        final List<List<String[]>> elements = new ArrayList<>(references.size());
+
+        for (EDIReference reference : references) {
+            elements.add(element(reference));
+        }
+
+        applyRules(segment, elements.size(), position -> !elements.get(position - 1).isEmpty(), position -> {
+            List<String[]> element = elements.get(position - 1);
+
+            if (element.isEmpty()) {
+                element.add(occurrence(references.get(position - 1).getReferencedType()));
+            }
+        }, position -> elements.get(position - 1).clear());
+
+        if (elements.stream().allMatch(List::isEmpty)) {
+            // A segment tag may not be followed directly by the terminator
+            elements.get(0).add(validOccurrence(references.get(0).getReferencedType()));
+        }
+
+        writer.writeStartSegment(segment.getId());
+        int pendingEmpty = 0;
+
+        for (List<String[]> element : elements) {
+            if (element.isEmpty()) {
+                pendingEmpty++;
+                continue;
+            }
+
+            for (; pendingEmpty > 0; pendingEmpty--) {
+                writer.writeEmptyElement();
+            }
+
+            boolean repeat = false;
+
+            for (String[] values : element) {
+                if (repeat) {
+                    writer.writeRepeatElement();
+                } else {
+                    writer.writeStartElement();
+                    repeat = true;
+                }
+
+                if (values.length == 1) {
+                    writer.writeElementData(values[0]);
+                } else {
+                    writeComponents(writer, trimmed(values));
+                }
+
+                writer.endElement();
+            }
+        }
+
+        writer.writeEndSegment();
+    }
+
+    static String[] trimmed(String[] values) {
+        int length = values.length;
+
+        while (length > 0 && values[length - 1].isEmpty()) {
+            length--;
+        }
+
+        return length < values.length ? Arrays.copyOf(values, length) : values;
+    }
+
+    /**
+     * Generate the occurrences of an element, each the value of a simple
+     * element or the component values of a composite. An empty list
+     * represents an empty element.
+     */
+    List<String[]> element(EDIReference reference) {
+        final EDIType type = reference.getReferencedType();
+        final List<String[]> element = new ArrayList<>(1);
+        final int occurrences = occurrences(reference);
+
+        if (reference.getMinOccurs() > 0 && type.isType(EDIType.Type.ELEMENT) && injectError() && random.nextBoolean()) {
+            // Omit a mandatory element
+            injectedErrorCount++;
+            return element;
+        }
+
+        for (int i = 0; i < occurrences; i++) {
+            String[] values = occurrence(type);
+
+            if (values != null) {
+                element.add(values);
+            }
+        }
+
+        return element;
+    }
+
+    String[] occurrence(EDIType type) {
+        if (type.isType(EDIType.Type.COMPOSITE)) {
+            return composite((EDIComplexType) type);
+        }
+
+        String value = value((EDISimpleType) type);
+        return value.isEmpty() ? null : new String[] { value };
+    }
+
+    /**
+     * Generate a valid, non-empty occurrence of the element: the value of a
+     * simple element, or a composite with a value for its first component.
+     */
+    String[] validOccurrence(EDIType type) {
+        if (type.isType(EDIType.Type.COMPOSITE)) {
+            List<EDIReference> references = ((EDIComplexType) type).getReferences();
+            String[] values = new String[references.size()];
+            Arrays.fill(values, "");
+            values[0] = validValue((EDISimpleType) references.get(0).getReferencedType());
+            return values;
+        }
+
+        return new String[] { validValue((EDISimpleType) type) };
+    }
+
+    String[] composite(EDIComplexType composite) {
+        final List<EDIReference> references = composite.getReferences();
+        final String[] values = new String[references.size()];
+        boolean empty = true;
+
+        for (int i = 0; i < values.length; i++) {
+            EDIReference reference = references.get(i);
+            values[i] = occurrences(reference) > 0 ? value((EDISimpleType) reference.getReferencedType()) : "";
+            empty &= values[i].isEmpty();
+        }
+
+        applyRules(composite, values.length, position -> !values[position - 1].isEmpty(), position -> {
+            if (values[position - 1].isEmpty()) {
+                values[position - 1] = validValue((EDISimpleType) references.get(position - 1).getReferencedType());
+            }
+        }, position -> values[position - 1] = "");
+
+        for (String value : values) {
+            empty &= value.isEmpty();
+        }
+
+        return empty ? null : values;
+    }
+
+    /**
+     * Add or remove values so that the syntax rules of the segment or
+     * composite are satisfied.
+     */
+    static void applyRules(EDIComplexType type, int size, IntPredicate present, IntConsumer add, IntConsumer remove) {
+        for (EDISyntaxRule rule : type.getSyntaxRules()) {
+            final int[] positions = rule.getPositions().stream().mapToInt(Integer::intValue).filter(p -> p <= size).toArray();
+
+            if (positions.length == 0) {
+                continue;
+            }
+
+            final int[] found = Arrays.stream(positions).filter(present).toArray();
+
+            switch (rule.getType()) {
+            case SINGLE:
+                if (found.length == 0) {
+                    add.accept(positions[0]);
+                }
+                removeAllButFirst(found, remove);
+                break;
+            case EXCLUSION:
+                removeAllButFirst(found, remove);
+                break;
+            case PAIRED:
+                if (found.length > 0) {
+                    Arrays.stream(positions).forEach(add);
+                }
+                break;
+            case REQUIRED:
+                if (found.length == 0) {
+                    add.accept(positions[0]);
+                }
+                break;
+            case CONDITIONAL:
+                if (present.test(positions[0])) {
+                    Arrays.stream(positions).forEach(add);
+                }
+                break;
+            case LIST:
+                if (present.test(positions[0]) && found.length < 2 && positions.length > 1) {
+                    add.accept(positions[1]);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    static void removeAllButFirst(int[] found, IntConsumer remove) {
+        for (int i = 1; i < found.length; i++) {
+            remove.accept(found[i]);
+        }
+    }
+
+    int occurrences(EDIReference reference) {
+        final int min = reference.getMinOccurs();
+        final int max = Math.max(min, Math.min(reference.getMaxOccurs(), maxRepeat));
+
+        if (max <= 1) {
+            return min > 0 || random.nextBoolean() ? 1 : 0;
+        }
+
+        return min + random.nextInt(max - min + 1);
+    }
+
+    boolean injectError() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    String value(EDISimpleType type) {
+        if (injectError()) {
+            String value = invalidValue(type);
+
+            if (value != null) {
+                injectedErrorCount++;
+                return value;
+            }
+        }
+
+        return validValue(type);
+    }
+
+    String validValue(EDISimpleType type) {
+        final int min = (int) Math.min(Math.max(type.getMinLength(), 1), MAX_VALUE_LENGTH);
+        final int max = (int) Math.min(Math.max(type.getMaxLength(), min), Math.max(min, MAX_VALUE_LENGTH));
+        final int length = min + random.nextInt(max - min + 1);
+
+        switch (type.getBase()) {
+        case IDENTIFIER:
+            String[] values = codes(type);
+
+            if (values.length > 0) {
+                return values[random.nextInt(values.length)];
+            }
+
+            return characters(ALPHANUMERIC, length);
+        case NUMERIC:
+            return number(length);
+        case DECIMAL:
+            if (length > 1 && Standards.X12.equals(standard) && random.nextBoolean()) {
+                // The decimal mark is not counted in the length
+                String digits = number(length);
+                int mark = 1 + random.nextInt(length - 1);
+                return digits.substring(0, mark) + '.' + digits.substring(mark);
+            }
+            return number(length);
+        case DATE:
+            LocalDate date = BASE_DATE.plusDays(random.nextInt(7300));
+            String text = String.format("%04d%02d%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+            return max < 8 ? text.substring(2) : text;
+        case TIME:
+            int timeLength = Math.max(4, Math.min(min + (min % 2), 8));
+            String time = String.format("%02d%02d%02d%02d",
+                                        random.nextInt(24),
+                                        random.nextInt(60),
+                                        random.nextInt(60),
+                                        random.nextInt(100));
+            return time.substring(0, timeLength);
+        case BINARY:
+            return "";
+        case STRING:
+        default:
+            return characters(ALPHANUMERIC, length);
+        }
+    }
+
+    /**
+     * Generate an invalid value for the type, or null when no invalid value
+     * can be generated.
+     */
+    String invalidValue(EDISimpleType type) {
+        final int max = (int) Math.min(type.getMaxLength(), MAX_VALUE_LENGTH);
+
+        switch (type.getBase()) {
+        case NUMERIC:
+        case DECIMAL:
+            return number(max).substring(1) + 'X';
+        case DATE:
+            return max >= 8 ? "20201301" : "201301";
+        case TIME:
+            return "2560";
+        case IDENTIFIER:
+            if (codes(type).length > 0) {
+                String value;
+
+                do {
+                    value = characters(ALPHANUMERIC, (int) Math.max(type.getMinLength(), 1));
+                } while (type.getValueSet().contains(value));
+
+                return value;
+            }
+            // Too long
+            return type.getMaxLength() < MAX_VALUE_LENGTH ? characters(ALPHANUMERIC, max + 1) : null;
+        case STRING:
+            return type.getMaxLength() < MAX_VALUE_LENGTH ? characters(ALPHANUMERIC, max + 1) : null;
+        case BINARY:
+        default:
+            return null;
+        }
+    }
+
+    String[] codes(EDISimpleType type) {
+        // Sorted for the values to depend only on the seed
+        return codes.computeIfAbsent(type, t -> t.getValueSet().stream().sorted().toArray(String[]::new));
+    }
+
+    String number(int length) {
+        if (length == 1) {
+            return characters(DIGITS, 1);
+        }
+
+        return DIGITS.charAt(1 + random.nextInt(9)) + characters(DIGITS, length - 1);
+    }
+
+    String characters(String characters, int length) {
+        char[] value = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            value[i] = characters.charAt(random.nextInt(characters.length()));
+        }
+
+        return new String(value);
+    }
+
+    static class CountingOutputStream extends FilterOutputStream {
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
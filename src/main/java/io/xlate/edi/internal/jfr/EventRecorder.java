@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.jfr;
+
+/**
+ * Hooks for recording Java Flight Recorder events. This implementation
+ * records nothing; when running on Java 11 or later with the
+ * {@code jdk.jfr} module available, the JFR implementation from the
+ * multi-release JAR is used instead.
+ *
+ * Each begin method returns a handle to be passed to the matching end
+ * method, or null when the event is not enabled in any recording. The end
+ * method is only called with a non-null handle, and callers may skip
+ * gathering the values of an event when the handle is null.
+ */
+public class EventRecorder {
+
+    private static final String JFR_RECORDER = "io.xlate.edi.internal.jfr.FlightEventRecorder";
+    private static final EventRecorder INSTANCE = load(JFR_RECORDER);
+
+    protected EventRecorder() {
+    }
+
+    public static EventRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    static EventRecorder load(String className) {
+        try {
+            Class<?> type = Class.forName(className);
+            return (EventRecorder) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Java 8, or the jdk.jfr module is not available
+            return new EventRecorder();
+        }
+    }
+
+    /**
+     * Whether the interchange or transaction event is enabled in a running
+     * recording. Readers capture the values recorded by those events (the
+     * standard, version, partners and transaction type) from the control
+     * segments only while enabled, regardless of whether an event was begun
+     * for the current interchange.
+     *
+     * @return true when the interchange or transaction event is enabled
+     */
+    public boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Begin reading an interchange.
+     *
+     * @param offset
+     *            the character offset of the end of the previous segment
+     * @param segments
+     *            the number of segments read before the interchange
+     * @return the event handle, or null when not enabled
+     */
+    public Object interchangeBegin(int offset, int segments) {
+        return null;
+    }
+
+    public void interchangeEnd(Object event,
+                               String standard,
+                               String version,
+                               String sender,
+                               String receiver,
+                               int offset,
+                               int segments,
+                               int errors) {
+        // No event
+    }
+
+    /**
+     * Begin reading a transaction.
+     *
+     * @param offset
+     *            the character offset of the end of the previous segment
+     * @param segments
+     *            the number of segments read before the transaction
+     * @return the event handle, or null when not enabled
+     */
+    public Object transactionBegin(int offset, int segments) {
+        return null;
+    }
+
+    public void transactionEnd(Object event,
+                               String type,
+                               String version,
+                               boolean validated,
+                               int offset,
+                               int segments,
+                               int errors) {
+        // No event
+    }
+
+    public Object schemaLoadBegin() {
+        return null;
+    }
+
+    public void schemaLoadEnd(Object event, String source, String format, long bytes, int types) {
+        // No event
+    }
+
+    public Object controlSchemaLoadBegin() {
+        return null;
+    }
+
+    public void controlSchemaLoadEnd(Object event, String resource, boolean loaded) {
+        // No event
+    }
+}
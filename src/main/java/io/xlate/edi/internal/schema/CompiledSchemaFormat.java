@@ -0,0 +1,442 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.schema;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.xlate.edi.schema.EDIComplexType;
+import io.xlate.edi.schema.EDIReference;
+import io.xlate.edi.schema.EDISchemaException;
+import io.xlate.edi.schema.EDISimpleType;
+import io.xlate.edi.schema.EDISyntaxRule;
+import io.xlate.edi.schema.EDIType;
+
+/**
+ * Binary form of a resolved {@link StaEDISchema}. The layout is:
+ *
+ * <pre>
+ * magic (int), version (short)
+ * type count (int), { type (byte), offset (int) }...
+ * key count (int), { key (UTF), type index (int) }...
+ * data length (int), type records...
+ * </pre>
+ *
+ * References between types are stored as indexes into the type table, so a
+ * compiled schema is read with a single sequential pass and needs no
+ * reference validation. The offsets of the type records allow a schema to be
+ * loaded lazily, building each type only when it is first used: either
+ * looked up by name or reached through a reference of a type already built.
+ */
+class CompiledSchemaFormat {
+
+    static final int MAGIC = 0x45444953; // "EDIS"
+    static final short VERSION = 2;
+
+    private static final byte KIND_ELEMENT = 0;
+    private static final byte KIND_STRUCTURE = 1;
+
+    private CompiledSchemaFormat() {
+    }
+
+    static void write(StaEDISchema schema, DataOutputStream out) throws IOException {
+        Map<String, EDIType> types = schema.getTypes();
+        Map<EDIType, Integer> index = new IdentityHashMap<>(types.size());
+        List<EDIType> table = new ArrayList<>(types.size());
+
+        for (EDIType type : types.values()) {
+            if (!index.containsKey(type)) {
+                index.put(type, table.size());
+                table.add(type);
+            }
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(table.size() * 64);
+        DataOutputStream data = new DataOutputStream(buffer);
+        int[] offsets = new int[table.size()];
+
+        for (int i = 0, m = table.size(); i < m; i++) {
+            EDIType type = table.get(i);
+            offsets[i] = data.size();
+
+            if (type instanceof EDISimpleType) {
+                writeElement((EDISimpleType) type, data);
+            } else {
+                writeStructure((EDIComplexType) type, index, data);
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(table.size());
+
+        for (int i = 0, m = table.size(); i < m; i++) {
+            out.writeByte(table.get(i).getType().ordinal());
+            out.writeInt(offsets[i]);
+        }
+
+        out.writeInt(types.size());
+
+        for (Map.Entry<String, EDIType> entry : types.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(index.get(entry.getValue()));
+        }
+
+        out.writeInt(data.size());
+        buffer.writeTo(out);
+        out.flush();
+    }
+
+    static void writeElement(EDISimpleType element, DataOutputStream out) throws IOException {
+        out.writeByte(KIND_ELEMENT);
+        out.writeUTF(element.getId());
+        out.writeByte(element.getBase().ordinal());
+        out.writeInt(element.getNumber());
+        out.writeLong(element.getMinLength());
+        out.writeLong(element.getMaxLength());
+
+        Set<String> values = element.getValueSet();
+        out.writeInt(values.size());
+
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static void writeStructure(EDIComplexType struct, Map<EDIType, Integer> index, DataOutputStream out) throws IOException {
+        out.writeByte(KIND_STRUCTURE);
+        out.writeUTF(struct.getId());
+        out.writeByte(struct.getType().ordinal());
+        out.writeUTF(struct.getCode());
+
+        List<EDIReference> references = struct.getReferences();
+        out.writeInt(references.size());
+
+        for (EDIReference ref : references) {
+            Reference impl = (Reference) ref;
+            out.writeUTF(impl.getRefId());
+            out.writeUTF(impl.getRefTag());
+            out.writeInt(impl.getMinOccurs());
+            out.writeInt(impl.getMaxOccurs());
+            out.writeInt(index.get(impl.getReferencedType()));
+        }
+
+        List<EDISyntaxRule> rules = struct.getSyntaxRules();
+        out.writeInt(rules.size());
+
+        for (EDISyntaxRule rule : rules) {
+            out.writeByte(rule.getType().ordinal());
+
+            List<Integer> positions = rule.getPositions();
+            out.writeInt(positions.size());
+
+            for (Integer position : positions) {
+                out.writeInt(position);
+            }
+        }
+    }
+
+    static Map<String, EDIType> readTypeMap(DataInputStream in, boolean lazy) throws IOException, EDISchemaException {
+        return readTypeMap(in, lazy, null);
+    }
+
+    /**
+     * Read the types of a compiled schema.
+     *
+     * @param in
+     *            the compiled schema
+     * @param lazy
+     *            true to build each type on first use
+     * @param pool
+     *            pool sharing the element types built lazily, or null. Types
+     *            read eagerly are shared by the caller once resolved.
+     * @return map of type names to types
+     */
+    static Map<String, EDIType> readTypeMap(DataInputStream in, boolean lazy, TypePool pool) throws IOException, EDISchemaException {
+        if (in.readInt() != MAGIC) {
+            throw new EDISchemaException("Stream does not contain a compiled schema");
+        }
+
+        short version = in.readShort();
+
+        if (version != VERSION) {
+            throw new EDISchemaException("Unsupported compiled schema version: " + version);
+        }
+
+        int typeCount = in.readInt();
+        EDIType.Type[] typeIds = new EDIType.Type[typeCount];
+        int[] offsets = new int[typeCount];
+
+        for (int i = 0; i < typeCount; i++) {
+            typeIds[i] = EDIType.Type.values()[in.readByte()];
+            offsets[i] = in.readInt();
+        }
+
+        int keyCount = in.readInt();
+        Map<String, Integer> keys = new HashMap<>(Math.max(16, keyCount * 4 / 3 + 1));
+
+        for (int i = 0; i < keyCount; i++) {
+            String key = in.readUTF();
+            keys.put(key, in.readInt());
+        }
+
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+
+        if (lazy) {
+            return new LazyTypeMap(new TypeTable(typeIds, offsets, data, pool), keys);
+        }
+
+        return readTypes(new DataInputStream(new ByteArrayInputStream(data)), typeCount, keys);
+    }
+
+    static Map<String, EDIType> readTypes(DataInputStream in, int typeCount, Map<String, Integer> keys) throws IOException, EDISchemaException {
+        EDIType[] table = new EDIType[typeCount];
+        List<Reference> references = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+
+        for (int i = 0; i < typeCount; i++) {
+            table[i] = readType(in, references, targets, null);
+        }
+
+        for (int i = 0, m = references.size(); i < m; i++) {
+            references.get(i).setReferencedType(table[targets.get(i)]);
+        }
+
+        Map<String, EDIType> types = new HashMap<>(Math.max(16, keys.size() * 4 / 3 + 1));
+
+        for (Map.Entry<String, Integer> key : keys.entrySet()) {
+            types.put(key.getKey(), table[key.getValue()]);
+        }
+
+        return types;
+    }
+
+    /*
+     * Read a type record. When a table is given, the references of a
+     * structure resolve their target from the table on first use, otherwise
+     * they are collected with their targets to be resolved by the caller.
+     */
+    static EDIType readType(DataInputStream in, List<Reference> references, List<Integer> targets, TypeTable table) throws IOException, EDISchemaException {
+        byte kind = in.readByte();
+
+        if (kind == KIND_ELEMENT) {
+            return readElement(in);
+        } else if (kind == KIND_STRUCTURE) {
+            return readStructure(in, references, targets, table);
+        }
+
+        throw new EDISchemaException("Invalid compiled schema type kind: " + kind);
+    }
+
+    static Element readElement(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        EDISimpleType.Base base = EDISimpleType.Base.values()[in.readByte()];
+        int number = in.readInt();
+        long minLength = in.readLong();
+        long maxLength = in.readLong();
+        int valueCount = in.readInt();
+        Set<String> values = new LinkedHashSet<>(valueCount * 4 / 3 + 1);
+
+        for (int i = 0; i < valueCount; i++) {
+            values.add(in.readUTF());
+        }
+
+        return new Element(id, base, number, minLength, maxLength, values);
+    }
+
+    static Structure readStructure(DataInputStream in, List<Reference> references, List<Integer> targets, TypeTable table) throws IOException {
+        String id = in.readUTF();
+        EDIType.Type type = EDIType.Type.values()[in.readByte()];
+        String code = in.readUTF();
+        int refCount = in.readInt();
+        List<EDIReference> refs = new ArrayList<>(refCount);
+
+        for (int i = 0; i < refCount; i++) {
+            String refId = in.readUTF();
+            String refTag = in.readUTF();
+            int minOccurs = in.readInt();
+            int maxOccurs = in.readInt();
+            int target = in.readInt();
+
+            if (table != null) {
+                refs.add(new TableReference(refId, refTag, minOccurs, maxOccurs, table, target));
+            } else {
+                Reference ref = new Reference(refId, refTag, minOccurs, maxOccurs);
+                refs.add(ref);
+                references.add(ref);
+                targets.add(target);
+            }
+        }
+
+        int ruleCount = in.readInt();
+        List<EDISyntaxRule> rules = new ArrayList<>(ruleCount);
+
+        for (int i = 0; i < ruleCount; i++) {
+            EDISyntaxRule.Type ruleType = EDISyntaxRule.Type.values()[in.readByte()];
+            int positionCount = in.readInt();
+            List<Integer> positions = new ArrayList<>(positionCount);
+
+            for (int p = 0; p < positionCount; p++) {
+                positions.add(in.readInt());
+            }
+
+            rules.add(new SyntaxRestriction(ruleType, positions));
+        }
+
+        return new Structure(id, type, code, refs, rules);
+    }
+
+    /*
+     * Type records of a lazily loaded schema. Each type is built from its
+     * record the first time it is requested, without the types it references.
+     * The record data is released once every type has been built.
+     */
+    static class TypeTable {
+        final EDIType.Type[] typeIds;
+        final int[] offsets;
+        final EDIType[] types;
+        final TypePool pool;
+        byte[] data;
+        int unbuilt;
+
+        TypeTable(EDIType.Type[] typeIds, int[] offsets, byte[] data, TypePool pool) {
+            this.typeIds = typeIds;
+            this.offsets = offsets;
+            this.data = data;
+            this.pool = pool;
+            this.types = new EDIType[typeIds.length];
+            this.unbuilt = typeIds.length;
+        }
+
+        synchronized EDIType get(int index) {
+            if (types[index] == null) {
+                int offset = offsets[index];
+                EDIType type;
+
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, data.length - offset))) {
+                    type = readType(in, null, null, this);
+                } catch (IOException | EDISchemaException e) {
+                    throw new IllegalStateException("Corrupt compiled schema type at offset " + offset, e);
+                }
+
+                if (pool != null && type instanceof EDISimpleType) {
+                    // Structures are not pooled, their references are not yet resolved
+                    type = pool.share((EDISimpleType) type);
+                }
+
+                types[index] = type;
+
+                if (--unbuilt == 0) {
+                    data = null;
+                }
+            }
+
+            return types[index];
+        }
+
+        synchronized int resolvedCount() {
+            int count = 0;
+
+            for (EDIType type : types) {
+                if (type != null) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+    }
+
+    /*
+     * Reference to a type of a lazily loaded schema, building the type the
+     * first time the reference is followed.
+     */
+    static class TableReference extends Reference {
+        final TypeTable table;
+        final int target;
+        private volatile EDIType resolved;
+
+        TableReference(String refId, String refTag, int minOccurs, int maxOccurs, TypeTable table, int target) {
+            super(refId, refTag, minOccurs, maxOccurs);
+            this.table = table;
+            this.target = target;
+        }
+
+        @Override
+        public EDIType getReferencedType() {
+            EDIType type = resolved;
+
+            if (type == null) {
+                type = table.get(target);
+                resolved = type;
+            }
+
+            return type;
+        }
+    }
+
+    /*
+     * Read-only map of type names to types that builds types on first access.
+     */
+    static class LazyTypeMap extends AbstractMap<String, EDIType> {
+        final TypeTable table;
+        final Map<String, Integer> keys;
+
+        LazyTypeMap(TypeTable table, Map<String, Integer> keys) {
+            this.table = table;
+            this.keys = keys;
+        }
+
+        @Override
+        public EDIType get(Object key) {
+            Integer index = keys.get(key);
+            return index != null ? table.get(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return keys.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return keys.size();
+        }
+
+        @Override
+        public Set<Map.Entry<String, EDIType>> entrySet() {
+            Set<Map.Entry<String, EDIType>> entries = new LinkedHashSet<>(keys.size() * 4 / 3 + 1);
+
+            for (Map.Entry<String, Integer> key : keys.entrySet()) {
+                entries.add(new SimpleImmutableEntry<>(key.getKey(), table.get(key.getValue())));
+            }
+
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.schema;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.xlate.edi.schema.EDIType;
+import io.xlate.edi.schema.Schema;
+
+/**
+ * Bounded, least-recently-used cache of loaded schemas. The cache is limited
+ * both by the number of entries and by the total weight of the cached
+ * schemas, where the weight of a schema is the number of types it declares.
+ */
+class SchemaCache {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int maxEntries;
+    private long maxWeight;
+    private long totalWeight;
+
+    private long hits;
+    private long misses;
+
+    SchemaCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    static long weigh(Schema schema) {
+        long weight = 0;
+
+        for (EDIType type : schema) {
+            if (type != null) {
+                weight++;
+            }
+        }
+
+        return weight;
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0 && maxWeight > 0;
+    }
+
+    synchronized Schema get(String key) {
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            hits++;
+            return entry.schema;
+        }
+
+        misses++;
+        return null;
+    }
+
+    /**
+     * Add the schema to the cache unless another schema has been cached for
+     * the same key in the mean time.
+     *
+     * @return the schema cached for the key
+     */
+    synchronized Schema put(String key, Schema schema) {
+        Entry existing = entries.get(key);
+
+        if (existing != null) {
+            return existing.schema;
+        }
+
+        long weight = weigh(schema);
+
+        if (weight <= maxWeight) {
+            entries.put(key, new Entry(schema, weight));
+            totalWeight += weight;
+            evict();
+        }
+
+        return schema;
+    }
+
+    synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        evict();
+    }
+
+    synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+
+        while (eldest.hasNext() && (entries.size() > maxEntries || totalWeight > maxWeight)) {
+            totalWeight -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    private static class Entry {
+        final Schema schema;
+        final long weight;
+
+        Entry(Schema schema, long weight) {
+            this.schema = schema;
+            this.weight = weight;
+        }
+    }
+}
@@ -16,29 +16,40 @@
 package io.xlate.edi.internal.schema;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import io.xlate.edi.internal.jfr.EventRecorder;
 import io.xlate.edi.schema.EDISchemaException;
 import io.xlate.edi.schema.Schema;
 import io.xlate.edi.schema.SchemaFactory;
 import io.xlate.edi.stream.EDIStreamConstants.Standards;
 
-import java.util.NavigableMap;
-import java.util.Properties;
-import java.util.TreeMap;
-
 public class SchemaUtils {
 
+    static final String SOURCE_EXTENSION = ".xml";
+    static final String COMPILED_EXTENSION = ".bin";
+
     private SchemaUtils() {
     }
 
     static Properties controlIndex = new Properties();
     static NavigableMap<String, String> controlVersions = new TreeMap<>();
-    static NavigableMap<String, Schema> controlSchemas = new TreeMap<>();
+    /*
+     * Loaded control schemas, keyed by resource path. Versions sharing a
+     * resource share the schema instance.
+     */
+    static ConcurrentMap<String, Schema> controlSchemas = new ConcurrentHashMap<>();
 
     static {
         try {
@@ -56,7 +67,6 @@ public class SchemaUtils {
             final String schemaPath = entry.getValue().toString();
 
             controlVersions.put(standardVersion, schemaPath);
-            controlSchemas.put(standardVersion, null);
         }
     }
 
@@ -78,26 +88,108 @@ public class SchemaUtils {
             key = standard + '.' + String.join(".", version);
         }
 
-        Entry<String, Schema> controlEntry = controlSchemas.floorEntry(key);
-
-        if (controlEntry != null && controlEntry.getValue() != null) {
-            return controlEntry.getValue();
-        }
-
         Entry<String, String> pathEntry = controlVersions.floorEntry(key);
 
         if (pathEntry != null) {
-            Schema created = getXmlSchema(pathEntry.getValue());
-            controlSchemas.put(pathEntry.getKey(), created);
-            return created;
+            return getCachedSchema(pathEntry.getValue());
         }
 
         return null;
     }
 
+    /**
+     * Load all control schemas listed in the control index so that the first
+     * interchange read for each version does not incur the cost of loading
+     * the schema.
+     *
+     * @throws EDISchemaException
+     *             when a schema in the index can not be loaded
+     */
+    public static void preloadControlSchemas() throws EDISchemaException {
+        for (String resource : new HashSet<>(controlVersions.values())) {
+            getCachedSchema(resource);
+        }
+    }
+
+    static Schema getCachedSchema(String resource) throws EDISchemaException {
+        Schema schema = controlSchemas.get(resource);
+
+        if (schema != null) {
+            return schema;
+        }
+
+        try {
+            // Only one thread loads the resource, others wait for the result
+            return controlSchemas.computeIfAbsent(resource, SchemaUtils::loadXmlSchema);
+        } catch (SchemaLoadException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Schema loadXmlSchema(String resource) {
+        // Only called on a cache miss
+        final EventRecorder recorder = EventRecorder.getInstance();
+        final Object event = recorder.controlSchemaLoadBegin();
+        boolean loaded = false;
+
+        try {
+            Schema schema = getXmlSchema(resource);
+            loaded = true;
+            return schema;
+        } catch (EDISchemaException e) {
+            throw new SchemaLoadException(e);
+        } finally {
+            if (event != null) {
+                recorder.controlSchemaLoadEnd(event, resource, loaded);
+            }
+        }
+    }
+
     private static Schema getXmlSchema(String resource) throws EDISchemaException {
         SchemaFactory schemaFactory = SchemaFactory.newFactory();
+        URL compiled = getURL(compiledPath(resource));
+
+        if (compiled != null) {
+            // Precompiled at build time by SchemaCompiler
+            try (InputStream stream = compiled.openStream()) {
+                return schemaFactory.createCompiledSchema(stream);
+            } catch (IOException e) {
+                throw new EDISchemaException("Unable to open stream", e);
+            }
+        }
+
         URL location = getURL(resource);
         return schemaFactory.createSchema(location);
     }
+
+    /**
+     * Path of the compiled form of a schema resource, the resource path with
+     * the <code>.xml</code> extension replaced by <code>.bin</code>.
+     *
+     * @param resource
+     *            path of the XML schema
+     * @return path of the compiled schema
+     */
+    public static String compiledPath(String resource) {
+        if (resource.endsWith(SOURCE_EXTENSION)) {
+            return resource.substring(0, resource.length() - SOURCE_EXTENSION.length()) + COMPILED_EXTENSION;
+        }
+        return resource + COMPILED_EXTENSION;
+    }
+
+    /*
+     * Carries a checked EDISchemaException out of the cache's mapping function.
+     */
+    private static class SchemaLoadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SchemaLoadException(EDISchemaException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized EDISchemaException getCause() {
+            return (EDISchemaException) super.getCause();
+        }
+    }
 }
@@ -57,6 +57,10 @@ class StaEDISchema implements Schema {
         }
     }
 
+    Map<String, EDIType> getTypes() {
+        return types;
+    }
+
     @Override
     public EDIType getType(String name) {
         return types.get(name);
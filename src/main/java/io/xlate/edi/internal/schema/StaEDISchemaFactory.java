@@ -15,9 +15,19 @@
  ******************************************************************************/
 package io.xlate.edi.internal.schema;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -36,6 +46,7 @@ import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
+import io.xlate.edi.internal.jfr.EventRecorder;
 import io.xlate.edi.schema.EDIReference;
 import io.xlate.edi.schema.EDISchemaException;
 import io.xlate.edi.schema.EDISimpleType;
@@ -47,6 +58,7 @@ import io.xlate.edi.schema.SchemaFactory;
 public class StaEDISchemaFactory implements SchemaFactory {
 
     private static XMLInputFactory factory = XMLInputFactory.newInstance();
+    private static final EventRecorder recorder = EventRecorder.getInstance();
 
     static final String XMLNS = "http://xlate.io/EDISchema/v2";
     private static final String REFERR_UNDECLARED = "Type %s references undeclared %s with ref='%s'";
@@ -89,21 +101,180 @@ public class StaEDISchemaFactory implements SchemaFactory {
         references.add(QN_ELEMENT);
     }
 
+    static final int DEFAULT_CACHE_MAX_ENTRIES = 0;
+
     private final Map<String, Object> properties;
     private final Set<String> supportedProperties;
+    private final SchemaCache cache;
+    private final TypePool typePool;
 
     public StaEDISchemaFactory() {
         properties = new HashMap<>();
         supportedProperties = new HashSet<>();
+        cache = new SchemaCache(DEFAULT_CACHE_MAX_ENTRIES, Long.MAX_VALUE);
+        typePool = new TypePool();
+
+        supportedProperties.add(SCHEMA_CACHE_MAX_ENTRIES);
+        supportedProperties.add(SCHEMA_CACHE_MAX_WEIGHT);
+        supportedProperties.add(SCHEMA_CACHE_HITS);
+        supportedProperties.add(SCHEMA_CACHE_MISSES);
+        supportedProperties.add(LAZY_TYPE_RESOLUTION);
+        supportedProperties.add(SHARE_TYPES);
     }
 
     @Override
     public Schema createSchema(InputStream stream) throws EDISchemaException {
+        if (!cache.isEnabled()) {
+            return loadSchema(stream);
+        }
+
+        final byte[] content;
+
+        try {
+            content = readFully(stream);
+        } catch (IOException e) {
+            throw new EDISchemaException("Unable to read stream", e);
+        }
+
+        String key = cacheKey("sha-256:" + contentHash(content));
+        Schema schema = cache.get(key);
+
+        if (schema == null) {
+            schema = cache.put(key, loadSchema(new ByteArrayInputStream(content)));
+        }
+
+        return schema;
+    }
+
+    @Override
+    public Schema createSchema(URL location) throws EDISchemaException {
+        if (!cache.isEnabled()) {
+            return loadSchema(location);
+        }
+
+        String key = cacheKey(location.toExternalForm());
+        Schema schema = cache.get(key);
+
+        if (schema == null) {
+            schema = cache.put(key, loadSchema(location));
+        }
+
+        return schema;
+    }
+
+    @Override
+    public Schema createCompiledSchema(InputStream stream) throws EDISchemaException {
+        return recordLoad(stream, null, "compiled", this::readCompiledSchema);
+    }
+
+    StaEDISchema readCompiledSchema(InputStream stream) throws EDISchemaException {
+        try {
+            boolean lazy = isEnabled(LAZY_TYPE_RESOLUTION);
+            TypePool pool = lazy && isEnabled(SHARE_TYPES) ? typePool : null;
+            Map<String, EDIType> types = CompiledSchemaFormat.readTypeMap(new DataInputStream(new BufferedInputStream(stream)), lazy, pool);
+
+            if (!lazy) {
+                shareTypes(types);
+            }
+
+            StaEDISchema schema = new StaEDISchema();
+            schema.setTypes(types);
+            return schema;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new EDISchemaException("Unable to read compiled schema", e);
+        }
+    }
+
+    @Override
+    public void writeCompiledSchema(Schema schema, OutputStream stream) throws EDISchemaException {
+        if (!(schema instanceof StaEDISchema)) {
+            throw new IllegalArgumentException("Unsupported schema implementation: " + schema);
+        }
+
+        try {
+            CompiledSchemaFormat.write((StaEDISchema) schema, new DataOutputStream(new BufferedOutputStream(stream)));
+        } catch (IOException e) {
+            throw new EDISchemaException("Unable to write compiled schema", e);
+        }
+    }
+
+    /*
+     * Schemas loaded with different type properties are not interchangeable,
+     * each variant is cached separately.
+     */
+    String cacheKey(String source) {
+        return source + "?shared=" + isEnabled(SHARE_TYPES) + "&lazy=" + isEnabled(LAZY_TYPE_RESOLUTION);
+    }
+
+    boolean isEnabled(String property) {
+        return Boolean.parseBoolean(String.valueOf(properties.get(property)));
+    }
+
+    void shareTypes(Map<String, EDIType> types) {
+        if (isEnabled(SHARE_TYPES)) {
+            typePool.canonicalize(types);
+        }
+    }
+
+    TypePool getTypePool() {
+        return typePool;
+    }
+
+    SchemaCache getCache() {
+        return cache;
+    }
+
+    static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int count;
+
+        while ((count = stream.read(chunk)) > -1) {
+            buffer.write(chunk, 0, count);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    static String contentHash(byte[] content) {
+        final MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder hash = new StringBuilder(64);
+
+        for (byte b : digest.digest(content)) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hash.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hash.toString();
+    }
+
+    Schema loadSchema(URL location) throws EDISchemaException {
+        try (InputStream stream = location.openStream()) {
+            return recordLoad(stream, location.toExternalForm(), "XML", this::readSchema);
+        } catch (IOException e) {
+            throw new EDISchemaException("Unable to open stream", e);
+        }
+    }
+
+    Schema loadSchema(InputStream stream) throws EDISchemaException {
+        return recordLoad(stream, null, "XML", this::readSchema);
+    }
+
+    StaEDISchema readSchema(InputStream stream) throws EDISchemaException {
         StaEDISchema schema = new StaEDISchema();
 
         try {
             Map<String, EDIType> types = loadTypes(stream);
             validateReferences(types);
+            shareTypes(types);
             schema.setTypes(types);
         } catch (StaEDISchemaReadException e) {
             Location location = e.getLocation();
@@ -116,12 +287,66 @@ public class StaEDISchemaFactory implements SchemaFactory {
         return schema;
     }
 
-    @Override
-    public Schema createSchema(URL location) throws EDISchemaException {
+    interface SchemaReader {
+        StaEDISchema read(InputStream stream) throws EDISchemaException;
+    }
+
+    /*
+     * Read the schema, recording a flight recorder event with the number of
+     * bytes read when enabled.
+     */
+    static StaEDISchema recordLoad(InputStream stream, String source, String format, SchemaReader reader) throws EDISchemaException {
+        Object event = recorder.schemaLoadBegin();
+
+        if (event == null) {
+            return reader.read(stream);
+        }
+
+        CountingInputStream counter = new CountingInputStream(stream);
+        StaEDISchema schema = null;
+
         try {
-            return createSchema(location.openStream());
-        } catch (IOException e) {
-            throw new EDISchemaException("Unable to open stream", e);
+            schema = reader.read(counter);
+            return schema;
+        } finally {
+            recorder.schemaLoadEnd(event, source, format, counter.count, schema != null ? schema.getTypes().size() : 0);
+        }
+    }
+
+    static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b != -1) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+
+            if (n > 0) {
+                count += n;
+            }
+
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
         }
     }
 
@@ -132,18 +357,60 @@ public class StaEDISchemaFactory implements SchemaFactory {
 
     @Override
     public Object getProperty(String name) {
-        if (isPropertySupported(name)) {
+        if (!isPropertySupported(name)) {
+            throw new IllegalArgumentException("Unsupported property: " + name);
+        }
+
+        switch (name) {
+        case SCHEMA_CACHE_MAX_ENTRIES:
+            return cache.getMaxEntries();
+        case SCHEMA_CACHE_MAX_WEIGHT:
+            return cache.getMaxWeight();
+        case SCHEMA_CACHE_HITS:
+            return cache.getHits();
+        case SCHEMA_CACHE_MISSES:
+            return cache.getMisses();
+        default:
             return properties.get(name);
         }
-        throw new IllegalArgumentException("Unsupported property: " + name);
     }
 
     @Override
     public void setProperty(String name, Object value) {
-        if (isPropertySupported(name)) {
+        if (!isPropertySupported(name)) {
+            throw new IllegalArgumentException("Unsupported property: " + name);
+        }
+
+        switch (name) {
+        case SCHEMA_CACHE_MAX_ENTRIES:
+            cache.setMaxEntries((int) limitValue(name, value));
+            break;
+        case SCHEMA_CACHE_MAX_WEIGHT:
+            cache.setMaxWeight(limitValue(name, value));
+            break;
+        case SCHEMA_CACHE_HITS:
+        case SCHEMA_CACHE_MISSES:
+            throw new IllegalArgumentException("Read-only property: " + name);
+        default:
             properties.put(name, value);
+            break;
+        }
+    }
+
+    static long limitValue(String name, Object value) {
+        final long limit;
+
+        try {
+            limit = Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + value, e);
         }
-        throw new IllegalArgumentException("Unsupported property: " + name);
+
+        if (limit < 0 || (limit > Integer.MAX_VALUE && SCHEMA_CACHE_MAX_ENTRIES.equals(name))) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+        }
+
+        return limit;
     }
 
     static StaEDISchemaReadException schemaException(String message) {
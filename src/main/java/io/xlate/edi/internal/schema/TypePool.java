@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.schema;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import io.xlate.edi.schema.EDIComplexType;
+import io.xlate.edi.schema.EDIReference;
+import io.xlate.edi.schema.EDISimpleType;
+import io.xlate.edi.schema.EDISyntaxRule;
+import io.xlate.edi.schema.EDIType;
+
+/**
+ * Pool of canonical element, composite and segment types shared by the
+ * schemas loaded by a factory. Structurally identical types are replaced by
+ * a single instance and the identifiers and code values of pooled types are
+ * interned.
+ *
+ * Loops, transactions, groups and interchanges are specific to their schema
+ * and are not pooled; only their references are redirected to the pooled
+ * types.
+ *
+ * The pool is keyed on the pooled types themselves, compared structurally,
+ * and holds them weakly: a type is dropped from the pool once no schema
+ * uses it, e.g. after its schemas are evicted from the schema cache.
+ */
+class TypePool {
+
+    private final Map<Integer, List<PooledType>> types = new HashMap<>();
+    private final ReferenceQueue<EDIType> released = new ReferenceQueue<>();
+
+    synchronized int size() {
+        expunge();
+        int size = 0;
+
+        for (List<PooledType> bucket : types.values()) {
+            size += bucket.size();
+        }
+
+        return size;
+    }
+
+    synchronized void clear() {
+        types.clear();
+    }
+
+    /**
+     * Replace the element, composite and segment types in the (fully
+     * resolved) map with their pooled equivalents.
+     */
+    synchronized void canonicalize(Map<String, EDIType> schemaTypes) {
+        expunge();
+        Map<EDIType, EDIType> replacements = new HashMap<>(schemaTypes.size());
+
+        // Bottom-up, so the references of each structure point to pooled types
+        canonicalize(schemaTypes, replacements, EDIType.Type.ELEMENT);
+        canonicalize(schemaTypes, replacements, EDIType.Type.COMPOSITE);
+        canonicalize(schemaTypes, replacements, EDIType.Type.SEGMENT);
+
+        for (EDIType type : schemaTypes.values()) {
+            if (!isPooled(type) && type instanceof EDIComplexType) {
+                for (EDIReference ref : ((EDIComplexType) type).getReferences()) {
+                    Reference impl = (Reference) ref;
+                    impl.setReferencedType(replacements.getOrDefault(impl.getReferencedType(), impl.getReferencedType()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the pooled equivalent of a single element type.
+     */
+    synchronized EDIType share(EDISimpleType element) {
+        expunge();
+        return intern(element);
+    }
+
+    static boolean isPooled(EDIType type) {
+        switch (type.getType()) {
+        case ELEMENT:
+        case COMPOSITE:
+        case SEGMENT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    void canonicalize(Map<String, EDIType> schemaTypes, Map<EDIType, EDIType> replacements, EDIType.Type kind) {
+        for (Map.Entry<String, EDIType> entry : schemaTypes.entrySet()) {
+            EDIType type = entry.getValue();
+
+            if (!type.isType(kind)) {
+                continue;
+            }
+
+            EDIType pooled = replacements.get(type);
+
+            if (pooled == null) {
+                if (type instanceof EDISimpleType) {
+                    pooled = intern((EDISimpleType) type);
+                } else {
+                    pooled = intern((EDIComplexType) type, replacements);
+                }
+                replacements.put(type, pooled);
+            }
+
+            entry.setValue(pooled);
+        }
+    }
+
+    EDIType intern(EDISimpleType element) {
+        Set<String> values = new LinkedHashSet<>(element.getValueSet().size() * 4 / 3 + 1);
+
+        for (String value : element.getValueSet()) {
+            values.add(value.intern());
+        }
+
+        return pool(new Element(element.getId().intern(),
+                                element.getBase(),
+                                element.getNumber(),
+                                element.getMinLength(),
+                                element.getMaxLength(),
+                                values));
+    }
+
+    EDIType intern(EDIComplexType struct, Map<EDIType, EDIType> replacements) {
+        List<EDIReference> refs = new ArrayList<>(struct.getReferences().size());
+
+        for (EDIReference ref : struct.getReferences()) {
+            Reference impl = (Reference) ref;
+            Reference pooled = new Reference(impl.getRefId().intern(),
+                                             impl.getRefTag().intern(),
+                                             impl.getMinOccurs(),
+                                             impl.getMaxOccurs());
+            pooled.setReferencedType(replacements.getOrDefault(impl.getReferencedType(), impl.getReferencedType()));
+            refs.add(pooled);
+        }
+
+        return pool(new Structure(struct.getId().intern(),
+                                  struct.getType(),
+                                  struct.getCode().intern(),
+                                  refs,
+                                  struct.getSyntaxRules()));
+    }
+
+    /*
+     * Get the pooled type equal to the canonical candidate, pooling the
+     * candidate if there is none.
+     */
+    EDIType pool(EDIType candidate) {
+        int hash = hash(candidate);
+        List<PooledType> bucket = types.computeIfAbsent(hash, k -> new ArrayList<>(1));
+
+        for (PooledType entry : bucket) {
+            EDIType pooled = entry.get();
+
+            if (pooled != null && equal(pooled, candidate)) {
+                return pooled;
+            }
+        }
+
+        bucket.add(new PooledType(candidate, hash, released));
+        return candidate;
+    }
+
+    void expunge() {
+        PooledType entry;
+
+        while ((entry = (PooledType) released.poll()) != null) {
+            List<PooledType> bucket = types.get(entry.hash);
+
+            if (bucket != null) {
+                bucket.remove(entry);
+
+                if (bucket.isEmpty()) {
+                    types.remove(entry.hash);
+                }
+            }
+        }
+    }
+
+    static int hash(EDIType type) {
+        int hash = Objects.hash(type.getId(), type.getType());
+
+        if (type instanceof EDISimpleType) {
+            EDISimpleType element = (EDISimpleType) type;
+            return 31 * hash + Objects.hash(element.getBase(),
+                                            element.getNumber(),
+                                            element.getMinLength(),
+                                            element.getMaxLength(),
+                                            element.getValueSet());
+        }
+
+        EDIComplexType struct = (EDIComplexType) type;
+        hash = 31 * hash + struct.getCode().hashCode();
+
+        for (EDIReference ref : struct.getReferences()) {
+            // Referenced types are pooled, compared by identity
+            hash = 31 * hash + System.identityHashCode(ref.getReferencedType());
+        }
+
+        return hash;
+    }
+
+    static boolean equal(EDIType t1, EDIType t2) {
+        if (!t1.getId().equals(t2.getId()) || t1.getType() != t2.getType()) {
+            return false;
+        }
+
+        if (t1 instanceof EDISimpleType) {
+            EDISimpleType e1 = (EDISimpleType) t1;
+            EDISimpleType e2 = (EDISimpleType) t2;
+            return e1.getBase() == e2.getBase()
+                    && e1.getNumber() == e2.getNumber()
+                    && e1.getMinLength() == e2.getMinLength()
+                    && e1.getMaxLength() == e2.getMaxLength()
+                    && e1.getValueSet().equals(e2.getValueSet());
+        }
+
+        EDIComplexType s1 = (EDIComplexType) t1;
+        EDIComplexType s2 = (EDIComplexType) t2;
+
+        return s1.getCode().equals(s2.getCode())
+                && equalReferences(s1.getReferences(), s2.getReferences())
+                && equalRules(s1.getSyntaxRules(), s2.getSyntaxRules());
+    }
+
+    static boolean equalReferences(List<EDIReference> refs1, List<EDIReference> refs2) {
+        if (refs1.size() != refs2.size()) {
+            return false;
+        }
+
+        Iterator<EDIReference> i2 = refs2.iterator();
+
+        for (EDIReference ref : refs1) {
+            Reference r1 = (Reference) ref;
+            Reference r2 = (Reference) i2.next();
+
+            if (r1.getReferencedType() != r2.getReferencedType()
+                    || r1.getMinOccurs() != r2.getMinOccurs()
+                    || r1.getMaxOccurs() != r2.getMaxOccurs()
+                    || !r1.getRefId().equals(r2.getRefId())
+                    || !r1.getRefTag().equals(r2.getRefTag())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static boolean equalRules(List<EDISyntaxRule> rules1, List<EDISyntaxRule> rules2) {
+        if (rules1.size() != rules2.size()) {
+            return false;
+        }
+
+        Iterator<EDISyntaxRule> i2 = rules2.iterator();
+
+        for (EDISyntaxRule r1 : rules1) {
+            EDISyntaxRule r2 = i2.next();
+
+            if (r1.getType() != r2.getType() || !r1.getPositions().equals(r2.getPositions())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * Weak pool entry, retaining the hash to remove the entry once the type
+     * has been collected.
+     */
+    private static class PooledType extends WeakReference<EDIType> {
+        final int hash;
+
+        PooledType(EDIType type, int hash, ReferenceQueue<EDIType> queue) {
+            super(type, queue);
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import io.xlate.edi.stream.EDIStreamMetrics;
+import io.xlate.edi.stream.EDIStreamValidationError;
+
+/**
+ * Accumulates the counters of the segment currently being read or written
+ * and notifies the {@link EDIStreamMetrics} listener at the end of the
+ * segment. When no listener is configured, every method returns immediately
+ * without reading the clock.
+ *
+ * Time is only accumulated while the lexer is running (between
+ * {@link #resume()} and {@link #pause()}), excluding the time the
+ * application spends between calls to the reader. Validation time is
+ * measured around the calls to the validator and subtracted from the lexing
+ * time.
+ */
+public final class MetricsRecorder {
+
+    public static final MetricsRecorder DISABLED = new MetricsRecorder(EDIStreamMetrics.NONE);
+
+    private static final EDIStreamValidationError[] ERRORS = EDIStreamValidationError.values();
+
+    private final EDIStreamMetrics listener;
+    private final boolean enabled;
+    private String partner;
+
+    /*
+     * Offset of the last character of the previous segment, the location's
+     * offset is -1 before the first character
+     */
+    private int segmentOffset = -1;
+    private boolean trailer;
+    private boolean running;
+    private long mark;
+    private long elapsedNanos;
+    private long validationMark;
+    private long validationNanos;
+    private int[] errorCounts;
+    private boolean errors;
+
+    MetricsRecorder(EDIStreamMetrics listener) {
+        this.listener = listener;
+        this.enabled = listener != EDIStreamMetrics.NONE;
+    }
+
+    static MetricsRecorder of(Object listener) {
+        if (listener == null || listener == EDIStreamMetrics.NONE) {
+            return DISABLED;
+        }
+
+        return new MetricsRecorder((EDIStreamMetrics) listener);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    String getPartner() {
+        return partner;
+    }
+
+    public void setPartner(String partner) {
+        if (enabled) {
+            this.partner = partner;
+        }
+    }
+
+    public void resume() {
+        if (enabled) {
+            mark = System.nanoTime();
+            running = true;
+        }
+    }
+
+    public void pause() {
+        if (enabled && running) {
+            elapsedNanos += System.nanoTime() - mark;
+            running = false;
+        }
+    }
+
+    public void validationStart() {
+        if (enabled) {
+            validationMark = System.nanoTime();
+        }
+    }
+
+    public void validationEnd() {
+        if (enabled) {
+            validationNanos += System.nanoTime() - validationMark;
+        }
+    }
+
+    public void validationError(EDIStreamValidationError error) {
+        if (enabled) {
+            if (errorCounts == null) {
+                errorCounts = new int[ERRORS.length];
+            }
+
+            errorCounts[error.ordinal()]++;
+            errors = true;
+        }
+    }
+
+    /**
+     * Note the start of a segment, detecting the trailer of a transaction.
+     *
+     * @param tag
+     *            the segment tag
+     */
+    public void segmentStart(CharSequence tag) {
+        if (enabled) {
+            trailer = isTrailer(tag);
+        }
+    }
+
+    static boolean isTrailer(CharSequence tag) {
+        switch (tag.length()) {
+        case 2:
+            return tag.charAt(0) == 'S' && tag.charAt(1) == 'E';
+        case 3:
+            return tag.charAt(0) == 'U' && tag.charAt(1) == 'N' && tag.charAt(2) == 'T';
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Notify the listener of the segment read, ending at the offset.
+     *
+     * @param offset
+     *            the character offset of the end of the segment
+     */
+    public void segmentRead(int offset) {
+        if (!enabled) {
+            return;
+        }
+
+        if (running) {
+            long now = System.nanoTime();
+            elapsedNanos += now - mark;
+            mark = now;
+        }
+
+        listener.segmentRead(partner,
+                             offset - segmentOffset,
+                             Math.max(elapsedNanos - validationNanos, 0),
+                             validationNanos);
+
+        if (errors) {
+            for (int i = 0; i < errorCounts.length; i++) {
+                if (errorCounts[i] > 0) {
+                    listener.validationErrors(partner, ERRORS[i], errorCounts[i]);
+                    errorCounts[i] = 0;
+                }
+            }
+            errors = false;
+        }
+
+        if (trailer) {
+            listener.transactionRead(partner);
+            trailer = false;
+        }
+
+        segmentOffset = offset;
+        elapsedNanos = 0;
+        validationNanos = 0;
+    }
+
+    /**
+     * Notify the listener of the segment written, ending at the offset.
+     *
+     * @param offset
+     *            the character offset of the end of the segment
+     */
+    void segmentWritten(int offset) {
+        if (!enabled) {
+            return;
+        }
+
+        listener.segmentWritten(partner, offset - segmentOffset);
+
+        if (trailer) {
+            listener.transactionWritten(partner);
+            trailer = false;
+        }
+
+        segmentOffset = offset;
+    }
+
+    /**
+     * Exclude output up to the offset from the next segment, e.g. the
+     * transactions copied from a transaction writer that have already been
+     * counted.
+     *
+     * @param offset
+     *            the current character offset
+     */
+    void skipTo(int offset) {
+        segmentOffset = offset;
+    }
+}
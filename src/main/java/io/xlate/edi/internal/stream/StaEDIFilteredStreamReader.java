@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 
+import io.xlate.edi.schema.EDISimpleType;
 import io.xlate.edi.schema.Schema;
 import io.xlate.edi.stream.EDIStreamEvent;
 import io.xlate.edi.stream.EDIStreamException;
@@ -130,6 +131,24 @@ class StaEDIFilteredStreamReader implements EDIStreamReader {
         return delegate.getReferenceCode();
     }
 
+    void enableElementTypes() {
+        if (delegate instanceof StaEDIStreamReader) {
+            ((StaEDIStreamReader) delegate).enableElementTypes();
+        } else if (delegate instanceof StaEDIFilteredStreamReader) {
+            ((StaEDIFilteredStreamReader) delegate).enableElementTypes();
+        }
+    }
+
+    EDISimpleType getElementType() {
+        if (delegate instanceof StaEDIStreamReader) {
+            return ((StaEDIStreamReader) delegate).getElementType();
+        }
+        if (delegate instanceof StaEDIFilteredStreamReader) {
+            return ((StaEDIFilteredStreamReader) delegate).getElementType();
+        }
+        return null;
+    }
+
     @Override
     public EDIStreamValidationError getErrorType() {
         return delegate.getErrorType();
@@ -15,13 +15,20 @@
  ******************************************************************************/
 package io.xlate.edi.internal.stream;
 
+import io.xlate.edi.internal.bind.TransactionBinder;
 import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaRegistry;
 import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIJsonWriter;
 import io.xlate.edi.stream.EDIStreamException;
 import io.xlate.edi.stream.EDIStreamFilter;
 import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDITransactionBinder;
+import io.xlate.edi.stream.EDIValidationLevel;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -31,6 +38,7 @@ import java.util.Set;
 public class StaEDIInputFactory extends EDIInputFactory {
 
     private static final String DEFAULT_ENCODING = "US-ASCII";
+    static final String JAXB_ANNOTATION = "javax.xml.bind.annotation.XmlElement";
 
     private final Set<String> supportedCharsets;
     private final Map<String, Object> properties;
@@ -41,6 +49,13 @@ public class StaEDIInputFactory extends EDIInputFactory {
 
         supportedProperties = new HashSet<>();
         supportedProperties.add(EDI_VALIDATE_CONTROL_STRUCTURE);
+        supportedProperties.add(EDI_VALIDATION_LEVEL);
+        supportedProperties.add(EDI_TRANSACTION_ERROR_LIMIT);
+        supportedProperties.add(EDI_INTERCHANGE_ERROR_LIMIT);
+        supportedProperties.add(EDI_ERROR_LIMIT_ABORT);
+        supportedProperties.add(EDI_SCHEMA_REGISTRY);
+        supportedProperties.add(EDI_METRICS);
+        supportedProperties.add(JSON_TYPED_NUMBERS);
 
         supportedCharsets = new HashSet<>();
         supportedCharsets.add(DEFAULT_ENCODING);
@@ -77,6 +92,42 @@ public class StaEDIInputFactory extends EDIInputFactory {
         return new StaEDIFilteredStreamReader(reader, filter);
     }
 
+    @Override
+    public EDIJsonWriter createJsonWriter(EDIStreamReader reader, OutputStream stream) {
+        return new StaEDIJsonWriter(reader, stream, isTypedNumbers());
+    }
+
+    @Override
+    public EDIJsonWriter createJsonWriter(EDIStreamReader reader, Writer writer) {
+        return new StaEDIJsonWriter(reader, writer, isTypedNumbers());
+    }
+
+    @Override
+    public <T> EDITransactionBinder<T> createTransactionBinder(Class<T> type) {
+        return createTransactionBinder(type, null);
+    }
+
+    @Override
+    public <T> EDITransactionBinder<T> createTransactionBinder(Class<T> type, Schema transactionSchema) {
+        if (!isClassAvailable(JAXB_ANNOTATION)) {
+            throw new UnsupportedOperationException("Transaction binding requires the JAXB API (javax.xml.bind)");
+        }
+        return new TransactionBinder<>(type, transactionSchema);
+    }
+
+    static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, StaEDIInputFactory.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    boolean isTypedNumbers() {
+        return Boolean.parseBoolean(String.valueOf(properties.get(JSON_TYPED_NUMBERS)));
+    }
+
     @Override
     public boolean isPropertySupported(String name) {
         return supportedProperties.contains(name);
@@ -97,6 +148,12 @@ public class StaEDIInputFactory extends EDIInputFactory {
             throw new IllegalArgumentException("Unsupported property: " + name);
         }
 
+        if (EDI_VALIDATION_LEVEL.equals(name)) {
+            value = EDIValidationLevel.fromValue(value);
+        } else if (EDI_SCHEMA_REGISTRY.equals(name) && value != null && !(value instanceof SchemaRegistry)) {
+            throw new IllegalArgumentException("Value of " + name + " must be a SchemaRegistry");
+        }
+
         properties.put(name, value);
     }
 }
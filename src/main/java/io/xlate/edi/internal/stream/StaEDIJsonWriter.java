@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import io.xlate.edi.schema.EDISimpleType;
+import io.xlate.edi.stream.EDIJsonWriter;
+import io.xlate.edi.stream.EDIStreamConstants.Delimiters;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.Location;
+
+class StaEDIJsonWriter implements EDIJsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final EDIStreamReader reader;
+    private final Writer output;
+    private final boolean typedNumbers;
+
+    /* Whether the next child of each open container is the first */
+    private boolean[] firstChild = new boolean[8];
+    private int depth = -1;
+
+    private String segmentTag;
+    private boolean firstElement;
+
+    /*
+     * The JSON value of the most recent element is held until the next
+     * element is seen so that repetitions may be written as an array.
+     */
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingPosition = -1;
+    private boolean repeating;
+    private boolean firstComponent;
+
+    /* Decimal mark of the current interchange, read with its first number */
+    private char decimalMark;
+
+    StaEDIJsonWriter(EDIStreamReader reader, Writer output, boolean typedNumbers) {
+        this.reader = reader;
+        this.output = output;
+        this.typedNumbers = typedNumbers;
+
+        if (typedNumbers) {
+            // Element types are only looked up by the reader when requested
+            if (reader instanceof StaEDIStreamReader) {
+                ((StaEDIStreamReader) reader).enableElementTypes();
+            } else if (reader instanceof StaEDIFilteredStreamReader) {
+                ((StaEDIFilteredStreamReader) reader).enableElementTypes();
+            }
+        }
+    }
+
+    StaEDIJsonWriter(EDIStreamReader reader, OutputStream output, boolean typedNumbers) {
+        this(reader, new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)), typedNumbers);
+    }
+
+    @Override
+    public void write() throws EDIStreamException, IOException {
+        if (reader.getEventType() == EDIStreamEvent.START_INTERCHANGE) {
+            write(EDIStreamEvent.START_INTERCHANGE);
+        }
+
+        while (reader.hasNext()) {
+            write(reader.next());
+        }
+
+        output.flush();
+    }
+
+    @Override
+    public void writeEvent() throws IOException {
+        write(reader.getEventType());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    void write(EDIStreamEvent event) throws IOException {
+        switch (event) {
+        case START_INTERCHANGE:
+            decimalMark = '\0';
+            startContainer("interchange", "INTERCHANGE");
+            break;
+        case START_GROUP:
+            startContainer("group", reader.getText());
+            break;
+        case START_TRANSACTION:
+            startContainer("transaction", reader.getText());
+            break;
+        case START_LOOP:
+            startContainer("loop", reader.getText());
+            break;
+
+        case END_INTERCHANGE:
+            endContainer();
+            output.write('\n');
+            break;
+        case END_GROUP:
+        case END_TRANSACTION:
+        case END_LOOP:
+            endContainer();
+            break;
+
+        case START_SEGMENT:
+            startSegment(reader.getText());
+            break;
+        case END_SEGMENT:
+            endSegment();
+            break;
+
+        case START_COMPOSITE:
+            startElement(reader.getLocation());
+            pending.append('{');
+            firstComponent = true;
+            break;
+        case END_COMPOSITE:
+            pending.append('}');
+            break;
+
+        case ELEMENT_DATA:
+            elementData();
+            break;
+        case ELEMENT_DATA_BINARY:
+            binaryData();
+            break;
+
+        default:
+            // Validation errors are not written
+            break;
+        }
+    }
+
+    void startContainer(String type, String name) throws IOException {
+        nextChild();
+
+        if (++depth == firstChild.length) {
+            firstChild = Arrays.copyOf(firstChild, depth * 2);
+        }
+
+        firstChild[depth] = true;
+
+        output.write("{\"type\":\"");
+        output.write(type);
+        output.write("\",\"name\":");
+        writeString(output, name);
+        output.write(",\"data\":[");
+    }
+
+    void endContainer() throws IOException {
+        output.write("]}");
+        depth--;
+    }
+
+    void nextChild() throws IOException {
+        if (depth < 0) {
+            return;
+        }
+
+        if (firstChild[depth]) {
+            firstChild[depth] = false;
+        } else {
+            output.write(',');
+        }
+    }
+
+    void startSegment(String tag) throws IOException {
+        nextChild();
+        segmentTag = tag;
+        firstElement = true;
+
+        output.write("{\"type\":\"segment\",\"name\":");
+        writeString(output, tag);
+        output.write(",\"elements\":{");
+    }
+
+    void endSegment() throws IOException {
+        flushElement();
+        output.write("}}");
+    }
+
+    void elementData() throws IOException {
+        final Location location = reader.getLocation();
+        final int componentPosition = location.getComponentPosition();
+
+        if (componentPosition > 0) {
+            if (reader.getTextLength() == 0) {
+                return;
+            }
+
+            if (firstComponent) {
+                firstComponent = false;
+            } else {
+                pending.append(',');
+            }
+
+            pending.append('"');
+            appendName(pending, pendingPosition);
+            pending.append('-').append(componentPosition).append("\":");
+            appendValue();
+        } else if (reader.getTextLength() > 0 || location.getElementOccurrence() > 1) {
+            startElement(location);
+            appendValue();
+        }
+    }
+
+    void binaryData() throws IOException {
+        flushElement();
+        writeName(reader.getLocation().getElementPosition());
+        output.write('"');
+
+        InputStream input = reader.getBinaryData();
+        OutputStream encoder = Base64.getEncoder().wrap(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                output.write(b);
+            }
+        });
+
+        byte[] buffer = new byte[4096];
+        int amount;
+
+        while ((amount = input.read(buffer)) > -1) {
+            encoder.write(buffer, 0, amount);
+        }
+
+        encoder.close();
+        output.write('"');
+    }
+
+    /*
+     * Begin the value of the element at the location. A repetition of the
+     * pending element opens (or continues) an array of its occurrences,
+     * otherwise the pending element is written.
+     */
+    void startElement(Location location) throws IOException {
+        final int position = location.getElementPosition();
+
+        if (position == pendingPosition && location.getElementOccurrence() > 1) {
+            if (repeating) {
+                output.write(',');
+            } else {
+                writeName(position);
+                output.write('[');
+                repeating = true;
+            }
+
+            output.append(pending);
+            pending.setLength(0);
+        } else {
+            flushElement();
+            pendingPosition = position;
+        }
+    }
+
+    void flushElement() throws IOException {
+        if (pendingPosition < 0) {
+            return;
+        }
+
+        if (repeating) {
+            output.write(',');
+            output.append(pending);
+            output.write(']');
+        } else {
+            writeName(pendingPosition);
+            output.append(pending);
+        }
+
+        pending.setLength(0);
+        pendingPosition = -1;
+        repeating = false;
+    }
+
+    void writeName(int position) throws IOException {
+        if (firstElement) {
+            firstElement = false;
+        } else {
+            output.write(',');
+        }
+
+        output.write('"');
+        output.write(segmentTag);
+
+        if (position < 10) {
+            output.write('0');
+        }
+
+        output.write(Integer.toString(position));
+        output.write("\":");
+    }
+
+    void appendName(StringBuilder buffer, int position) {
+        buffer.append(segmentTag);
+
+        if (position < 10) {
+            buffer.append('0');
+        }
+
+        buffer.append(position);
+    }
+
+    void appendValue() throws IOException {
+        final char[] text = reader.getTextCharacters();
+        final int start = reader.getTextStart();
+        final int length = reader.getTextLength();
+
+        if (typedNumbers && length > 0 && isNumber(elementType())) {
+            if (decimalMark == '\0') {
+                decimalMark = reader.getDelimiters().get(Delimiters.DECIMAL);
+            }
+
+            String value = toNumber(text, start, length, decimalMark);
+
+            if (value != null) {
+                pending.append(value);
+                return;
+            }
+        }
+
+        appendString(pending, text, start, length);
+    }
+
+    /**
+     * Convert the text of a numeric element to a JSON number.
+     *
+     * @return the number, or null when the text is not a number or would lose
+     *         information as a number, i.e. it has leading zeros
+     */
+    static String toNumber(char[] text, int start, int length, char decimalMark) {
+        final int end = start + length;
+        int digits = start;
+
+        if (text[digits] == '-' || text[digits] == '+') {
+            digits++;
+        }
+
+        if (digits + 1 < end && text[digits] == '0' && Character.isDigit(text[digits + 1])) {
+            // e.g. control numbers padded to a fixed length
+            return null;
+        }
+
+        char[] value = Arrays.copyOfRange(text, start, end);
+
+        for (int i = 0; i < value.length; i++) {
+            if (value[i] == decimalMark) {
+                value[i] = '.';
+            } else if (value[i] == '.') {
+                return null;
+            }
+        }
+
+        try {
+            return new BigDecimal(value).toPlainString();
+        } catch (NumberFormatException e) {
+            // Not a valid number, written as a string
+            return null;
+        }
+    }
+
+    EDISimpleType elementType() {
+        if (reader instanceof StaEDIStreamReader) {
+            return ((StaEDIStreamReader) reader).getElementType();
+        }
+        if (reader instanceof StaEDIFilteredStreamReader) {
+            return ((StaEDIFilteredStreamReader) reader).getElementType();
+        }
+        return null;
+    }
+
+    static boolean isNumber(EDISimpleType type) {
+        if (type == null) {
+            return false;
+        }
+
+        switch (type.getBase()) {
+        case NUMERIC:
+        case DECIMAL:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    static void writeString(Writer output, String value) throws IOException {
+        StringBuilder buffer = new StringBuilder(value.length() + 2);
+        appendString(buffer, value.toCharArray(), 0, value.length());
+        output.append(buffer);
+    }
+
+    static void appendString(StringBuilder buffer, char[] text, int start, int length) {
+        buffer.append('"');
+
+        for (int i = start, end = start + length; i < end; i++) {
+            final char c = text[i];
+
+            switch (c) {
+            case '"':
+                buffer.append("\\\"");
+                break;
+            case '\\':
+                buffer.append("\\\\");
+                break;
+            case '\n':
+                buffer.append("\\n");
+                break;
+            case '\r':
+                buffer.append("\\r");
+                break;
+            case '\t':
+                buffer.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    buffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                } else {
+                    buffer.append(c);
+                }
+                break;
+            }
+        }
+
+        buffer.append('"');
+    }
+}
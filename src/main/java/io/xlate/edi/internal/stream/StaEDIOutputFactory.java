@@ -16,6 +16,7 @@
 package io.xlate.edi.internal.stream;
 
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -47,9 +48,15 @@ public class StaEDIOutputFactory extends EDIOutputFactory {
         supportedProperties.add(EDIStreamConstants.Delimiters.RELEASE);
 
         supportedProperties.add(PRETTY_PRINT);
+        supportedProperties.add(ESCAPE_DELIMITERS);
+        supportedProperties.add(DELIMITER_SUBSTITUTE);
+        supportedProperties.add(DIRECT_BUFFER);
+        supportedProperties.add(METRICS);
 
         properties = new HashMap<>();
         properties.put(PRETTY_PRINT, Boolean.FALSE);
+        properties.put(ESCAPE_DELIMITERS, Boolean.FALSE);
+        properties.put(DIRECT_BUFFER, Boolean.FALSE);
     }
 
     @Override
@@ -70,6 +77,24 @@ public class StaEDIOutputFactory extends EDIOutputFactory {
         throw new EDIStreamException("Unsupported encoding: " + encoding);
     }
 
+    @Override
+    public EDIStreamWriter createEDIStreamWriter(WritableByteChannel channel) {
+        try {
+            return createEDIStreamWriter(channel, DEFAULT_ENCODING);
+        } catch (EDIStreamException e) {
+            // Unexpected - DEFAULT_ENCODING will not cause this.
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public EDIStreamWriter createEDIStreamWriter(WritableByteChannel channel, String encoding) throws EDIStreamException {
+        if (supportedCharsets.contains(encoding)) {
+            return new StaEDIStreamWriter(channel, encoding, properties);
+        }
+        throw new EDIStreamException("Unsupported encoding: " + encoding);
+    }
+
     @Override
     public boolean isPropertySupported(String name) {
         return supportedProperties.contains(name);
@@ -90,10 +115,14 @@ public class StaEDIOutputFactory extends EDIOutputFactory {
             throw new IllegalArgumentException("Unsupported property: " + name);
         }
 
-        if (PRETTY_PRINT.equals(name) && !(value instanceof Boolean)) {
+        if ((PRETTY_PRINT.equals(name) || ESCAPE_DELIMITERS.equals(name) || DIRECT_BUFFER.equals(name)) && !(value instanceof Boolean)) {
             throw new IllegalArgumentException(name + " must be Boolean");
         }
 
+        if (DELIMITER_SUBSTITUTE.equals(name) && value != null && !(value instanceof Character)) {
+            throw new IllegalArgumentException(name + " must be Character");
+        }
+
         properties.put(name, value);
     }
 }
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import io.xlate.edi.stream.EDISegmentTemplate;
+
+final class StaEDISegmentTemplate implements EDISegmentTemplate {
+
+    final StaEDIStreamWriter owner;
+    final String tag;
+    final byte[] tagBytes;
+    /*
+     * Number of components of each element; 1 for a simple element.
+     */
+    final int[] layout;
+    final int valueCount;
+    final char dataElementSeparator;
+    final char componentElementSeparator;
+
+    StaEDISegmentTemplate(StaEDIStreamWriter owner,
+            String tag,
+            int[] layout,
+            char dataElementSeparator,
+            char componentElementSeparator) {
+        this.owner = owner;
+        this.tag = tag;
+        this.tagBytes = new byte[tag.length()];
+        this.layout = layout.clone();
+        this.dataElementSeparator = dataElementSeparator;
+        this.componentElementSeparator = componentElementSeparator;
+
+        for (int i = 0; i < tagBytes.length; i++) {
+            tagBytes[i] = (byte) tag.charAt(i);
+        }
+
+        int count = 0;
+
+        for (int components : layout) {
+            if (components < 1) {
+                throw new IllegalArgumentException("Invalid component count: " + components);
+            }
+            count += components;
+        }
+
+        this.valueCount = count;
+    }
+
+    @Override
+    public String getTag() {
+        return tag;
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    static boolean isEmpty(CharSequence[] values, int index) {
+        return index >= values.length || values[index] == null || values[index].length() == 0;
+    }
+
+    /**
+     * Find the index (in the layout) of the last element with data.
+     *
+     * @return the index of the last element with data, or -1 when all
+     *         elements are empty
+     */
+    int lastElement(CharSequence[] values) {
+        int index = valueCount;
+
+        for (int e = layout.length - 1; e >= 0; e--) {
+            index -= layout[e];
+
+            if (lastComponent(values, index, layout[e]) >= 0) {
+                return e;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Find the offset of the last component with data in the element whose
+     * values begin at index.
+     *
+     * @return the offset of the last component with data, or -1 when all
+     *         components are empty
+     */
+    static int lastComponent(CharSequence[] values, int index, int components) {
+        for (int c = components - 1; c >= 0; c--) {
+            if (!isEmpty(values, index + c)) {
+                return c;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -50,6 +50,10 @@ public class StaEDIStreamLocation extends LocationView implements Location {
         this.characterOffset++;
     }
 
+    public void incrementOffset(int count) {
+        this.characterOffset += count;
+    }
+
     public void incrementSegmentPosition() {
         if (this.segmentPosition < 0) {
             this.segmentPosition = 1;
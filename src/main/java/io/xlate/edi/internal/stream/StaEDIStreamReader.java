@@ -33,12 +33,15 @@ import io.xlate.edi.internal.stream.tokenization.Dialect;
 import io.xlate.edi.internal.stream.tokenization.Lexer;
 import io.xlate.edi.internal.stream.tokenization.ProxyEventHandler;
 import io.xlate.edi.schema.EDISchemaException;
+import io.xlate.edi.schema.EDISimpleType;
 import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaRegistry;
 import io.xlate.edi.stream.EDIInputFactory;
 import io.xlate.edi.stream.EDIStreamEvent;
 import io.xlate.edi.stream.EDIStreamException;
 import io.xlate.edi.stream.EDIStreamReader;
 import io.xlate.edi.stream.EDIStreamValidationError;
+import io.xlate.edi.stream.EDIValidationLevel;
 import io.xlate.edi.stream.Location;
 
 public class StaEDIStreamReader implements EDIStreamReader {
@@ -50,6 +53,8 @@ public class StaEDIStreamReader implements EDIStreamReader {
     private final String encoding;
     private Schema controlSchema;
     private final Map<String, Object> properties;
+    private final EDIValidationLevel validationLevel;
+    private final boolean abortOnErrorLimit;
     private final StaEDIStreamLocation location = new StaEDIStreamLocation();
     private final ProxyEventHandler proxy;
     private final Lexer lexer;
@@ -71,8 +76,15 @@ public class StaEDIStreamReader implements EDIStreamReader {
         this.encoding = encoding;
         this.controlSchema = schema;
         this.properties = new HashMap<>(properties);
-        this.proxy = new ProxyEventHandler(location, this.controlSchema);
-        this.lexer = new Lexer(this.stream, proxy, location);
+        this.validationLevel = EDIValidationLevel.fromValue(this.properties.get(EDIInputFactory.EDI_VALIDATION_LEVEL));
+        this.abortOnErrorLimit = Boolean.parseBoolean(String.valueOf(this.properties.get(EDIInputFactory.EDI_ERROR_LIMIT_ABORT)));
+        this.proxy = new ProxyEventHandler(location, this.controlSchema, validationLevel);
+        this.proxy.setErrorLimits(limitProperty(EDIInputFactory.EDI_TRANSACTION_ERROR_LIMIT),
+                                  limitProperty(EDIInputFactory.EDI_INTERCHANGE_ERROR_LIMIT));
+        this.proxy.setSchemaRegistry((SchemaRegistry) this.properties.get(EDIInputFactory.EDI_SCHEMA_REGISTRY));
+        MetricsRecorder metrics = MetricsRecorder.of(this.properties.get(EDIInputFactory.EDI_METRICS));
+        this.proxy.setMetrics(metrics);
+        this.lexer = new Lexer(this.stream, proxy, location, metrics);
     }
 
     private void ensureOpen() {
@@ -160,6 +172,11 @@ public class StaEDIStreamReader implements EDIStreamReader {
             complete = true;
         }
 
+        if (event == EDIStreamEvent.SEGMENT_ERROR && abortOnErrorLimit && isErrorLimitExceeded(proxy.getErrorType())) {
+            complete = true;
+            throw new EDIStreamException("Validation error limit exceeded: " + proxy.getErrorType(), location);
+        }
+
         if (event == EDIStreamEvent.ELEMENT_DATA && proxy.isBinaryElementLength()) {
             try {
                 this.setBinaryDataLength(Long.parseLong(getText()));
@@ -262,6 +279,31 @@ public class StaEDIStreamReader implements EDIStreamReader {
         return proxy.getReferenceCode();
     }
 
+    /**
+     * Retain the schema type of each element read from this point on, for
+     * retrieval with {@link #getElementType()}.
+     */
+    void enableElementTypes() {
+        proxy.enableElementTypes();
+    }
+
+    /**
+     * Get the schema type of the current element, available when the
+     * current event is ELEMENT_DATA, a schema is in use and element types
+     * have been enabled.
+     *
+     * @return the type of the element, or null when not known
+     */
+    EDISimpleType getElementType() {
+        ensureOpen();
+
+        if (getEventType() != EDIStreamEvent.ELEMENT_DATA) {
+            return null;
+        }
+
+        return proxy.getElementType();
+    }
+
     @Override
     public EDIStreamValidationError getErrorType() {
         switch (getEventType()) {
@@ -409,8 +451,23 @@ public class StaEDIStreamReader implements EDIStreamReader {
 
     /**************************************************************************/
 
+    int limitProperty(String name) {
+        Object property = properties.get(name);
+
+        if (property == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        return Integer.parseInt(property.toString());
+    }
+
+    static boolean isErrorLimitExceeded(EDIStreamValidationError error) {
+        return error == EDIStreamValidationError.TRANSACTION_ERROR_LIMIT_EXCEEDED
+                || error == EDIStreamValidationError.INTERCHANGE_ERROR_LIMIT_EXCEEDED;
+    }
+
     boolean useInternalControlSchema() {
-        if (this.controlSchema != null) {
+        if (this.controlSchema != null || validationLevel == EDIValidationLevel.OFF) {
             return false;
         }
 
@@ -15,10 +15,19 @@
  ******************************************************************************/
 package io.xlate.edi.internal.stream;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -36,8 +45,10 @@ import io.xlate.edi.internal.stream.tokenization.ElementDataHandler;
 import io.xlate.edi.internal.stream.tokenization.State;
 import io.xlate.edi.internal.stream.tokenization.ValidationEventHandler;
 import io.xlate.edi.internal.stream.validation.Validator;
+import io.xlate.edi.schema.EDISimpleType;
 import io.xlate.edi.schema.Schema;
 import io.xlate.edi.stream.EDIOutputFactory;
+import io.xlate.edi.stream.EDISegmentTemplate;
 import io.xlate.edi.stream.EDIStreamConstants.Delimiters;
 import io.xlate.edi.stream.EDIStreamEvent;
 import io.xlate.edi.stream.EDIStreamException;
@@ -53,12 +64,22 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
     private static final int LEVEL_COMPOSITE = 4;
     private static final int LEVEL_COMPONENT = 5;
 
+    private static final int BUFFER_SIZE = 4096;
+
     private int level;
 
     private State state = State.INITIAL;
     private CharacterSet characters = new CharacterSet();
 
     private final OutputStream stream;
+    private final WritableByteChannel channel;
+    /*
+     * Output is encoded into this buffer and written to the stream (or
+     * channel) in bulk at the end of each segment (or when full). Until the
+     * interchange header is confirmed, each character is written through.
+     */
+    private final ByteBuffer outputBuffer;
+    private boolean headerConfirmed;
     @SuppressWarnings("unused")
     private final String encoding;
     private final Map<String, Object> properties;
@@ -66,9 +87,17 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
 
     private final StaEDIStreamLocation location;
     private Schema controlSchema;
+    private Schema transactionSchema;
     private Validator controlValidator;
     private Validator transactionValidator;
     private CharArraySequence dataHolder = new CharArraySequence();
+    /*
+     * Typed values are formatted into these buffers, avoiding intermediate
+     * String instances.
+     */
+    private final char[] typedBuffer = new char[64];
+    private final CharArraySequence typedValue = new CharArraySequence();
+    private final StringBuilder formattedValue = new StringBuilder();
     private List<EDIStreamException> errors = new ArrayList<>();
 
     private char segmentTerminator;
@@ -78,14 +107,106 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
     private char decimalMark;
     private char releaseIndicator;
 
+    /*
+     * Control structure tracking, used to write the trailer segments. The
+     * control number of the header segment currently being written is
+     * captured into `controlNumber` when `controlNumberElement` is written.
+     * Control numbers are simple elements, so only the data element
+     * separators are counted.
+     */
+    private final StringBuilder interchangeControlNumber = new StringBuilder();
+    private final StringBuilder groupControlNumber = new StringBuilder();
+    private final StringBuilder transactionControlNumber = new StringBuilder();
+    private final StringBuilder trailerControlNumber = new StringBuilder();
+    private StringBuilder controlNumber;
+    private int controlNumberElement;
+    private int controlElementPosition;
+    private boolean interchangeStarted;
+    private boolean groupStarted;
+    private boolean transactionStarted;
+    private int interchangeGroupCount;
+    private int interchangeTransactionCount;
+    private int groupTransactionCount;
+    private int transactionSegmentCount;
+
+    /*
+     * Set for writers created by `createTransactionWriter`. The offsets of
+     * the header and trailer control numbers of each buffered transaction are
+     * recorded so that they may be replaced when merged into the envelope.
+     */
+    private StaEDIStreamWriter envelope;
+    private TransactionBuffer transactionBuffer;
+    private List<int[]> bufferedTransactions;
+    private int[] pendingTransaction;
+
+    /*
+     * The interchange receiver, the trading partner of the metrics, is
+     * captured from `partnerElement` of the header segment while metrics are
+     * enabled. The element number is negated once the first component has
+     * been captured.
+     */
+    private final MetricsRecorder metrics;
+    private final StringBuilder partner = new StringBuilder();
+    private int partnerElement;
+
     private final boolean prettyPrint;
     private final String lineSeparator;
+    private final boolean escapeDelimiters;
+    private final Character delimiterSubstitute;
 
     public StaEDIStreamWriter(OutputStream stream, String encoding, Map<String, Object> properties) {
+        this(stream, null, ByteBuffer.allocate(BUFFER_SIZE), encoding, properties);
+    }
+
+    public StaEDIStreamWriter(WritableByteChannel channel, String encoding, Map<String, Object> properties) {
+        this(null,
+             channel,
+             Boolean.TRUE.equals(properties.get(EDIOutputFactory.DIRECT_BUFFER))
+                 ? ByteBuffer.allocateDirect(BUFFER_SIZE)
+                 : ByteBuffer.allocate(BUFFER_SIZE),
+             encoding,
+             properties);
+    }
+
+    private StaEDIStreamWriter(StaEDIStreamWriter envelope) {
+        this(new TransactionBuffer(), null, ByteBuffer.allocate(BUFFER_SIZE), envelope.encoding, envelope.properties);
+        this.envelope = envelope;
+        this.transactionBuffer = (TransactionBuffer) stream;
+        this.bufferedTransactions = new ArrayList<>();
+
+        this.level = LEVEL_INTERCHANGE;
+        this.state = State.TAG_SEARCH;
+        this.dialect = envelope.dialect;
+        this.characters = new CharacterSet(envelope.characters);
+        this.headerConfirmed = true;
+        this.interchangeStarted = true;
+
+        this.segmentTerminator = envelope.segmentTerminator;
+        this.dataElementSeparator = envelope.dataElementSeparator;
+        this.componentElementSeparator = envelope.componentElementSeparator;
+        this.repetitionSeparator = envelope.repetitionSeparator;
+        this.decimalMark = envelope.decimalMark;
+        this.releaseIndicator = envelope.releaseIndicator;
+
+        this.controlSchema = envelope.controlSchema;
+        setTransactionSchema(envelope.transactionSchema);
+        this.metrics.setPartner(envelope.metrics.getPartner());
+    }
+
+    private StaEDIStreamWriter(OutputStream stream,
+            WritableByteChannel channel,
+            ByteBuffer outputBuffer,
+            String encoding,
+            Map<String, Object> properties) {
         this.stream = stream;
+        this.channel = channel;
+        this.outputBuffer = outputBuffer;
         this.encoding = encoding;
         this.properties = new HashMap<>(properties);
         this.prettyPrint = property(EDIOutputFactory.PRETTY_PRINT);
+        this.escapeDelimiters = Boolean.TRUE.equals(property(EDIOutputFactory.ESCAPE_DELIMITERS));
+        this.delimiterSubstitute = property(EDIOutputFactory.DELIMITER_SUBSTITUTE);
+        this.metrics = MetricsRecorder.of(property(EDIOutputFactory.METRICS));
 
         if (prettyPrint) {
             lineSeparator = System.getProperty("line.separator");
@@ -166,10 +287,14 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
 
     @Override
     public void flush() throws EDIStreamException {
-        try {
-            stream.flush();
-        } catch (IOException e) {
-            throw new EDIStreamException(e);
+        drainBuffer();
+
+        if (stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                throw new EDIStreamException(e);
+            }
         }
     }
 
@@ -182,6 +307,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
 
     @Override
     public void setTransactionSchema(Schema transactionSchema) {
+        this.transactionSchema = transactionSchema;
         transactionValidator = transactionSchema != null ? new Validator(transactionSchema, controlSchema) : null;
     }
 
@@ -190,16 +316,67 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         return transactionValidator != null ? transactionValidator : controlValidator;
     }
 
+    private void drainBuffer() throws EDIStreamException {
+        if (outputBuffer.position() > 0) {
+            outputBuffer.flip();
+
+            try {
+                if (channel != null) {
+                    while (outputBuffer.hasRemaining()) {
+                        channel.write(outputBuffer);
+                    }
+                } else {
+                    stream.write(outputBuffer.array(), outputBuffer.arrayOffset(), outputBuffer.limit());
+                }
+            } catch (IOException e) {
+                throw new EDIStreamException(e);
+            } finally {
+                outputBuffer.clear();
+            }
+        }
+    }
+
+    /*
+     * Write the buffered output followed by the binary data in gathered
+     * writes, avoiding a copy of the binary data into the output buffer.
+     */
+    private void drainBuffer(GatheringByteChannel target, ByteBuffer binary) throws EDIStreamException {
+        outputBuffer.flip();
+        ByteBuffer[] buffers = { outputBuffer, binary };
+
+        try {
+            while (binary.hasRemaining()) {
+                target.write(buffers);
+            }
+        } catch (IOException e) {
+            throw new EDIStreamException(e);
+        } finally {
+            outputBuffer.clear();
+        }
+    }
+
+    private void append(int output) throws EDIStreamException {
+        if (!outputBuffer.hasRemaining()) {
+            drainBuffer();
+        }
+
+        outputBuffer.put((byte) output);
+    }
+
+    private static EDIException invalidCharacter(int output) {
+        StringBuilder message = new StringBuilder();
+        message.append("Invalid character: 0x");
+        message.append(Integer.toHexString(output));
+        return new EDIException(message.toString());
+    }
+
     private void write(int output) throws EDIStreamException {
         CharacterClass clazz;
 
         clazz = characters.getClass(output);
 
         if (clazz == CharacterClass.INVALID) {
-            StringBuilder message = new StringBuilder();
-            message.append("Invalid character: 0x");
-            message.append(Integer.toHexString(output));
-            throw new EDIException(message.toString());
+            throw invalidCharacter(output);
         }
 
         state = state.transition(clazz);
@@ -216,6 +393,8 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         case HEADER_COMPONENT_END:
             if (dialect.appendHeader(characters, (char) output)) {
                 if (dialect.isConfirmed()) {
+                    headerConfirmed = true;
+
                     switch (state) {
                     case HEADER_DATA:
                         state = State.TAG_SEARCH;
@@ -240,15 +419,132 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
             break;
         }
 
-        try {
-            stream.write(output);
-        } catch (IOException e) {
-            throw new EDIStreamException(e);
+        append(output);
+
+        if (!headerConfirmed) {
+            drainBuffer();
         }
 
         location.incrementOffset();
     }
 
+    /*
+     * Write element data. Delimiters found in the data are escaped with the
+     * release character (when enabled and available), replaced with the
+     * configured substitute, or rejected. Once the interchange header has been
+     * confirmed, the characters are classified and encoded directly into the
+     * output buffer without header tracking.
+     */
+    private void writeData(CharSequence text, int start, int end) throws EDIStreamException {
+        if (partnerElement > 0 && controlElementPosition == partnerElement) {
+            partner.append(text, start, end);
+        }
+
+        if (controlNumber != null && controlElementPosition == controlNumberElement) {
+            controlNumber.append(text, start, end);
+
+            if (transactionBuffer != null) {
+                int from = bufferedLength();
+                encodeData(text, start, end);
+                markControlNumber(from, bufferedLength());
+                return;
+            }
+        }
+
+        encodeData(text, start, end);
+    }
+
+    private void encodeData(CharSequence text, int start, int end) throws EDIStreamException {
+        if (!headerConfirmed) {
+            // Release characters are not recognized within the header
+            for (int i = start; i < end; i++) {
+                char curr = text.charAt(i);
+                if (characters.isDelimiter(curr)) {
+                    curr = substitute();
+                }
+                write(curr);
+            }
+            return;
+        }
+
+        final boolean escape = escapeDelimiters && characters.isRelease(releaseIndicator);
+        State current = state;
+        int escapes = 0;
+
+        for (int i = start; i < end; i++) {
+            char curr = text.charAt(i);
+            CharacterClass clazz = characters.getClass(curr);
+
+            switch (clazz) {
+            case INVALID:
+                state = current;
+                throw invalidCharacter(curr);
+            case SEGMENT_DELIMITER:
+            case ELEMENT_DELIMITER:
+            case COMPONENT_DELIMITER:
+            case ELEMENT_REPEATER:
+            case RELEASE_CHARACTER:
+                if (escape) {
+                    current = current.transition(CharacterClass.RELEASE_CHARACTER);
+                    append(releaseIndicator);
+                    escapes++;
+                } else if (clazz != CharacterClass.RELEASE_CHARACTER) {
+                    state = current;
+                    curr = substitute();
+                    clazz = characters.getClass(curr);
+                }
+                break;
+            default:
+                break;
+            }
+
+            current = current.transition(clazz);
+
+            if (current == State.INVALID) {
+                throw new EDIException(String.format("Invalid state: %s; output 0x%04X", current, (int) curr));
+            }
+
+            append(curr);
+        }
+
+        state = current;
+        location.incrementOffset(end - start + escapes);
+    }
+
+    private char substitute() throws EDIException {
+        if (delimiterSubstitute == null) {
+            throw new IllegalArgumentException("Value contains separator");
+        }
+
+        char replacement = delimiterSubstitute.charValue();
+
+        if (characters.isDelimiter(replacement) || characters.isRelease(replacement)) {
+            throw new IllegalArgumentException("Delimiter substitute '" + replacement + "' is a delimiter");
+        }
+
+        if (characters.getClass(replacement) == CharacterClass.INVALID) {
+            throw invalidCharacter(replacement);
+        }
+
+        return replacement;
+    }
+
+    private void writeBinary(byte[] binary, int start, int end) throws EDIStreamException {
+        int offset = start;
+
+        while (offset < end) {
+            if (!outputBuffer.hasRemaining()) {
+                drainBuffer();
+            }
+
+            int count = Math.min(end - offset, outputBuffer.remaining());
+            outputBuffer.put(binary, offset, count);
+            offset += count;
+        }
+
+        location.incrementOffset(end - start);
+    }
+
     @Override
     public EDIStreamWriter startInterchange() throws EDIStreamException {
         ensureLevel(LEVEL_INITIAL);
@@ -272,6 +568,10 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
 
         if (state == State.INITIAL) {
             dialect = DialectFactory.getDialect(name);
+            headerConfirmed = false;
+            interchangeStarted = false;
+            groupStarted = false;
+            transactionStarted = false;
             setupDelimiters();
             writeString(name);
 
@@ -288,10 +588,386 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
 
         level = LEVEL_SEGMENT;
         location.incrementSegmentPosition();
+        trackControlSegment(name);
+
+        return this;
+    }
+
+    private void trackControlSegment(String name) {
+        controlNumber = null;
+        partnerElement = 0;
+        metrics.segmentStart(name);
+
+        if (transactionStarted) {
+            transactionSegmentCount++;
+        }
+
+        switch (name) {
+        case "ISA":
+        case "UNB":
+            interchangeStarted = true;
+            interchangeGroupCount = 0;
+            interchangeTransactionCount = 0;
+            captureControlNumber(interchangeControlNumber, "ISA".equals(name) ? 13 : 5);
+
+            if (metrics.isEnabled()) {
+                partner.setLength(0);
+                partnerElement = "ISA".equals(name) ? 8 : 3;
+            }
+            break;
+        case "GS":
+        case "UNG":
+            groupStarted = true;
+            groupTransactionCount = 0;
+            interchangeGroupCount++;
+            captureControlNumber(groupControlNumber, "GS".equals(name) ? 6 : 5);
+            break;
+        case "ST":
+        case "UNH":
+            transactionStarted = true;
+            transactionSegmentCount = 1;
+            groupTransactionCount++;
+            interchangeTransactionCount++;
+            captureControlNumber(transactionControlNumber, "ST".equals(name) ? 2 : 1);
+            pendingTransaction = null;
+            break;
+        case "SE":
+        case "UNT":
+            transactionStarted = false;
+            captureControlNumber(trailerControlNumber, 2);
+            break;
+        case "GE":
+        case "UNE":
+            groupStarted = false;
+            break;
+        case "IEA":
+        case "UNZ":
+            interchangeStarted = false;
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void captureControlNumber(StringBuilder target, int element) {
+        target.setLength(0);
+        controlNumber = target;
+        controlNumberElement = element;
+        controlElementPosition = 0;
+    }
+
+    private void writeTrailer(String name, int count, CharSequence reference) throws EDIStreamException {
+        writeStartSegment(name);
+        writeElement(String.valueOf(count));
+        writeElement(reference);
+        writeEndSegment();
+    }
+
+    @Override
+    public EDIStreamWriter writeEndTransaction() throws EDIStreamException {
+        ensureLevel(LEVEL_INTERCHANGE);
+
+        if (!transactionStarted) {
+            throw new IllegalStateException("Transaction not started");
+        }
+
+        // The count includes the trailer segment itself
+        writeTrailer(isEDIFACT() ? "UNT" : "SE", transactionSegmentCount + 1, transactionControlNumber);
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeEndGroup() throws EDIStreamException {
+        ensureLevel(LEVEL_INTERCHANGE);
+
+        if (!groupStarted || transactionStarted) {
+            throw new IllegalStateException("Group not started or transaction not ended");
+        }
+
+        writeTrailer(isEDIFACT() ? "UNE" : "GE", groupTransactionCount, groupControlNumber);
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeEndInterchange() throws EDIStreamException {
+        ensureLevel(LEVEL_INTERCHANGE);
+
+        if (!interchangeStarted || groupStarted || transactionStarted) {
+            throw new IllegalStateException("Interchange not started or group/transaction not ended");
+        }
+
+        if (isEDIFACT()) {
+            int count = interchangeGroupCount > 0 ? interchangeGroupCount : interchangeTransactionCount;
+            writeTrailer("UNZ", count, interchangeControlNumber);
+        } else {
+            writeTrailer("IEA", interchangeGroupCount, interchangeControlNumber);
+        }
+
+        return this;
+    }
+
+    @Override
+    public EDISegmentTemplate compileSegmentTemplate(String tag, int... layout) {
+        ensureLevelAtLeast(LEVEL_INTERCHANGE);
+
+        if (!headerConfirmed) {
+            throw new IllegalStateException("Interchange header not written");
+        }
+
+        switch (tag) {
+        case "ISA":
+        case "IEA":
+        case "UNA":
+        case "UNB":
+        case "UNZ":
+            throw new IllegalArgumentException("Interchange segment not supported: " + tag);
+        default:
+            break;
+        }
+
+        for (int i = 0, m = tag.length(); i < m; i++) {
+            switch (characters.getClass(tag.charAt(i))) {
+            case SPACE:
+            case WHITESPACE:
+            case CONTROL:
+            case OTHER:
+            case INVALID:
+            case SEGMENT_DELIMITER:
+            case ELEMENT_DELIMITER:
+            case COMPONENT_DELIMITER:
+            case ELEMENT_REPEATER:
+            case RELEASE_CHARACTER:
+                throw new IllegalArgumentException("Invalid segment tag: " + tag);
+            default:
+                break;
+            }
+        }
+
+        return new StaEDISegmentTemplate(this, tag, layout, dataElementSeparator, componentElementSeparator);
+    }
+
+    @Override
+    public EDIStreamWriter writeSegment(EDISegmentTemplate template, CharSequence... values) throws EDIStreamException {
+        ensureLevel(LEVEL_INTERCHANGE);
+
+        if (!(template instanceof StaEDISegmentTemplate) || ((StaEDISegmentTemplate) template).owner != this) {
+            throw new IllegalArgumentException("Template not compiled by this writer");
+        }
+
+        StaEDISegmentTemplate compiled = (StaEDISegmentTemplate) template;
+
+        if (values.length > compiled.valueCount) {
+            throw new IllegalArgumentException("Too many values for segment " + compiled.tag + ": " + values.length);
+        }
+
+        if (validator() != null) {
+            writeValidatedSegment(compiled, values);
+        } else {
+            writeCompiledSegment(compiled, values);
+        }
+
+        return this;
+    }
+
+    private void writeValidatedSegment(StaEDISegmentTemplate template, CharSequence[] values) throws EDIStreamException {
+        final int[] layout = template.layout;
+        final int lastElement = template.lastElement(values);
+        int index = 0;
+
+        writeStartSegment(template.tag);
+
+        for (int e = 0; e <= lastElement; e++) {
+            int components = layout[e];
+            int lastComponent = StaEDISegmentTemplate.lastComponent(values, index, components);
+
+            if (lastComponent < 0) {
+                writeEmptyElement();
+            } else if (components == 1) {
+                writeElement(values[index]);
+            } else {
+                writeStartElement();
+
+                for (int c = 0; c <= lastComponent; c++) {
+                    if (StaEDISegmentTemplate.isEmpty(values, index + c)) {
+                        writeEmptyComponent();
+                    } else {
+                        writeComponent(values[index + c]);
+                    }
+                }
+
+                endElement();
+            }
+
+            index += components;
+        }
+
+        writeEndSegment();
+    }
+
+    /*
+     * Write the segment directly to the output buffer. The delimiters were
+     * resolved when the template was compiled and only the element data is
+     * classified.
+     */
+    private void writeCompiledSegment(StaEDISegmentTemplate template, CharSequence[] values) throws EDIStreamException {
+        final int[] layout = template.layout;
+        final int lastElement = template.lastElement(values);
+        int index = 0;
+        int delimiters = 0;
+
+        for (byte b : template.tagBytes) {
+            append(b);
+        }
+
+        location.incrementOffset(template.tagBytes.length);
+        location.incrementSegmentPosition();
+        trackControlSegment(template.tag);
+        state = State.SEGMENT_BEGIN;
+
+        for (int e = 0; e <= lastElement; e++) {
+            int components = layout[e];
+            int lastComponent = StaEDISegmentTemplate.lastComponent(values, index, components);
+
+            append(template.dataElementSeparator);
+            delimiters++;
+            controlElementPosition++;
+            state = State.ELEMENT_END;
+
+            for (int c = 0; c <= lastComponent; c++) {
+                if (c > 0) {
+                    append(template.componentElementSeparator);
+                    delimiters++;
+                    state = State.COMPONENT_END;
+                }
+
+                if (!StaEDISegmentTemplate.isEmpty(values, index + c)) {
+                    CharSequence value = values[index + c];
+                    writeData(value, 0, value.length());
+                }
+            }
+
+            index += components;
+        }
+
+        location.incrementOffset(delimiters);
+        write(this.segmentTerminator);
+
+        if (prettyPrint) {
+            writeString(lineSeparator);
+        }
+
+        drainBuffer();
+        segmentWritten();
+        location.clearSegmentLocations();
+    }
+
+    private void segmentWritten() {
+        if (partnerElement != 0) {
+            metrics.setPartner(partner.toString().trim());
+            partnerElement = 0;
+        }
+
+        metrics.segmentWritten(location.getCharacterOffset());
+    }
+
+    @Override
+    public EDIStreamWriter createTransactionWriter() {
+        ensureLevelAtLeast(LEVEL_INTERCHANGE);
+
+        if (!headerConfirmed) {
+            throw new IllegalStateException("Interchange header not written");
+        }
+
+        return new StaEDIStreamWriter(this);
+    }
+
+    @Override
+    public EDIStreamWriter writeTransactions(EDIStreamWriter transactionWriter) throws EDIStreamException {
+        ensureLevel(LEVEL_INTERCHANGE);
+
+        if (!(transactionWriter instanceof StaEDIStreamWriter)
+                || ((StaEDIStreamWriter) transactionWriter).envelope != this) {
+            throw new IllegalArgumentException("Transaction writer not created by this writer");
+        }
+
+        StaEDIStreamWriter source = (StaEDIStreamWriter) transactionWriter;
+
+        if (transactionStarted || source.transactionStarted || source.level != LEVEL_INTERCHANGE) {
+            throw new IllegalStateException("Transaction not ended");
+        }
+
+        if (source.bufferedTransactions.size() != source.interchangeTransactionCount) {
+            throw new IllegalStateException("Transaction control number not written");
+        }
+
+        source.drainBuffer();
+
+        final byte[] data = source.transactionBuffer.array();
+        int offset = 0;
+
+        for (int[] transaction : source.bufferedTransactions) {
+            int number = (groupStarted ? groupTransactionCount : interchangeTransactionCount) + 1;
+            String reference = isEDIFACT() ? String.valueOf(number) : String.format("%04d", number);
+
+            writeBinary(data, offset, transaction[0]);
+            writeControlNumber(reference);
+            writeBinary(data, transaction[1], transaction[2]);
+            writeControlNumber(reference);
+            offset = transaction[3];
+
+            groupTransactionCount++;
+            interchangeTransactionCount++;
+        }
+
+        writeBinary(data, offset, source.transactionBuffer.size());
+        drainBuffer();
+        // The segments were counted by the transaction writer
+        metrics.skipTo(location.getCharacterOffset());
+        source.resetTransactions();
 
         return this;
     }
 
+    private void writeControlNumber(String value) throws EDIStreamException {
+        for (int i = 0, m = value.length(); i < m; i++) {
+            append(value.charAt(i));
+        }
+
+        location.incrementOffset(value.length());
+    }
+
+    private int bufferedLength() {
+        return transactionBuffer.size() + outputBuffer.position();
+    }
+
+    private void markControlNumber(int from, int to) {
+        if (controlNumber == transactionControlNumber) {
+            if (pendingTransaction == null) {
+                pendingTransaction = new int[] { from, to, -1, -1 };
+            } else {
+                // Control number written in more than one call
+                pendingTransaction[1] = to;
+            }
+        } else if (controlNumber == trailerControlNumber && pendingTransaction != null) {
+            if (pendingTransaction[2] < 0) {
+                pendingTransaction[2] = from;
+                bufferedTransactions.add(pendingTransaction);
+            }
+            pendingTransaction[3] = to;
+        }
+    }
+
+    private void resetTransactions() {
+        transactionBuffer.reset();
+        bufferedTransactions.clear();
+        pendingTransaction = null;
+        interchangeTransactionCount = 0;
+    }
+
+    private boolean isEDIFACT() {
+        return dialect instanceof EDIFACTDialect;
+    }
+
     private void writeString(String value) throws EDIStreamException {
         for (int i = 0, m = value.length(); i < m; i++) {
             write(value.charAt(i));
@@ -311,6 +987,8 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         if (prettyPrint) {
             writeString(lineSeparator);
         }
+        drainBuffer();
+        segmentWritten();
         level = LEVEL_INTERCHANGE;
         location.clearSegmentLocations();
 
@@ -322,6 +1000,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         ensureLevel(LEVEL_SEGMENT);
         write(this.dataElementSeparator);
         level = LEVEL_ELEMENT;
+        controlElementPosition++;
         updateLocation(state, location);
         return this;
     }
@@ -355,6 +1034,10 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
 
         if (LEVEL_COMPOSITE == level) {
             write(this.componentElementSeparator);
+
+            if (partnerElement > 0 && controlElementPosition == partnerElement) {
+                partnerElement = -partnerElement;
+            }
         }
 
         level = LEVEL_COMPONENT;
@@ -392,7 +1075,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         writeStartElement();
 
         validate(validator -> {
-            dataHolder.set(text, start, start + end);
+            dataHolder.set(text, start, end - start);
             validator.validateElement(dialect, location, dataHolder);
         });
 
@@ -432,7 +1115,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         startComponent();
 
         validate(validator -> {
-            dataHolder.set(text, start, start + end);
+            dataHolder.set(text, start, end - start);
             validator.validateElement(dialect, location, dataHolder);
         });
 
@@ -441,6 +1124,207 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         return this;
     }
 
+    @Override
+    public EDIStreamWriter writeElement(long value) throws EDIStreamException {
+        writeStartElement();
+        writeTypedData(formatNumber(value, 0, false));
+        endElement();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeElement(BigDecimal value, int scale) throws EDIStreamException {
+        writeStartElement();
+        writeTypedData(formatDecimal(value, scale));
+        endElement();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeElement(LocalDate value) throws EDIStreamException {
+        writeStartElement();
+        writeTypedData(formatDate(value));
+        endElement();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeElement(LocalTime value) throws EDIStreamException {
+        writeStartElement();
+        writeTypedData(formatTime(value));
+        endElement();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeComponent(long value) throws EDIStreamException {
+        startComponent();
+        writeTypedData(formatNumber(value, 0, false));
+        endComponent();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeComponent(BigDecimal value, int scale) throws EDIStreamException {
+        startComponent();
+        writeTypedData(formatDecimal(value, scale));
+        endComponent();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeComponent(LocalDate value) throws EDIStreamException {
+        startComponent();
+        writeTypedData(formatDate(value));
+        endComponent();
+        return this;
+    }
+
+    @Override
+    public EDIStreamWriter writeComponent(LocalTime value) throws EDIStreamException {
+        startComponent();
+        writeTypedData(formatTime(value));
+        endComponent();
+        return this;
+    }
+
+    /*
+     * Validate and write a typed value formatted by one of the format methods.
+     * When the element is known from the schema, the value is first formatted
+     * for it (e.g. zero-padded).
+     */
+    private void writeTypedData(CharSequence value) throws EDIStreamException {
+        Validator validator = validator();
+        CharSequence text = value;
+
+        if (validator != null) {
+            formattedValue.setLength(0);
+
+            if (validator.formatElement(dialect, location, value, formattedValue)) {
+                text = formattedValue;
+            }
+
+            final CharSequence data = text;
+            validate(v -> v.validateElement(dialect, location, data));
+        }
+
+        writeElementData(text);
+    }
+
+    private EDISimpleType elementType() {
+        Validator validator = validator();
+        return validator != null ? validator.getElementType(location) : null;
+    }
+
+    private CharSequence formatDecimal(BigDecimal value, int scale) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("Negative scale: " + scale);
+        }
+
+        EDISimpleType type = elementType();
+        boolean implied = type != null && type.getBase() == EDISimpleType.Base.NUMERIC;
+        BigDecimal scaled = value.setScale(scale, RoundingMode.HALF_UP);
+        BigInteger unscaled = scaled.unscaledValue();
+
+        if (unscaled.bitLength() < 64 && scale < 32) {
+            return formatNumber(unscaled.longValue(), scale, !implied);
+        }
+
+        if (implied) {
+            return unscaled.toString();
+        }
+
+        return scaled.toPlainString().replace('.', decimalMark);
+    }
+
+    /*
+     * Format the digits of the value into the typed buffer, from right to
+     * left. Digits are computed from the negative value so that
+     * Long.MIN_VALUE is handled.
+     */
+    private CharSequence formatNumber(long value, int scale, boolean explicitDecimal) {
+        final char[] buffer = typedBuffer;
+        boolean negative = value < 0;
+        long remaining = negative ? value : -value;
+        int position = buffer.length;
+        int digits = 0;
+
+        do {
+            if (explicitDecimal && scale > 0 && digits == scale) {
+                buffer[--position] = decimalMark;
+            }
+
+            buffer[--position] = (char) ('0' - (remaining % 10));
+            remaining /= 10;
+            digits++;
+        } while (remaining != 0 || (explicitDecimal && digits <= scale));
+
+        if (negative) {
+            buffer[--position] = '-';
+        }
+
+        typedValue.set(buffer, position, buffer.length - position);
+        return typedValue;
+    }
+
+    private CharSequence formatDate(LocalDate value) {
+        final int year = value.getYear();
+
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+
+        EDISimpleType type = elementType();
+        int position = 0;
+
+        if (type == null || type.getMaxLength() >= 8) {
+            position = formatTwoDigits(year / 100, position);
+        }
+
+        position = formatTwoDigits(year % 100, position);
+        position = formatTwoDigits(value.getMonthValue(), position);
+        position = formatTwoDigits(value.getDayOfMonth(), position);
+
+        typedValue.set(typedBuffer, 0, position);
+        return typedValue;
+    }
+
+    private CharSequence formatTime(LocalTime value) {
+        final int seconds = value.getSecond();
+        final int hundredths = value.getNano() / 10_000_000;
+
+        int position = formatTwoDigits(value.getHour(), 0);
+        position = formatTwoDigits(value.getMinute(), position);
+        position = formatTwoDigits(seconds, position);
+        position = formatTwoDigits(hundredths, position);
+
+        int length;
+
+        if (hundredths != 0) {
+            length = 8;
+        } else if (seconds != 0) {
+            length = 6;
+        } else {
+            length = 4;
+        }
+
+        EDISimpleType type = elementType();
+
+        if (type != null) {
+            length = (int) Math.max(length, Math.min(type.getMinLength(), 8));
+            length = (int) Math.max(4, Math.min(length, type.getMaxLength()));
+        }
+
+        typedValue.set(typedBuffer, 0, length);
+        return typedValue;
+    }
+
+    private int formatTwoDigits(int value, int position) {
+        typedBuffer[position] = (char) ('0' + value / 10);
+        typedBuffer[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
     @Override
     public EDIStreamWriter writeEmptyComponent() throws EDIStreamException {
         startComponent();
@@ -457,13 +1341,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
     @Override
     public EDIStreamWriter writeElementData(CharSequence text) throws EDIStreamException {
         ensureLevelAtLeast(LEVEL_ELEMENT);
-        for (int i = 0, m = text.length(); i < m; i++) {
-            char curr = text.charAt(i);
-            if (characters.isDelimiter(curr)) {
-                throw new IllegalArgumentException("Value contains separator");
-            }
-            write(curr);
-        }
+        writeData(text, 0, text.length());
         return this;
     }
 
@@ -471,15 +1349,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
     public EDIStreamWriter writeElementData(char[] text, int start, int end) throws EDIStreamException {
         ensureLevelAtLeast(LEVEL_ELEMENT);
         ensureArgs(text.length, start, end);
-
-        for (int i = 0, m = text.length; i < m; i++) {
-            char curr = text[i];
-            if (characters.isDelimiter(curr)) {
-                throw new IllegalArgumentException("Value contains separator");
-            }
-            write(curr);
-        }
-
+        writeData(CharBuffer.wrap(text), start, end);
         return this;
     }
 
@@ -487,12 +1357,37 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
     public EDIStreamWriter writeBinaryData(InputStream binaryStream) throws EDIStreamException {
         ensureLevel(LEVEL_ELEMENT);
         ensureState(State.ELEMENT_DATA_BINARY);
-        int input;
+        byte[] transfer = outputBuffer.hasArray() ? outputBuffer.array() : new byte[BUFFER_SIZE];
+        int count;
 
         try {
-            while ((input = binaryStream.read()) != -1) {
-                stream.write(input);
-            }
+            do {
+                if (!outputBuffer.hasRemaining()) {
+                    drainBuffer();
+                }
+
+                int length = Math.min(outputBuffer.remaining(), transfer.length);
+
+                if (outputBuffer.hasArray()) {
+                    // Read directly into the output buffer
+                    int position = outputBuffer.position();
+                    count = binaryStream.read(transfer, outputBuffer.arrayOffset() + position, length);
+
+                    if (count > 0) {
+                        outputBuffer.position(position + count);
+                    }
+                } else {
+                    count = binaryStream.read(transfer, 0, length);
+
+                    if (count > 0) {
+                        outputBuffer.put(transfer, 0, count);
+                    }
+                }
+
+                if (count > 0) {
+                    location.incrementOffset(count);
+                }
+            } while (count != -1);
         } catch (IOException e) {
             throw new EDIStreamException(e);
         }
@@ -505,11 +1400,7 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         ensureLevel(LEVEL_ELEMENT);
         ensureState(State.ELEMENT_DATA_BINARY);
         ensureArgs(binary.length, start, end);
-
-        for (int i = start; i < end; i++) {
-            write(binary[i]);
-        }
-
+        writeBinary(binary, start, end);
         return this;
     }
 
@@ -518,8 +1409,23 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
         ensureLevel(LEVEL_ELEMENT);
         ensureState(State.ELEMENT_DATA_BINARY);
 
+        if (channel instanceof GatheringByteChannel && binary.remaining() > outputBuffer.remaining()) {
+            location.incrementOffset(binary.remaining());
+            drainBuffer((GatheringByteChannel) channel, binary);
+            return this;
+        }
+
         while (binary.hasRemaining()) {
-            write(binary.get());
+            if (!outputBuffer.hasRemaining()) {
+                drainBuffer();
+            }
+
+            int count = Math.min(binary.remaining(), outputBuffer.remaining());
+            ByteBuffer chunk = binary.duplicate();
+            chunk.limit(chunk.position() + count);
+            outputBuffer.put(chunk);
+            binary.position(binary.position() + count);
+            location.incrementOffset(count);
         }
 
         return this;
@@ -616,4 +1522,14 @@ public class StaEDIStreamWriter implements EDIStreamWriter, ElementDataHandler,
             break;
         }
     }
+
+    private static class TransactionBuffer extends ByteArrayOutputStream {
+        TransactionBuffer() {
+            super(BUFFER_SIZE);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
 }
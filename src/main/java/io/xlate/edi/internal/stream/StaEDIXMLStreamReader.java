@@ -17,13 +17,13 @@ package io.xlate.edi.internal.stream;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Queue;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
@@ -41,13 +41,44 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
     private static final QName DUMMY_QNAME = new QName("DUMMY");
     private static final QName INTERCHANGE = new QName("INTERCHANGE");
 
+    /*
+     * At most three XML events are queued for a single EDI event and the
+     * queue is only refilled once it has been drained.
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
     private final EDIStreamReader ediReader;
-    private final Queue<Integer> eventQueue = new ArrayDeque<>(3);
-    private final Queue<QName> elementQueue = new ArrayDeque<>(3);
+    private final int[] eventQueue = new int[QUEUE_CAPACITY];
+    private final QName[] elementQueue = new QName[QUEUE_CAPACITY];
+    private int queueHead;
+    private int queueTail;
     private final Deque<QName> elementStack = new ArrayDeque<>();
 
-    private final StringBuilder cdataBuilder = new StringBuilder();
-    private char[] cdata;
+    /*
+     * Names are cached for the life of the reader so that repeated segments,
+     * elements, and components share a single QName instance. Element and
+     * component names are indexed by position beneath their parent's name.
+     */
+    private final Map<String, QName> names = new HashMap<>();
+    private final Map<QName, QName[]> elementNames = new HashMap<>();
+    private final Map<QName, QName[]> componentNames = new HashMap<>();
+    private final StringBuilder nameBuilder = new StringBuilder();
+
+    /*
+     * Binary element data is read and encoded in chunks of a multiple of three
+     * bytes so that the Base64 text of consecutive CDATA events concatenates
+     * to the encoding of the complete element.
+     */
+    private static final int BINARY_CHUNK_SIZE = 3072;
+    private static final int CDATA_CHUNK_SIZE = BINARY_CHUNK_SIZE / 3 * 4;
+
+    private final Base64.Encoder encoder = Base64.getEncoder();
+    private final byte[] binaryChunk = new byte[BINARY_CHUNK_SIZE];
+    private final byte[] encodedChunk = new byte[CDATA_CHUNK_SIZE];
+    private final char[] cdata = new char[CDATA_CHUNK_SIZE];
+    private int cdataLength;
+    private InputStream binaryInput;
+    private QName binaryName;
 
     public StaEDIXMLStreamReader(EDIStreamReader ediReader) throws XMLStreamException {
         this.ediReader = ediReader;
@@ -65,45 +96,92 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
         return null;
     }
 
-    private boolean isEvent(int... eventTypes) {
-    	return Arrays.stream(eventTypes).anyMatch(eventQueue.element()::equals);
+    private boolean isEvent(int eventType) {
+        return getEventType() == eventType;
+    }
+
+    private QName name(String localPart) {
+        QName name = names.get(localPart);
+
+        if (name == null) {
+            name = new QName(localPart);
+            names.put(localPart, name);
+        }
+
+        return name;
     }
 
     private QName deriveName(QName parent, String hint) {
-        String name = hint;
+        if (hint != null) {
+            return name(hint);
+        }
+
+        final io.xlate.edi.stream.Location l = ediReader.getLocation();
+        final int componentPosition = l.getComponentPosition();
+
+        if (componentPosition > 0) {
+            return childName(componentNames, parent, componentPosition, true);
+        }
+
+        return childName(elementNames, parent, l.getElementPosition(), false);
+    }
+
+    private QName childName(Map<QName, QName[]> cache, QName parent, int position, boolean component) {
+        QName[] children = cache.get(parent);
+
+        if (children == null) {
+            children = new QName[Math.max(position + 1, 16)];
+            cache.put(parent, children);
+        } else if (position >= children.length) {
+            children = Arrays.copyOf(children, Math.max(position + 1, children.length * 2));
+            cache.put(parent, children);
+        }
+
+        QName name = children[position];
 
         if (name == null) {
-            final io.xlate.edi.stream.Location l = ediReader.getLocation();
-            final int componentPosition = l.getComponentPosition();
+            nameBuilder.setLength(0);
+            nameBuilder.append(parent.getLocalPart());
 
-            if (componentPosition > 0) {
-                name = String.format("%s-%d", parent, componentPosition);
-            } else {
-                name = String.format("%s%02d", parent, l.getElementPosition());
+            if (component) {
+                nameBuilder.append('-');
+            } else if (position < 10) {
+                nameBuilder.append('0');
             }
+
+            nameBuilder.append(position);
+            name = new QName(nameBuilder.toString());
+            children[position] = name;
         }
 
-        return new QName(name);
+        return name;
     }
 
     private void enqueueEvent(int xmlEvent, QName element, boolean remember) {
-        eventQueue.add(xmlEvent);
-        elementQueue.add(element);
+        eventQueue[queueTail] = xmlEvent;
+        elementQueue[queueTail] = element;
+        queueTail++;
 
         if (remember) {
             elementStack.addFirst(element);
         }
     }
 
+    private boolean isQueueEmpty() {
+        return queueHead == queueTail;
+    }
+
     private void advanceEvent() {
-        eventQueue.remove();
-        elementQueue.remove();
+        elementQueue[queueHead++] = null;
+
+        if (queueHead == queueTail) {
+            queueHead = 0;
+            queueTail = 0;
+        }
     }
 
     private void enqueueEvent(EDIStreamEvent ediEvent) throws XMLStreamException {
         final QName name;
-        cdataBuilder.setLength(0);
-        cdata = null;
 
         switch (ediEvent) {
         case ELEMENT_DATA:
@@ -115,35 +193,21 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
 
         case ELEMENT_DATA_BINARY:
             /*
-             * This section will read the binary data and Base64 the stream
-             * into an XML CDATA section.
+             * The binary data is Base64 encoded into a series of bounded CDATA
+             * events, each read from the stream as the previous is consumed.
              * */
             name = deriveName(elementStack.getFirst(), null);
             enqueueEvent(START_ELEMENT, name, false);
-            enqueueEvent(CDATA, DUMMY_QNAME, false);
 
             // This only will work if using a validation filter!
-            InputStream input = ediReader.getBinaryData();
-            OutputStream output = Base64.getEncoder().wrap(new OutputStream() {
-                @Override
-                public void write(int b) throws IOException {
-                    cdataBuilder.append((char) b);
-                }
-            });
-            byte[] buffer = new byte[4096];
-            int amount;
-
-            try {
-                while ((amount = input.read(buffer)) > -1) {
-                    output.write(buffer, 0, amount);
-                }
+            binaryInput = ediReader.getBinaryData();
+            binaryName = name;
 
-                output.close();
-            } catch (IOException e) {
-                throw new XMLStreamException(e);
+            if (readBinaryChunk()) {
+                enqueueEvent(CDATA, DUMMY_QNAME, false);
+            } else {
+                endBinary();
             }
-
-            enqueueEvent(END_ELEMENT, name, false);
             break;
 
         case START_INTERCHANGE:
@@ -152,7 +216,7 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
             break;
 
         case START_SEGMENT:
-            enqueueEvent(START_ELEMENT, new QName(ediReader.getText()), true);
+            enqueueEvent(START_ELEMENT, name(ediReader.getText()), true);
             break;
 
         case START_GROUP:
@@ -188,6 +252,44 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
         }
     }
 
+    private boolean readBinaryChunk() throws XMLStreamException {
+        int length = 0;
+        int amount;
+
+        try {
+            while (length < binaryChunk.length
+                    && (amount = binaryInput.read(binaryChunk, length, binaryChunk.length - length)) > -1) {
+                length += amount;
+            }
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+
+        if (length == 0) {
+            cdataLength = 0;
+            return false;
+        }
+
+        byte[] source = length < binaryChunk.length ? Arrays.copyOf(binaryChunk, length) : binaryChunk;
+        cdataLength = encoder.encode(source, encodedChunk);
+
+        for (int i = 0; i < cdataLength; i++) {
+            cdata[i] = (char) encodedChunk[i];
+        }
+
+        return true;
+    }
+
+    private void endBinary() {
+        enqueueEvent(END_ELEMENT, binaryName, false);
+        binaryInput = null;
+        binaryName = null;
+    }
+
+    private boolean isBinaryText() {
+        return getEventType() == CDATA;
+    }
+
     private void requireCharacters() {
         if (!isCharacters()) {
             throw new IllegalStateException("Text only available for CHARACTERS");
@@ -196,11 +298,19 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
 
     @Override
     public int next() throws XMLStreamException {
-        if (!eventQueue.isEmpty()) {
+        if (!isQueueEmpty()) {
+            if (binaryInput != null && isBinaryText()) {
+                if (readBinaryChunk()) {
+                    return CDATA;
+                }
+
+                endBinary();
+            }
+
             advanceEvent();
         }
 
-        if (eventQueue.isEmpty()) {
+        if (isQueueEmpty()) {
             try {
                 enqueueEvent(ediReader.next());
             } catch (EDIStreamException | NoSuchElementException e) {
@@ -309,7 +419,8 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
 
     @Override
     public boolean isCharacters() {
-        return isEvent(CHARACTERS, CDATA);
+        final int eventType = getEventType();
+        return eventType == CHARACTERS || eventType == CDATA;
     }
 
     @Override
@@ -384,20 +495,15 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
 
     @Override
     public int getEventType() {
-        return eventQueue.isEmpty() ? -1 : eventQueue.element();
+        return isQueueEmpty() ? -1 : eventQueue[queueHead];
     }
 
     @Override
     public String getText() {
         requireCharacters();
 
-        if (cdataBuilder.length() > 0) {
-        	if (cdata == null) {
-                cdata = new char[cdataBuilder.length()];
-                cdataBuilder.getChars(0, cdataBuilder.length(), cdata, 0);
-            }
-
-            return new String(cdata);
+        if (isBinaryText()) {
+            return new String(cdata, 0, cdataLength);
         }
         return ediReader.getText();
     }
@@ -406,12 +512,7 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
     public char[] getTextCharacters() {
         requireCharacters();
 
-        if (cdataBuilder.length() > 0) {
-            if (cdata == null) {
-                cdata = new char[cdataBuilder.length()];
-                cdataBuilder.getChars(0, cdataBuilder.length(), cdata, 0);
-            }
-
+        if (isBinaryText()) {
             return cdata;
         }
         return ediReader.getTextCharacters();
@@ -425,12 +526,7 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
 
         requireCharacters();
 
-        if (cdataBuilder.length() > 0) {
-            if (cdata == null) {
-                cdata = new char[cdataBuilder.length()];
-                cdataBuilder.getChars(0, cdataBuilder.length(), cdata, 0);
-            }
-
+        if (isBinaryText()) {
             if (targetStart < 0) {
                 throw new IndexOutOfBoundsException("targetStart < 0");
             }
@@ -444,8 +540,9 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
                 throw new IndexOutOfBoundsException("targetStart + length > target.length");
             }
 
-            System.arraycopy(cdata, sourceStart, target, targetStart, length);
-            return length;
+            final int count = Math.min(length, cdataLength - sourceStart);
+            System.arraycopy(cdata, sourceStart, target, targetStart, count);
+            return count;
         }
         return ediReader.getTextCharacters(sourceStart, target, targetStart, length);
     }
@@ -454,7 +551,7 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
     public int getTextStart() {
         requireCharacters();
 
-        if (cdataBuilder.length() > 0) {
+        if (isBinaryText()) {
             return 0;
         }
         return ediReader.getTextStart();
@@ -464,8 +561,8 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
     public int getTextLength() {
         requireCharacters();
 
-        if (cdataBuilder.length() > 0) {
-            return cdataBuilder.length();
+        if (isBinaryText()) {
+            return cdataLength;
         }
         return ediReader.getTextLength();
     }
@@ -488,7 +585,7 @@ public class StaEDIXMLStreamReader implements XMLStreamReader {
     @Override
     public QName getName() {
         if (hasName()) {
-            return elementQueue.element();
+            return elementQueue[queueHead];
         }
         throw new IllegalStateException("Text only available for START_ELEMENT or END_ELEMENT");
     }
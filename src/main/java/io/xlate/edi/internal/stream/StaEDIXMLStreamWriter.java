@@ -0,0 +1,561 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamWriter;
+
+/**
+ * An XMLStreamWriter that writes EDI to an {@link EDIStreamWriter}, accepting
+ * the element structure produced by {@link StaEDIXMLStreamReader}:
+ *
+ * <ul>
+ * <li>the root element is the interchange
+ * <li>segments are named by their tag; any other element outside of a
+ * segment (groups, transactions, loops) is a container and is not written
+ * <li>simple elements are named by the segment tag and a two digit position,
+ * e.g. <code>SEG01</code>
+ * <li>composites contain components named by the composite and the component
+ * position, e.g. <code>SEG01-1</code>
+ * <li>an element starting with CDATA is binary; its content, which may span
+ * several CDATA sections and character data, is Base64 encoded
+ * </ul>
+ *
+ * Whether an element is a segment or a container is decided by its first
+ * child: a child named as an element of the parent, or any child that is not
+ * itself named like a segment tag (2-3 characters) when the parent is,
+ * identifies the parent as a segment. Missing elements and components are
+ * written empty, and an element with the position of the previous element is
+ * written as a repetition. Namespaces, attributes, comments and processing
+ * instructions are ignored.
+ */
+public class StaEDIXMLStreamWriter implements XMLStreamWriter {
+
+    private static final int INTERCHANGE = 0;
+    private static final int PENDING = 1;
+    private static final int CONTAINER = 2;
+    private static final int SEGMENT = 3;
+    private static final int ELEMENT = 4;
+    private static final int SIMPLE = 5;
+    private static final int BINARY = 6;
+    private static final int COMPOSITE = 7;
+    private static final int COMPONENT = 8;
+
+    private final EDIStreamWriter ediWriter;
+
+    /*
+     * The open XML elements: kind, name, the position of the last child, and
+     * whether the element repeats the previous element.
+     */
+    private int depth;
+    private int[] kinds = new int[16];
+    private String[] names = new String[16];
+    private int[] childPositions = new int[16];
+    private boolean[] repeats = new boolean[16];
+
+    private final Base64.Decoder decoder = Base64.getDecoder();
+    /*
+     * Base64 characters of the current binary element not yet decoded, less
+     * than a complete 4 character unit.
+     */
+    private final StringBuilder binaryText = new StringBuilder();
+
+    public StaEDIXMLStreamWriter(EDIStreamWriter ediWriter) {
+        this.ediWriter = ediWriter;
+    }
+
+    private void push(int kind, String name, boolean repeat) {
+        if (depth == kinds.length) {
+            int size = depth * 2;
+            kinds = Arrays.copyOf(kinds, size);
+            names = Arrays.copyOf(names, size);
+            childPositions = Arrays.copyOf(childPositions, size);
+            repeats = Arrays.copyOf(repeats, size);
+        }
+
+        kinds[depth] = kind;
+        names[depth] = name;
+        childPositions[depth] = 0;
+        repeats[depth] = repeat;
+        depth++;
+    }
+
+    private int currentKind() {
+        return depth > 0 ? kinds[depth - 1] : -1;
+    }
+
+    static boolean isSegmentTag(String name) {
+        int length = name.length();
+
+        if (length < 2 || length > 3) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the position given by the name of a child element, i.e. the digits
+     * following the parent's name and separator.
+     *
+     * @return the position, or -1 if the name does not include one
+     */
+    static int childPosition(String parent, String separator, String name) {
+        int offset = parent.length() + separator.length();
+
+        if (name.length() <= offset || !name.startsWith(parent) || !name.startsWith(separator, parent.length())) {
+            return -1;
+        }
+
+        int position = 0;
+
+        for (int i = offset, m = name.length(); i < m; i++) {
+            char c = name.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            position = position * 10 + (c - '0');
+        }
+
+        return position;
+    }
+
+    private static XMLStreamException streamException(EDIStreamException e) {
+        return new XMLStreamException(e.getMessage(), e);
+    }
+
+    /*
+     * Start the EDI element of the current ELEMENT frame once its content
+     * determines its kind.
+     */
+    private void startElement(int kind) throws EDIStreamException {
+        int index = depth - 1;
+        kinds[index] = kind;
+
+        if (kind == BINARY) {
+            ediWriter.writeStartElementBinary();
+        } else if (repeats[index]) {
+            ediWriter.writeRepeatElement();
+        } else {
+            ediWriter.writeStartElement();
+        }
+    }
+
+    private void startSegment() throws EDIStreamException {
+        kinds[depth - 1] = SEGMENT;
+        ediWriter.writeStartSegment(names[depth - 1]);
+    }
+
+    private void startChild(String localName) throws EDIStreamException, XMLStreamException {
+        switch (currentKind()) {
+        case -1:
+            push(INTERCHANGE, localName, false);
+            ediWriter.startInterchange();
+            break;
+
+        case INTERCHANGE:
+        case CONTAINER:
+            push(PENDING, localName, false);
+            break;
+
+        case PENDING: {
+            String parent = names[depth - 1];
+
+            if (childPosition(parent, "", localName) > 0 || (isSegmentTag(parent) && !isSegmentTag(localName))) {
+                startSegment();
+                startElementChild(localName);
+            } else {
+                kinds[depth - 1] = CONTAINER;
+                push(PENDING, localName, false);
+            }
+            break;
+        }
+
+        case SEGMENT:
+            startElementChild(localName);
+            break;
+
+        case ELEMENT:
+            startElement(COMPOSITE);
+            startComponentChild(localName);
+            break;
+
+        case COMPOSITE:
+            startComponentChild(localName);
+            break;
+
+        default:
+            throw new XMLStreamException("Unexpected element " + localName + " in " + names[depth - 1]);
+        }
+    }
+
+    private void startElementChild(String localName) throws EDIStreamException {
+        int parent = depth - 1;
+        int last = childPositions[parent];
+        int position = childPosition(names[parent], "", localName);
+
+        if (position < 0) {
+            position = last + 1;
+        }
+
+        for (int i = last + 1; i < position; i++) {
+            ediWriter.writeEmptyElement();
+        }
+
+        childPositions[parent] = position;
+        push(ELEMENT, localName, position == last);
+    }
+
+    private void startComponentChild(String localName) throws EDIStreamException {
+        int parent = depth - 1;
+        int last = childPositions[parent];
+        int position = childPosition(names[parent], "-", localName);
+
+        if (position <= last) {
+            position = last + 1;
+        }
+
+        for (int i = last + 1; i < position; i++) {
+            ediWriter.writeEmptyComponent();
+        }
+
+        childPositions[parent] = position;
+        push(COMPONENT, localName, false);
+        ediWriter.startComponent();
+    }
+
+    @Override
+    public void writeStartElement(String localName) throws XMLStreamException {
+        try {
+            startChild(localName);
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+    }
+
+    @Override
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    @Override
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    @Override
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        writeStartElement(localName);
+        writeEndElement();
+    }
+
+    @Override
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeEmptyElement(localName);
+    }
+
+    @Override
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeEmptyElement(localName);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        if (depth == 0) {
+            throw new XMLStreamException("No element to end");
+        }
+
+        try {
+            switch (currentKind()) {
+            case INTERCHANGE:
+                ediWriter.endInterchange();
+                break;
+            case PENDING:
+                if (isSegmentTag(names[depth - 1])) {
+                    startSegment();
+                    ediWriter.writeEndSegment();
+                }
+                break;
+            case SEGMENT:
+                ediWriter.writeEndSegment();
+                break;
+            case ELEMENT:
+                startElement(SIMPLE);
+                ediWriter.endElement();
+                break;
+            case BINARY:
+                writeBinaryRemainder();
+                ediWriter.endElement();
+                break;
+            case SIMPLE:
+            case COMPOSITE:
+                ediWriter.endElement();
+                break;
+            case COMPONENT:
+                ediWriter.endComponent();
+                break;
+            default:
+                break;
+            }
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+
+        names[--depth] = null;
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        while (depth > 0) {
+            writeEndElement();
+        }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        try {
+            ediWriter.close();
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        try {
+            ediWriter.flush();
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+    }
+
+    @Override
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        // Attributes are not represented in EDI
+    }
+
+    @Override
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        // Attributes are not represented in EDI
+    }
+
+    @Override
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        // Attributes are not represented in EDI
+    }
+
+    @Override
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        // Namespaces are not represented in EDI
+    }
+
+    @Override
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        // Namespaces are not represented in EDI
+    }
+
+    @Override
+    public void writeComment(String data) throws XMLStreamException {
+        // Comments are not represented in EDI
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+        // Processing instructions are not represented in EDI
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+        // Processing instructions are not represented in EDI
+    }
+
+    @Override
+    public void writeCData(String data) throws XMLStreamException {
+        try {
+            if (currentKind() == ELEMENT) {
+                startElement(BINARY);
+            }
+
+            writeText(data);
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+    }
+
+    @Override
+    public void writeDTD(String dtd) throws XMLStreamException {
+        throw new XMLStreamException("DTD not supported");
+    }
+
+    @Override
+    public void writeEntityRef(String name) throws XMLStreamException {
+        throw new XMLStreamException("Entity references not supported");
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        // Nothing to write
+    }
+
+    @Override
+    public void writeStartDocument(String version) throws XMLStreamException {
+        // Nothing to write
+    }
+
+    @Override
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        // Nothing to write
+    }
+
+    @Override
+    public void writeCharacters(String text) throws XMLStreamException {
+        try {
+            writeText(text);
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+    }
+
+    @Override
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+        try {
+            writeText(CharBuffer.wrap(text, start, len));
+        } catch (EDIStreamException e) {
+            throw streamException(e);
+        }
+    }
+
+    private void writeText(CharSequence text) throws EDIStreamException, XMLStreamException {
+        final int length = text.length();
+
+        if (length == 0) {
+            return;
+        }
+
+        switch (currentKind()) {
+        case ELEMENT:
+            startElement(SIMPLE);
+            ediWriter.writeElementData(text);
+            break;
+        case SIMPLE:
+        case COMPONENT:
+            ediWriter.writeElementData(text);
+            break;
+        case BINARY:
+            writeBinaryText(text);
+            break;
+        default:
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(text.charAt(i))) {
+                    throw new XMLStreamException("Unexpected text in " + (depth > 0 ? names[depth - 1] : "document"));
+                }
+            }
+            // Whitespace between elements is ignored
+            break;
+        }
+    }
+
+    /*
+     * Decode the complete units of Base64 text, keeping any remaining
+     * characters for the next section of the element's content.
+     */
+    private void writeBinaryText(CharSequence text) throws EDIStreamException, XMLStreamException {
+        for (int i = 0, m = text.length(); i < m; i++) {
+            char c = text.charAt(i);
+
+            if (!Character.isWhitespace(c)) {
+                binaryText.append(c);
+            }
+        }
+
+        int complete = binaryText.length() - binaryText.length() % 4;
+
+        if (complete > 0) {
+            writeBinaryData(binaryText.substring(0, complete));
+            binaryText.delete(0, complete);
+        }
+    }
+
+    private void writeBinaryRemainder() throws EDIStreamException, XMLStreamException {
+        if (binaryText.length() > 0) {
+            writeBinaryData(binaryText.toString());
+            binaryText.setLength(0);
+        }
+    }
+
+    private void writeBinaryData(String text) throws EDIStreamException, XMLStreamException {
+        final byte[] binary;
+
+        try {
+            binary = decoder.decode(text);
+        } catch (IllegalArgumentException e) {
+            throw new XMLStreamException("Invalid binary data", e);
+        }
+
+        ediWriter.writeBinaryData(binary, 0, binary.length);
+    }
+
+    @Override
+    public String getPrefix(String uri) throws XMLStreamException {
+        return null;
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        // Namespaces are not represented in EDI
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        // Namespaces are not represented in EDI
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        // Namespaces are not represented in EDI
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("name must not be null");
+        }
+        return null;
+    }
+}
@@ -176,6 +176,10 @@ public class CharacterSet {
         list = Arrays.copyOf(prototype, prototype.length);
     }
 
+    public CharacterSet(CharacterSet source) {
+        list = Arrays.copyOf(source.list, source.list.length);
+    }
+
     public CharacterClass getClass(int character) {
         return (character < 128) ? list[character] : _OTHER;
     }
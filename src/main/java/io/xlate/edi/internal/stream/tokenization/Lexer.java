@@ -23,6 +23,7 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 
 import io.xlate.edi.internal.stream.LocationView;
+import io.xlate.edi.internal.stream.MetricsRecorder;
 import io.xlate.edi.internal.stream.StaEDIStreamLocation;
 import io.xlate.edi.stream.Location;
 
@@ -49,6 +50,7 @@ public class Lexer {
 
     private final InputStream stream;
     private final StaEDIStreamLocation location;
+    private final MetricsRecorder metrics;
 
     private CharacterSet characters = new CharacterSet();
     private CharBuffer buffer = CharBuffer.allocate(4096);
@@ -67,6 +69,10 @@ public class Lexer {
     private Notifier bn;
 
     public Lexer(InputStream stream, EventHandler handler, StaEDIStreamLocation location) {
+        this(stream, handler, location, MetricsRecorder.DISABLED);
+    }
+
+    public Lexer(InputStream stream, EventHandler handler, StaEDIStreamLocation location, MetricsRecorder metrics) {
         if (stream.markSupported()) {
             this.stream = stream;
         } else {
@@ -74,6 +80,7 @@ public class Lexer {
         }
 
         this.location = location;
+        this.metrics = metrics;
 
         isn = (notifyState, start, length) -> handler.interchangeBegin(dialect);
 
@@ -90,6 +97,7 @@ public class Lexer {
 
         sen = (notifyState, start, length) -> {
             handler.segmentEnd();
+            metrics.segmentRead(location.getCharacterOffset());
             location.clearSegmentLocations();
         };
 
@@ -162,6 +170,8 @@ public class Lexer {
         int input;
         boolean eventsReady = false;
 
+        metrics.resume();
+
         while (!eventsReady && (input = stream.read()) > -1) {
             location.incrementOffset();
 
@@ -264,6 +274,8 @@ public class Lexer {
                 }
             }
         }
+
+        metrics.pause();
     }
 
     void handleStateHeaderTag(int input) {
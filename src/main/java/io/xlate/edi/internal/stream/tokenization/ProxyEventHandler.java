@@ -20,19 +20,25 @@ import java.nio.CharBuffer;
 import java.util.Iterator;
 import java.util.List;
 
+import io.xlate.edi.internal.jfr.EventRecorder;
 import io.xlate.edi.internal.stream.CharArraySequence;
 import io.xlate.edi.internal.stream.LocationView;
+import io.xlate.edi.internal.stream.MetricsRecorder;
 import io.xlate.edi.internal.stream.StaEDIStreamLocation;
 import io.xlate.edi.internal.stream.validation.Validator;
+import io.xlate.edi.schema.EDISimpleType;
 import io.xlate.edi.schema.EDIType;
 import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaRegistry;
 import io.xlate.edi.stream.EDIStreamEvent;
 import io.xlate.edi.stream.EDIStreamValidationError;
+import io.xlate.edi.stream.EDIValidationLevel;
 import io.xlate.edi.stream.Location;
 
 public class ProxyEventHandler implements EventHandler {
 
     private final StaEDIStreamLocation location;
+    private final EDIValidationLevel validationLevel;
 
     private Schema controlSchema;
     private Validator controlValidator;
@@ -42,6 +48,42 @@ public class ProxyEventHandler implements EventHandler {
     private boolean transactionSchemaAllowed = false;
     private boolean transaction = false;
 
+    private int transactionErrorLimit = Integer.MAX_VALUE;
+    private int interchangeErrorLimit = Integer.MAX_VALUE;
+    private int transactionErrors;
+    private int interchangeErrors;
+    private boolean transactionErrorsSkipped;
+    private boolean interchangeErrorsSkipped;
+
+    private static final String[] SCHEMA_KEY_SEGMENTS = { "ISA", "UNB", "GS", "ST", "UNH" };
+
+    private SchemaRegistry schemaRegistry;
+    /*
+     * Tag of the current segment when its elements are captured, otherwise
+     * null. Decided once per segment.
+     */
+    private String schemaKeySegment;
+    private boolean transactionSchemaSet;
+    private String interchangeSender;
+    private String interchangeReceiver;
+    private String groupVersion;
+    private String transactionSetId;
+    private String transactionVersion;
+    private String transactionRelease;
+
+    private MetricsRecorder metrics = MetricsRecorder.DISABLED;
+
+    /*
+     * Flight recorder events of the current interchange and transaction,
+     * null when not enabled. Sizes are measured from the end of the segment
+     * preceding the header to the end of the trailer.
+     */
+    private static final EventRecorder recorder = EventRecorder.getInstance();
+    private Object interchangeEvent;
+    private Object transactionEvent;
+    private int segmentCount;
+    private int segmentEndOffset = -1;
+
     private InputStream binary;
     private CharArraySequence segmentHolder = new CharArraySequence();
     private CharArraySequence elementHolder = new CharArraySequence();
@@ -51,12 +93,14 @@ public class ProxyEventHandler implements EventHandler {
     private CharBuffer[] eventData = new CharBuffer[99];
     private String[] referenceCodes = new String[99];
     private Location[] locations = new Location[99];
+    private EDISimpleType[] elementTypes;
     private int eventCount = 0;
     private int eventIndex = 0;
     private Dialect dialect;
 
-    public ProxyEventHandler(StaEDIStreamLocation location, Schema controlSchema) {
+    public ProxyEventHandler(StaEDIStreamLocation location, Schema controlSchema, EDIValidationLevel validationLevel) {
         this.location = location;
+        this.validationLevel = validationLevel;
         setControlSchema(controlSchema);
     }
 
@@ -66,7 +110,7 @@ public class ProxyEventHandler implements EventHandler {
         }
 
         this.controlSchema = controlSchema;
-        controlValidator = controlSchema != null ? new Validator(controlSchema, null) : null;
+        controlValidator = createValidator(controlSchema, null);
     }
 
     public boolean isTransactionSchemaAllowed() {
@@ -74,7 +118,35 @@ public class ProxyEventHandler implements EventHandler {
     }
 
     public void setTransactionSchema(Schema transactionSchema) {
-        transactionValidator = transactionSchema != null ? new Validator(transactionSchema, controlSchema) : null;
+        transactionSchemaSet = true;
+
+        if (interchangeErrorsSkipped) {
+            // Error limit for the interchange has been exceeded, skip validation
+            transactionValidator = null;
+        } else {
+            transactionValidator = createValidator(transactionSchema, controlSchema);
+        }
+    }
+
+    public void setErrorLimits(int transactionErrorLimit, int interchangeErrorLimit) {
+        this.transactionErrorLimit = transactionErrorLimit;
+        this.interchangeErrorLimit = interchangeErrorLimit;
+    }
+
+    public void setSchemaRegistry(SchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    public void setMetrics(MetricsRecorder metrics) {
+        this.metrics = metrics;
+    }
+
+    Validator createValidator(Schema schema, Schema containerSchema) {
+        if (schema == null || validationLevel == EDIValidationLevel.OFF) {
+            return null;
+        }
+
+        return new Validator(schema, containerSchema, validationLevel);
     }
 
     public void resetEvents() {
@@ -115,6 +187,27 @@ public class ProxyEventHandler implements EventHandler {
         return referenceCodes[eventIndex];
     }
 
+    /**
+     * Retain the schema type of each ELEMENT_DATA event read from this point
+     * on, for retrieval with {@link #getElementType()}. Types are not looked
+     * up unless enabled.
+     */
+    public void enableElementTypes() {
+        if (elementTypes == null) {
+            elementTypes = new EDISimpleType[events.length];
+        }
+    }
+
+    /**
+     * Get the schema type of the current ELEMENT_DATA event, when known.
+     *
+     * @return the type of the element, or null when no schema is in use or
+     *         element types are not enabled
+     */
+    public EDISimpleType getElementType() {
+        return elementTypes != null ? elementTypes[eventIndex] : null;
+    }
+
     public Location getLocation() {
         if (hasEvents() && locations[eventIndex] != null) {
             return locations[eventIndex];
@@ -133,11 +226,30 @@ public class ProxyEventHandler implements EventHandler {
     @Override
     public void interchangeBegin(Dialect dialect) {
         this.dialect = dialect;
+        this.interchangeErrors = 0;
+        this.interchangeErrorsSkipped = false;
+        this.interchangeSender = null;
+        this.interchangeReceiver = null;
+        this.groupVersion = null;
+        metrics.setPartner(null);
+        interchangeEvent = recorder.interchangeBegin(segmentEndOffset, segmentCount);
         enqueueEvent(EDIStreamEvent.START_INTERCHANGE, EDIStreamValidationError.NONE, "", null);
     }
 
     @Override
     public void interchangeEnd() {
+        if (interchangeEvent != null) {
+            recorder.interchangeEnd(interchangeEvent,
+                                    dialect.getStandard(),
+                                    String.join(".", dialect.getVersion()),
+                                    interchangeSender,
+                                    interchangeReceiver,
+                                    segmentEndOffset,
+                                    segmentCount,
+                                    interchangeErrors);
+            interchangeEvent = null;
+        }
+
         enqueueEvent(EDIStreamEvent.END_INTERCHANGE, EDIStreamValidationError.NONE, "", null);
     }
 
@@ -146,6 +258,18 @@ public class ProxyEventHandler implements EventHandler {
         if (EDIType.Type.TRANSACTION.toString().equals(id)) {
             transaction = true;
             transactionSchemaAllowed = true;
+            transactionErrors = 0;
+            transactionErrorsSkipped = interchangeErrorsSkipped;
+            transactionSchemaSet = false;
+            transactionSetId = null;
+            transactionVersion = null;
+            transactionRelease = null;
+
+            if (interchangeErrorsSkipped) {
+                transactionValidator = null;
+            }
+
+            transactionEvent = recorder.transactionBegin(segmentEndOffset, segmentCount);
             enqueueEvent(EDIStreamEvent.START_TRANSACTION, EDIStreamValidationError.NONE, id, null);
         } else if (EDIType.Type.GROUP.toString().equals(id)) {
             enqueueEvent(EDIStreamEvent.START_GROUP, EDIStreamValidationError.NONE, id, null);
@@ -158,6 +282,18 @@ public class ProxyEventHandler implements EventHandler {
     public void loopEnd(CharSequence id) {
         if (EDIType.Type.TRANSACTION.toString().equals(id)) {
             transaction = false;
+
+            if (transactionEvent != null) {
+                recorder.transactionEnd(transactionEvent,
+                                        transactionSetId,
+                                        getTransactionVersion(),
+                                        transactionValidator != null,
+                                        segmentEndOffset,
+                                        segmentCount,
+                                        transactionErrors);
+                transactionEvent = null;
+            }
+
             enqueueEvent(EDIStreamEvent.END_TRANSACTION, EDIStreamValidationError.NONE, id, null);
         } else if (EDIType.Type.GROUP.toString().equals(id)) {
             enqueueEvent(EDIStreamEvent.END_GROUP, EDIStreamValidationError.NONE, id, null);
@@ -169,11 +305,25 @@ public class ProxyEventHandler implements EventHandler {
     @Override
     public void segmentBegin(char[] text, int start, int length) {
         segmentHolder.set(text, start, length);
+        metrics.segmentStart(segmentHolder);
+
+        schemaKeySegment = isSchemaKeyCaptured() ? schemaKeySegment(segmentHolder) : null;
+
+        if (transactionErrorsSkipped && transaction && !transactionSchemaAllowed && transactionValidator != null) {
+            /*
+             * The error limit was exceeded in the previous segment. Close any
+             * loops open in the transaction and stop validating it.
+             */
+            transactionValidator.completeLoops(this);
+            transactionValidator = null;
+        }
 
         Validator validator = validator();
 
         if (validator != null) {
+            metrics.validationStart();
             validator.validateSegment(this, segmentHolder);
+            metrics.validationEnd();
         }
 
         if (exitTransaction(segmentHolder)) {
@@ -192,11 +342,19 @@ public class ProxyEventHandler implements EventHandler {
     @Override
     public void segmentEnd() {
         if (validator() != null) {
+            metrics.validationStart();
             validator().validateSyntax(this, this, location, false);
+            metrics.validationEnd();
+        }
+
+        if (transactionSchemaAllowed && schemaRegistry != null && !transactionSchemaSet) {
+            selectTransactionSchema();
         }
 
         enqueueEvent(EDIStreamEvent.END_SEGMENT, EDIStreamValidationError.NONE, segmentHolder, null, null);
         transactionSchemaAllowed = false;
+        segmentCount++;
+        segmentEndOffset = location.getCharacterOffset();
     }
 
     @Override
@@ -204,6 +362,7 @@ public class ProxyEventHandler implements EventHandler {
         String code = null;
 
         if (validator() != null && !isNil) {
+            metrics.validationStart();
             boolean invalid = !validator().validCompositeOccurrences(location);
 
             if (invalid) {
@@ -215,6 +374,8 @@ public class ProxyEventHandler implements EventHandler {
             } else {
                 code = validator().getCompositeReferenceCode();
             }
+
+            metrics.validationEnd();
         }
 
         enqueueEvent(EDIStreamEvent.START_COMPOSITE, EDIStreamValidationError.NONE, "", code);
@@ -223,7 +384,9 @@ public class ProxyEventHandler implements EventHandler {
     @Override
     public void compositeEnd(boolean isNil) {
         if (validator() != null && !isNil) {
+            metrics.validationStart();
             validator().validateSyntax(this, this, location, true);
+            metrics.validationEnd();
         }
         enqueueEvent(EDIStreamEvent.END_COMPOSITE, EDIStreamValidationError.NONE, "", null);
     }
@@ -236,9 +399,15 @@ public class ProxyEventHandler implements EventHandler {
 
         elementHolder.set(text, start, length);
 
+        if (text != null && schemaKeySegment != null) {
+            captureSchemaKey();
+        }
+
         if (validator() != null) {
             final boolean composite = location.getComponentPosition() > -1;
+            metrics.validationStart();
             boolean valid = validator().validateElement(dialect, location, elementHolder);
+            metrics.validationEnd();
             derivedComposite = !composite && validator().isComposite();
 
             code = validator().getElementReferenceNumber();
@@ -300,6 +469,10 @@ public class ProxyEventHandler implements EventHandler {
                          elementHolder,
                          code,
                          savedLocation);
+
+            if (elementTypes != null) {
+                elementTypes[eventCount - 1] = validator() != null ? validator().getElementType(location) : null;
+            }
         }
 
         if (derivedComposite && text != null /* Not an empty composite */) {
@@ -308,6 +481,114 @@ public class ProxyEventHandler implements EventHandler {
         }
     }
 
+    /*
+     * The header values are needed by the schema registry, the metrics
+     * partner and the flight recorder events.
+     */
+    private boolean isSchemaKeyCaptured() {
+        return schemaRegistry != null || metrics.isEnabled() || recorder.isEnabled();
+    }
+
+    static String schemaKeySegment(CharArraySequence tag) {
+        for (String segment : SCHEMA_KEY_SEGMENTS) {
+            if (tag.compareTo(segment) == 0) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Retain the values of the header elements identifying the schema of a
+     * transaction in the registry.
+     */
+    void captureSchemaKey() {
+        if (schemaKeySegment == null) {
+            return;
+        }
+
+        final int element = location.getElementPosition();
+        final int component = location.getComponentPosition();
+
+        if (component > 1) {
+            if (transactionSchemaAllowed && "UNH".equals(schemaKeySegment) && element == 2) {
+                if (component == 2) {
+                    transactionVersion = elementHolder.toString();
+                } else if (component == 3) {
+                    transactionRelease = elementHolder.toString();
+                }
+            }
+            return;
+        }
+
+        switch (schemaKeySegment) {
+        case "ISA":
+            if (element == 6) {
+                interchangeSender = elementHolder.toString().trim();
+                metrics.setPartner(interchangeSender);
+            } else if (element == 8) {
+                interchangeReceiver = elementHolder.toString().trim();
+            }
+            break;
+        case "UNB":
+            if (element == 2) {
+                interchangeSender = elementHolder.toString();
+                metrics.setPartner(interchangeSender);
+            } else if (element == 3) {
+                interchangeReceiver = elementHolder.toString();
+            }
+            break;
+        case "GS":
+            if (element == 8) {
+                groupVersion = elementHolder.toString();
+            }
+            break;
+        case "ST":
+            if (element == 1) {
+                transactionSetId = elementHolder.toString();
+            } else if (element == 3) {
+                transactionVersion = elementHolder.toString();
+            }
+            break;
+        case "UNH":
+            if (element == 2) {
+                transactionSetId = elementHolder.toString();
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    String getTransactionVersion() {
+        if (transactionRelease != null) {
+            // EDIFACT
+            return transactionVersion + transactionRelease;
+        } else if (groupVersion != null) {
+            return groupVersion;
+        } else {
+            return transactionVersion;
+        }
+    }
+
+    void selectTransactionSchema() {
+        final String version = getTransactionVersion();
+
+        if (dialect == null || version == null || transactionSetId == null) {
+            return;
+        }
+
+        Schema schema = schemaRegistry.lookup(dialect.getStandard(),
+                                              version,
+                                              transactionSetId,
+                                              interchangeSender,
+                                              interchangeReceiver);
+
+        if (schema != null) {
+            setTransactionSchema(schema);
+        }
+    }
+
     public boolean isBinaryElementLength() {
         return validator() != null && validator().isBinaryElementLength();
     }
@@ -349,6 +630,14 @@ public class ProxyEventHandler implements EventHandler {
                               String code,
                               Location savedLocation) {
 
+        if (isErrorSuppressed(event, error)) {
+            return;
+        }
+
+        if (error != EDIStreamValidationError.NONE) {
+            metrics.validationError(error);
+        }
+
         if (event == EDIStreamEvent.ELEMENT_OCCURRENCE_ERROR && eventCount > 0
                 && events[eventCount] == EDIStreamEvent.START_COMPOSITE) {
             switch (error) {
@@ -398,13 +687,74 @@ public class ProxyEventHandler implements EventHandler {
     }
 
     private void enqueueEvent(EDIStreamEvent event, EDIStreamValidationError error, CharSequence text, String code) {
+        if (isErrorSuppressed(event, error)) {
+            return;
+        }
+
+        if (error != EDIStreamValidationError.NONE) {
+            metrics.validationError(error);
+        }
+
         events[eventCount] = event;
         errorTypes[eventCount] = error;
         eventData[eventCount] = put(eventData[eventCount], text);
         referenceCodes[eventCount] = code;
+        locations[eventCount] = null;
         eventCount++;
     }
 
+    /**
+     * Count the error (if the event is an error) against the transaction and
+     * interchange limits. Once a limit is exceeded, a single summary error is
+     * enqueued in place of the error and all further errors in the scope of
+     * the limit are dropped.
+     *
+     * @return true if the event must not be enqueued, otherwise false
+     */
+    private boolean isErrorSuppressed(EDIStreamEvent event, EDIStreamValidationError error) {
+        switch (event) {
+        case SEGMENT_ERROR:
+        case ELEMENT_DATA_ERROR:
+        case ELEMENT_OCCURRENCE_ERROR:
+            break;
+        default:
+            return false;
+        }
+
+        switch (error) {
+        case TRANSACTION_ERROR_LIMIT_EXCEEDED:
+        case INTERCHANGE_ERROR_LIMIT_EXCEEDED:
+            return false;
+        default:
+            break;
+        }
+
+        if (interchangeErrorsSkipped || (transaction && transactionErrorsSkipped)) {
+            return true;
+        }
+
+        if (interchangeErrors++ == interchangeErrorLimit) {
+            interchangeErrorsSkipped = true;
+            transactionErrorsSkipped = transaction;
+            enqueueEvent(EDIStreamEvent.SEGMENT_ERROR,
+                         EDIStreamValidationError.INTERCHANGE_ERROR_LIMIT_EXCEEDED,
+                         segmentHolder,
+                         null);
+            return true;
+        }
+
+        if (transaction && transactionErrors++ == transactionErrorLimit) {
+            transactionErrorsSkipped = true;
+            enqueueEvent(EDIStreamEvent.SEGMENT_ERROR,
+                         EDIStreamValidationError.TRANSACTION_ERROR_LIMIT_EXCEEDED,
+                         segmentHolder,
+                         null);
+            return true;
+        }
+
+        return false;
+    }
+
     private static CharBuffer put(CharBuffer buffer, CharArraySequence holder) {
         final int length = holder != null ? holder.length() : 50;
 
@@ -54,11 +54,19 @@ class NumericValidator extends ElementValidator {
         }
 
         try {
+            int offset = 0;
+
+            if (value.length() > 0 && value.charAt(0) == '-') {
+                // Padding follows the sign
+                result.append('-');
+                offset = 1;
+            }
+
             for (long i = length, min = element.getMinLength(); i < min; i++) {
                 result.append('0');
             }
 
-            result.append(value);
+            result.append(value, offset, value.length());
         } catch (IOException e) {
             throw new EDIException(e);
         }
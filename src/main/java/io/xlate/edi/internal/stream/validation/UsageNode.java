@@ -16,6 +16,7 @@
 package io.xlate.edi.internal.stream.validation;
 
 import io.xlate.edi.internal.stream.tokenization.Dialect;
+import io.xlate.edi.internal.stream.tokenization.EDIException;
 import io.xlate.edi.schema.EDIComplexType;
 import io.xlate.edi.schema.EDIReference;
 import io.xlate.edi.schema.EDISimpleType;
@@ -33,7 +34,11 @@ class UsageNode {
     private final ElementValidator validator;
     private final UsageNode parent;
     private int siblingIndex;
-    private final List<UsageNode> children = new ArrayList<>();
+    /*
+     * Built on first use, so the types of structures never reached in the
+     * input need not be resolved (see SchemaFactory.LAZY_TYPE_RESOLUTION)
+     */
+    private List<UsageNode> children;
     private int usageCount;
 
     UsageNode(UsageNode parent, EDIReference link, int siblingIndex) {
@@ -65,11 +70,34 @@ class UsageNode {
     }
 
     List<UsageNode> getChildren() {
+        if (children == null) {
+            children = buildChildren();
+        }
+
         return children;
     }
 
+    private List<UsageNode> buildChildren() {
+        EDIType referencedNode = link.getReferencedType();
+
+        if (!(referencedNode instanceof EDIComplexType)) {
+            return Collections.emptyList();
+        }
+
+        List<EDIReference> references = ((EDIComplexType) referencedNode).getReferences();
+        List<UsageNode> nodes = new ArrayList<>(references.size());
+        int childIndex = -1;
+
+        for (EDIReference child : references) {
+            nodes.add(new UsageNode(this, child, ++childIndex));
+        }
+
+        return nodes;
+    }
+
     UsageNode getChild(int index) {
-        return (index < children.size()) ? children.get(index) : null;
+        List<UsageNode> nodes = getChildren();
+        return (index < nodes.size()) ? nodes.get(index) : null;
     }
 
     String getId() {
@@ -105,6 +133,19 @@ class UsageNode {
         validator.validate(dialect, element, value, errors);
     }
 
+    void format(Dialect dialect, CharSequence value, Appendable result) throws EDIException {
+        if (validator == null) {
+            throw new UnsupportedOperationException("simple type only");
+        }
+
+        final EDISimpleType element = (EDISimpleType) link.getReferencedType();
+        validator.format(dialect, element, value, result);
+    }
+
+    boolean isFormattable() {
+        return validator != null;
+    }
+
     List<EDISyntaxRule> getSyntaxRules() {
         EDIType referencedNode = link.getReferencedType();
 
@@ -153,12 +194,14 @@ class UsageNode {
     }
 
     void resetChildren() {
-        children.forEach(UsageNode::reset);
+        if (children != null) {
+            children.forEach(UsageNode::reset);
+        }
     }
 
     private UsageNode getSibling(int index) {
-        return parent != null && parent.children.size() > index
-                ? parent.children.get(index)
+        return parent != null && parent.getChildren().size() > index
+                ? parent.getChildren().get(index)
                 : null;
     }
 
@@ -171,11 +214,12 @@ class UsageNode {
     }
 
     public UsageNode getFirstChild() {
-        return (!children.isEmpty()) ? children.get(0) : null;
+        List<UsageNode> nodes = getChildren();
+        return (!nodes.isEmpty()) ? nodes.get(0) : null;
     }
 
     UsageNode getChildById(CharSequence id) {
-        return children.stream()
+        return getChildren().stream()
                        .filter(c -> c.getId().contentEquals(id))
                        .findFirst()
                        .orElse(null);
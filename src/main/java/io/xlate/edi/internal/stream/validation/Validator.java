@@ -20,6 +20,7 @@ import java.util.List;
 
 import io.xlate.edi.internal.stream.StaEDIStreamLocation;
 import io.xlate.edi.internal.stream.tokenization.Dialect;
+import io.xlate.edi.internal.stream.tokenization.EDIException;
 import io.xlate.edi.internal.stream.tokenization.ElementDataHandler;
 import io.xlate.edi.internal.stream.tokenization.ValidationEventHandler;
 import io.xlate.edi.schema.EDIComplexType;
@@ -29,6 +30,7 @@ import io.xlate.edi.schema.EDISyntaxRule;
 import io.xlate.edi.schema.EDIType;
 import io.xlate.edi.schema.Schema;
 import io.xlate.edi.stream.EDIStreamValidationError;
+import io.xlate.edi.stream.EDIValidationLevel;
 import io.xlate.edi.stream.Location;
 
 public class Validator {
@@ -36,6 +38,7 @@ public class Validator {
     private Schema containerSchema;
     private Schema schema;
     private final UsageNode root;
+    private final boolean validateValues;
 
     private boolean segmentExpected;
     private UsageNode segment;
@@ -50,8 +53,17 @@ public class Validator {
     private boolean complete = false;
 
     public Validator(Schema schema, Schema containerSchema) {
+        this(schema, containerSchema, EDIValidationLevel.FULL);
+    }
+
+    public Validator(Schema schema, Schema containerSchema, EDIValidationLevel level) {
         this.schema = schema;
         this.containerSchema = containerSchema;
+        /*
+         * Element values and syntax rules are only checked at the FULL level.
+         * Structure validation (segments, loops, occurrences) is always done.
+         */
+        this.validateValues = level == EDIValidationLevel.FULL;
         root = buildTree(schema.getMainLoop());
         correctSegment = segment = root.getFirstChild();
     }
@@ -102,31 +114,8 @@ public class Validator {
     }
 
     private static UsageNode buildTree(final EDIComplexType root) {
-        return buildTree(null, referenceOf(root), -1);
-    }
-
-    private static UsageNode buildTree(UsageNode parent, EDIReference link, int index) {
-
-        EDIType referencedNode = link.getReferencedType();
-
-        UsageNode node = new UsageNode(parent, link, index);
-
-        if (!(referencedNode instanceof EDIComplexType)) {
-            return node;
-        }
-
-        EDIComplexType structure = (EDIComplexType) referencedNode;
-
-        List<? extends EDIReference> children = structure.getReferences();
-        List<UsageNode> childUsages = node.getChildren();
-
-        int childIndex = -1;
-
-        for (EDIReference child : children) {
-            childUsages.add(buildTree(node, child, ++childIndex));
-        }
-
-        return node;
+        // Child nodes are built as the tree is traversed
+        return new UsageNode(null, referenceOf(root), -1);
     }
 
     private UsageNode startLoop(UsageNode loop) {
@@ -151,6 +140,22 @@ public class Validator {
         }
     }
 
+    /**
+     * Notify the handler of the end of all loops currently open (i.e. loops
+     * containing the most recent segment).
+     *
+     * @param handler the handler to receive the loop end events
+     */
+    public void completeLoops(ValidationEventHandler handler) {
+        UsageNode node = correctSegment;
+
+        while (depth > 1) {
+            node = node.getParent();
+            handler.loopEnd(node.getCode());
+            depth--;
+        }
+    }
+
     public void validateSegment(ValidationEventHandler handler, CharSequence tag) {
         segmentExpected = true;
 
@@ -400,6 +405,69 @@ public class Validator {
         return composite != null;
     }
 
+    /*
+     * Find the simple element (or component) at the position in the current
+     * segment without updating its usage.
+     */
+    private UsageNode peekElement(StaEDIStreamLocation position) {
+        int elementIndex = position.getElementPosition() - 1;
+        int componentIndex = position.getComponentPosition() - 1;
+
+        if (!segmentExpected || segment == null || elementIndex < 0) {
+            return null;
+        }
+
+        UsageNode node = segment.getChild(elementIndex);
+
+        if (node != null && node.isNodeType(EDIType.Type.COMPOSITE)) {
+            node = node.getChild(Math.max(componentIndex, 0));
+        } else if (componentIndex > 0) {
+            return null;
+        }
+
+        return node != null && node.isFormattable() ? node : null;
+    }
+
+    /**
+     * Get the type of the simple element (or component) at the position in
+     * the current segment.
+     *
+     * @param position location of the element
+     * @return the type of the element, or null when not known
+     */
+    public EDISimpleType getElementType(StaEDIStreamLocation position) {
+        UsageNode node = peekElement(position);
+        return node != null ? (EDISimpleType) node.getReferencedType() : null;
+    }
+
+    /**
+     * Format the value for the simple element (or component) at the position
+     * in the current segment, e.g. zero-padding numeric values to the minimum
+     * length of the element.
+     *
+     * @param dialect the dialect of the interchange
+     * @param position location of the element
+     * @param value the value to format
+     * @param result receives the formatted value
+     * @return true if the value was formatted, false if the element is not
+     *         known or the value could not be formatted for it
+     */
+    public boolean formatElement(Dialect dialect, StaEDIStreamLocation position, CharSequence value, Appendable result) {
+        UsageNode node = peekElement(position);
+
+        if (node == null) {
+            return false;
+        }
+
+        try {
+            node.format(dialect, value, result);
+            return true;
+        } catch (EDIException e) {
+            // Left to validation to report
+            return false;
+        }
+    }
+
     public boolean validateElement(Dialect dialect, StaEDIStreamLocation position, CharSequence value) {
         if (!segmentExpected) {
             return true;
@@ -477,7 +545,9 @@ public class Validator {
                 }
             }
 
-            this.element.validate(dialect, value, elementErrors);
+            if (validateValues) {
+                this.element.validate(dialect, value, elementErrors);
+            }
         } else {
             if (!element.hasMinimumUsage()) {
                 elementErrors.add(EDIStreamValidationError.REQUIRED_DATA_ELEMENT_MISSING);
@@ -521,6 +591,10 @@ public class Validator {
             handler.elementData(null, 0, 0);
         }
 
+        if (!validateValues) {
+            return;
+        }
+
         for (EDISyntaxRule rule : structure.getSyntaxRules()) {
             final EDISyntaxRule.Type ruleType = rule.getType();
             SyntaxValidator validator = SyntaxValidator.getInstance(ruleType);
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import io.xlate.edi.internal.schema.SchemaUtils;
+
+/**
+ * Command line tool to compile XML schemas to the compiled (binary) form read
+ * by {@link SchemaFactory#createCompiledSchema(InputStream)}. Intended to be
+ * run at build time, e.g. with the exec-maven-plugin in the
+ * <code>process-classes</code> phase, so that invalid schemas fail the build
+ * and the schemas can be loaded at runtime without an XML parser.
+ *
+ * <pre>
+ * java -cp staedi.jar io.xlate.edi.schema.SchemaCompiler &lt;directory&gt; [&lt;schema.xml&gt;...]
+ * </pre>
+ *
+ * Each schema path is resolved against the directory and its compiled form
+ * is written next to it, with the <code>.xml</code> extension replaced by
+ * <code>.bin</code>. When no schema paths are given, the schemas listed in
+ * the <code>staedi-control-index.properties</code> file of the directory are
+ * compiled. Control schemas listed in an index on the class path are loaded
+ * from their compiled form when it is present.
+ *
+ * @since 1.1
+ */
+public final class SchemaCompiler {
+
+    static final String CONTROL_INDEX = "staedi-control-index.properties";
+
+    private SchemaCompiler() {
+    }
+
+    /**
+     * Compile the schemas given by the arguments.
+     *
+     * @param args
+     *            the directory containing the schemas followed by the paths of
+     *            the schemas to compile, relative to the directory
+     * @throws IOException
+     *             when a schema or the control index can not be read, or a
+     *             compiled schema can not be written
+     * @throws EDISchemaException
+     *             when a schema is not valid
+     */
+    public static void main(String[] args) throws IOException, EDISchemaException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: SchemaCompiler <directory> [<schema.xml>...]");
+        }
+
+        Path directory = Paths.get(args[0]);
+        List<String> sources = new ArrayList<>();
+
+        for (int i = 1; i < args.length; i++) {
+            sources.add(args[i]);
+        }
+
+        if (sources.isEmpty()) {
+            sources.addAll(readControlIndex(directory.resolve(CONTROL_INDEX)));
+        }
+
+        SchemaFactory factory = SchemaFactory.newFactory();
+
+        for (String path : sources) {
+            String source = path.startsWith("/") ? path.substring(1) : path;
+            compile(factory, directory.resolve(source), directory.resolve(SchemaUtils.compiledPath(source)));
+        }
+    }
+
+    static Set<String> readControlIndex(Path index) throws IOException {
+        Properties controlIndex = new Properties();
+
+        try (InputStream stream = Files.newInputStream(index)) {
+            controlIndex.load(stream);
+        }
+
+        // Several versions may share a schema, compile each once
+        Set<String> sources = new TreeSet<>();
+
+        for (String version : controlIndex.stringPropertyNames()) {
+            sources.add(controlIndex.getProperty(version));
+        }
+
+        return sources;
+    }
+
+    static void compile(SchemaFactory factory, Path source, Path target) throws IOException, EDISchemaException {
+        final Schema schema;
+
+        try (InputStream stream = Files.newInputStream(source)) {
+            schema = factory.createSchema(stream);
+        } catch (EDISchemaException e) {
+            throw new EDISchemaException("Invalid schema " + source + ": " + e.getMessage(), e);
+        }
+
+        try (OutputStream stream = Files.newOutputStream(target)) {
+            factory.writeCompiledSchema(schema, stream);
+        }
+    }
+}
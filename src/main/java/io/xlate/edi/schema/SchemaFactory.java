@@ -16,12 +16,74 @@
 package io.xlate.edi.schema;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 
 import io.xlate.edi.internal.schema.StaEDISchemaFactory;
 
 public interface SchemaFactory {
 
+    /**
+     * Maximum number of schemas retained by the factory's schema cache. Schemas
+     * created from a URL are cached by the URL, schemas created from a stream
+     * are cached by a hash of the stream's content. Repeated calls to
+     * createSchema for the same source return the same immutable Schema. The
+     * least recently used schema is evicted when the limit is exceeded. A
+     * value of zero disables the cache. Default 0, each call to createSchema
+     * loads the schema anew.
+     *
+     * @since 1.1
+     */
+    public static final String SCHEMA_CACHE_MAX_ENTRIES = "io.xlate.edi.schema.SCHEMA_CACHE_MAX_ENTRIES";
+
+    /**
+     * Maximum total weight of the schemas retained by the factory's schema
+     * cache, where the weight of a schema is the number of types it declares.
+     * Default is unlimited.
+     *
+     * @since 1.1
+     */
+    public static final String SCHEMA_CACHE_MAX_WEIGHT = "io.xlate.edi.schema.SCHEMA_CACHE_MAX_WEIGHT";
+
+    /**
+     * Read-only property giving the number of createSchema calls answered from
+     * the schema cache (Long).
+     *
+     * @since 1.1
+     */
+    public static final String SCHEMA_CACHE_HITS = "io.xlate.edi.schema.SCHEMA_CACHE_HITS";
+
+    /**
+     * Read-only property giving the number of createSchema calls that loaded
+     * a schema not present in the schema cache (Long).
+     *
+     * @since 1.1
+     */
+    public static final String SCHEMA_CACHE_MISSES = "io.xlate.edi.schema.SCHEMA_CACHE_MISSES";
+
+    /**
+     * When set to true, schemas created by createCompiledSchema build each
+     * type the first time it is used (looked up by name or reached through a
+     * reference) rather than all types up front. Memory use and load time
+     * then scale with the types a message actually references, which
+     * benefits very large directory-style schemas. When combined with
+     * {@link #SHARE_TYPES}, only element types are shared. Default false.
+     *
+     * @since 1.1
+     */
+    public static final String LAZY_TYPE_RESOLUTION = "io.xlate.edi.schema.LAZY_TYPE_RESOLUTION";
+
+    /**
+     * When set to true, element, composite and segment types that are
+     * structurally identical across the schemas created by this factory are
+     * shared as a single instance, and their identifiers and code values are
+     * interned. Reduces heap use when many similar schemas are loaded.
+     * Default false.
+     *
+     * @since 1.1
+     */
+    public static final String SHARE_TYPES = "io.xlate.edi.schema.SHARE_TYPES";
+
     /**
      * Create a new instance of the factory. This static method creates a new
      * factory instance.
@@ -39,6 +101,41 @@ public interface SchemaFactory {
 
     public abstract Schema createSchema(InputStream stream) throws EDISchemaException;
 
+    /**
+     * Create a schema from the compiled (binary) form previously written by
+     * {@link #writeCompiledSchema(Schema, OutputStream)}. Compiled schemas are
+     * read sequentially and their references are not re-validated, making
+     * this considerably faster than parsing the XML form of the schema.
+     *
+     * @param stream
+     *            - the stream containing the compiled schema
+     * @return the schema
+     * @throws EDISchemaException
+     *             if the stream can not be read or does not contain a
+     *             compiled schema of a supported version
+     *
+     * @since 1.1
+     */
+    public abstract Schema createCompiledSchema(InputStream stream) throws EDISchemaException;
+
+    /**
+     * Write the compiled (binary) form of a schema created by this factory.
+     * The stream is flushed but not closed.
+     *
+     * @param schema
+     *            - the schema to write
+     * @param stream
+     *            - the stream to receive the compiled schema
+     * @throws EDISchemaException
+     *             if the stream can not be written
+     * @throws IllegalArgumentException
+     *             if the schema was not created by this factory's
+     *             implementation
+     *
+     * @since 1.1
+     */
+    public abstract void writeCompiledSchema(Schema schema, OutputStream stream) throws EDISchemaException;
+
     /**
      * Query the set of properties that this factory supports.
      *
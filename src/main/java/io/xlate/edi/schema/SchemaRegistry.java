@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.schema;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of transaction schemas, keyed by standard, version, transaction
+ * set identifier and optionally the interchange sender and receiver. When
+ * set on an EDIInputFactory using
+ * {@link io.xlate.edi.stream.EDIInputFactory#EDI_SCHEMA_REGISTRY}, readers
+ * select the schema of each transaction from the registry automatically.
+ * A schema set by the application with
+ * {@link io.xlate.edi.stream.EDIStreamReader#setTransactionSchema(Schema)}
+ * takes precedence over the registry.
+ *
+ * The version of a transaction is:
+ * <ul>
+ * <li>X12: the version/release/industry identifier of the functional group
+ * (GS08), e.g. <code>004010</code>, or ST03 when the transaction is not
+ * enclosed in a group
+ * <li>EDIFACT: the message version and release numbers (UNH02-2 and
+ * UNH02-3) concatenated, e.g. <code>D96A</code>
+ * </ul>
+ *
+ * Instances are safe for use by multiple threads.
+ *
+ * @since 1.1
+ */
+public class SchemaRegistry {
+
+    private static final char SEPARATOR = '\u001F';
+
+    private final ConcurrentMap<String, Schema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Register a schema for a transaction from any sender to any receiver.
+     *
+     * @param standard
+     *            the standard, e.g. X12 or EDIFACT
+     * @param version
+     *            the version of the transaction
+     * @param transactionSetId
+     *            the transaction set identifier (X12 ST01, EDIFACT UNH02-1)
+     * @param schema
+     *            the schema to use for the transaction
+     */
+    public void register(String standard, String version, String transactionSetId, Schema schema) {
+        register(standard, version, transactionSetId, null, null, schema);
+    }
+
+    /**
+     * Register a schema for a transaction exchanged between a specific sender
+     * and receiver. Partner-specific schemas are preferred over schemas
+     * registered without a sender and receiver.
+     *
+     * @param standard
+     *            the standard, e.g. X12 or EDIFACT
+     * @param version
+     *            the version of the transaction
+     * @param transactionSetId
+     *            the transaction set identifier (X12 ST01, EDIFACT UNH02-1)
+     * @param sender
+     *            the interchange sender (X12 ISA06 without padding, EDIFACT
+     *            UNB02-1)
+     * @param receiver
+     *            the interchange receiver (X12 ISA08 without padding,
+     *            EDIFACT UNB03-1)
+     * @param schema
+     *            the schema to use for the transaction
+     */
+    public void register(String standard,
+                         String version,
+                         String transactionSetId,
+                         String sender,
+                         String receiver,
+                         Schema schema) {
+        Objects.requireNonNull(schema, "schema");
+        schemas.put(key(standard, version, transactionSetId, sender, receiver), schema);
+    }
+
+    /**
+     * Remove the schema registered for the transaction, sender and receiver.
+     *
+     * @return the schema previously registered, or null if none was
+     *         registered
+     */
+    public Schema unregister(String standard,
+                             String version,
+                             String transactionSetId,
+                             String sender,
+                             String receiver) {
+        return schemas.remove(key(standard, version, transactionSetId, sender, receiver));
+    }
+
+    /**
+     * Find the schema for a transaction, preferring a schema registered for
+     * the sender and receiver over one registered for any partner.
+     *
+     * @return the schema registered for the transaction, or null if no
+     *         schema is registered
+     */
+    public Schema lookup(String standard,
+                         String version,
+                         String transactionSetId,
+                         String sender,
+                         String receiver) {
+        Schema schema = null;
+
+        if (sender != null || receiver != null) {
+            schema = schemas.get(key(standard, version, transactionSetId, sender, receiver));
+        }
+
+        if (schema == null) {
+            schema = schemas.get(key(standard, version, transactionSetId, null, null));
+        }
+
+        return schema;
+    }
+
+    public int size() {
+        return schemas.size();
+    }
+
+    static String key(String standard, String version, String transactionSetId, String sender, String receiver) {
+        Objects.requireNonNull(standard, "standard");
+        Objects.requireNonNull(version, "version");
+        Objects.requireNonNull(transactionSetId, "transactionSetId");
+
+        StringBuilder key = new StringBuilder(64);
+        key.append(standard).append(SEPARATOR);
+        key.append(version).append(SEPARATOR);
+        key.append(transactionSetId).append(SEPARATOR);
+
+        if (sender != null) {
+            key.append(sender);
+        }
+
+        key.append(SEPARATOR);
+
+        if (receiver != null) {
+            key.append(receiver);
+        }
+
+        return key.toString();
+    }
+}
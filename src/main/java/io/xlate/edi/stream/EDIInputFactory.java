@@ -16,14 +16,88 @@
 package io.xlate.edi.stream;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
 
+import io.xlate.edi.internal.schema.SchemaUtils;
 import io.xlate.edi.internal.stream.StaEDIInputFactory;
+import io.xlate.edi.schema.EDISchemaException;
 import io.xlate.edi.schema.Schema;
 
 public abstract class EDIInputFactory {
 
     public static final String EDI_VALIDATE_CONTROL_STRUCTURE = "io.xlate.edi.stream.EDI_VALIDATE_CONTROL_STRUCTURE";
 
+    /**
+     * The degree of validation performed by readers created by this factory,
+     * one of the constants of {@link EDIValidationLevel} (or the name of
+     * one). When not set, {@link EDIValidationLevel#FULL} validation is
+     * performed.
+     *
+     * @since 1.1
+     */
+    public static final String EDI_VALIDATION_LEVEL = "io.xlate.edi.stream.EDI_VALIDATION_LEVEL";
+
+    /**
+     * The maximum number of validation errors reported for a single
+     * transaction/message. When the limit is exceeded, a single
+     * {@link EDIStreamValidationError#TRANSACTION_ERROR_LIMIT_EXCEEDED} event
+     * is reported and validation of the remainder of the transaction is
+     * skipped. Not limited by default.
+     *
+     * @since 1.1
+     */
+    public static final String EDI_TRANSACTION_ERROR_LIMIT = "io.xlate.edi.stream.EDI_TRANSACTION_ERROR_LIMIT";
+
+    /**
+     * The maximum number of validation errors reported for an interchange.
+     * When the limit is exceeded, a single
+     * {@link EDIStreamValidationError#INTERCHANGE_ERROR_LIMIT_EXCEEDED} event
+     * is reported and no further errors are reported for the interchange.
+     * Not limited by default.
+     *
+     * @since 1.1
+     */
+    public static final String EDI_INTERCHANGE_ERROR_LIMIT = "io.xlate.edi.stream.EDI_INTERCHANGE_ERROR_LIMIT";
+
+    /**
+     * When set to true, the reader will throw an {@link EDIStreamException}
+     * rather than return the event reporting that an error limit has been
+     * exceeded. Reading may not continue after the exception. Default is
+     * false.
+     *
+     * @since 1.1
+     */
+    public static final String EDI_ERROR_LIMIT_ABORT = "io.xlate.edi.stream.EDI_ERROR_LIMIT_ABORT";
+
+    /**
+     * A {@link io.xlate.edi.schema.SchemaRegistry SchemaRegistry} consulted by
+     * the reader to select the schema of each transaction automatically.
+     * Not set by default.
+     *
+     * @since 1.1
+     */
+    public static final String EDI_SCHEMA_REGISTRY = "io.xlate.edi.stream.EDI_SCHEMA_REGISTRY";
+
+    /**
+     * An {@link EDIStreamMetrics} listener notified of the bytes, segments,
+     * transactions and validation errors read, and the time spent tokenizing
+     * and validating. Not set by default.
+     *
+     * @since 1.1
+     */
+    public static final String EDI_METRICS = "io.xlate.edi.stream.EDI_METRICS";
+
+    /**
+     * When set to true, JSON writers created by this factory write numeric
+     * and decimal elements described by the schema in use as JSON numbers
+     * rather than strings. Values with leading zeros, e.g. control numbers,
+     * remain strings. Default is false.
+     *
+     * @since 1.1
+     */
+    public static final String JSON_TYPED_NUMBERS = "io.xlate.edi.stream.JSON_TYPED_NUMBERS";
+
     /**
      * Create a new instance of the factory. This static method creates a new
      * factory instance.
@@ -37,6 +111,24 @@ public abstract class EDIInputFactory {
         return new StaEDIInputFactory();
     }
 
+    /**
+     * Load the control schemas used for validation of interchange, group, and
+     * transaction envelopes (see {@link #EDI_VALIDATE_CONTROL_STRUCTURE}) for
+     * all supported standards and versions. Control schemas are otherwise
+     * loaded when the first interchange of each version is read.
+     *
+     * This method may be called at application startup to avoid the cost of
+     * loading the schemas while reading.
+     *
+     * @throws EDISchemaException
+     *             when a control schema can not be loaded
+     *
+     * @since 1.1
+     */
+    public static void preloadControlSchemas() throws EDISchemaException {
+        SchemaUtils.preloadControlSchemas();
+    }
+
     /**
      * Creates a new {@link EDIStreamReader} using the given {@link InputStream} (with default encoding).
      *
@@ -98,6 +190,69 @@ public abstract class EDIInputFactory {
      */
     public abstract EDIStreamReader createFilteredReader(EDIStreamReader reader, EDIStreamFilter filter);
 
+    /**
+     * Creates a new {@link EDIJsonWriter} that writes the events of the given
+     * reader as JSON to the {@link OutputStream}, encoded as UTF-8.
+     *
+     * @param reader the reader providing the events to write
+     * @param stream {@link OutputStream} to which the JSON will be written
+     * @return a new {@link EDIJsonWriter} for the reader
+     *
+     * @since 1.1
+     */
+    public abstract EDIJsonWriter createJsonWriter(EDIStreamReader reader, OutputStream stream);
+
+    /**
+     * Creates a new {@link EDIJsonWriter} that writes the events of the given
+     * reader as JSON to the {@link Writer}.
+     *
+     * @param reader the reader providing the events to write
+     * @param writer {@link Writer} to which the JSON will be written
+     * @return a new {@link EDIJsonWriter} for the reader
+     *
+     * @since 1.1
+     */
+    public abstract EDIJsonWriter createJsonWriter(EDIStreamReader reader, Writer writer);
+
+    /**
+     * Creates a new {@link EDITransactionBinder} that binds transactions to
+     * instances of the given annotated class. The classes are annotated with
+     * JAXB annotations, requiring the JAXB API on the class path.
+     *
+     * @param <T> the type of the bound transactions
+     * @param type the annotated class of the transaction
+     * @return a new {@link EDITransactionBinder} for the class
+     * @throws IllegalArgumentException when the class (or a class of its
+     *             fields) can not be bound
+     * @throws UnsupportedOperationException when the JAXB API
+     *             (<code>javax.xml.bind</code>), an optional dependency, is
+     *             not available
+     *
+     * @since 1.1
+     */
+    public abstract <T> EDITransactionBinder<T> createTransactionBinder(Class<T> type);
+
+    /**
+     * Creates a new {@link EDITransactionBinder} that binds transactions to
+     * instances of the given annotated class, setting the transaction schema
+     * on the reader at the start of each transaction so that the
+     * transaction's loops are reported.
+     *
+     * @param <T> the type of the bound transactions
+     * @param type the annotated class of the transaction
+     * @param transactionSchema schema of the transaction, or null to use the
+     *            reader's configuration
+     * @return a new {@link EDITransactionBinder} for the class
+     * @throws IllegalArgumentException when the class (or a class of its
+     *             fields) can not be bound
+     * @throws UnsupportedOperationException when the JAXB API
+     *             (<code>javax.xml.bind</code>), an optional dependency, is
+     *             not available
+     *
+     * @since 1.1
+     */
+    public abstract <T> EDITransactionBinder<T> createTransactionBinder(Class<T> type, Schema transactionSchema);
+
     /**
      * Query the set of properties that this factory supports.
      *
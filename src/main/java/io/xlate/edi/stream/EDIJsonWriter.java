@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.stream;
+
+import java.io.IOException;
+
+/**
+ * Writes the events of an {@link EDIStreamReader} as a JSON document followed
+ * by a new line. Output is written as the events are read, holding at most the
+ * value of a single element in memory. Instances are obtained from
+ * {@link EDIInputFactory#createJsonWriter(EDIStreamReader, java.io.Writer)}.
+ *
+ * <ul>
+ * <li>the interchange, groups, transactions and loops are objects with a
+ * <code>type</code>, a <code>name</code> (the loop code when a schema is in
+ * use) and a <code>data</code> array of their segments and nested loops
+ * <li>segments are objects with a <code>type</code> of <code>segment</code>,
+ * a <code>name</code> of the segment tag and an <code>elements</code> object
+ * <li>elements are keyed by the segment tag and a two digit position, e.g.
+ * <code>SEG01</code>; composites are objects of components keyed by the
+ * element name and the component position, e.g. <code>SEG01-1</code>
+ * <li>empty elements and components are omitted; repeated elements are
+ * arrays of their occurrences
+ * <li>binary elements are Base64 encoded strings
+ * <li>when {@link EDIInputFactory#JSON_TYPED_NUMBERS} is enabled, numeric and
+ * decimal elements described by the schema are written as JSON numbers,
+ * using the decimal mark of the interchange, unless they have leading zeros
+ * </ul>
+ *
+ * Validation errors reported by the reader are not written.
+ *
+ * @since 1.1
+ */
+public interface EDIJsonWriter {
+
+    /**
+     * Read the remaining events of the reader and write them as JSON,
+     * starting with the current event when it is the start of an
+     * interchange. The output is flushed, but not closed, when the reader has
+     * no further events.
+     *
+     * @throws EDIStreamException
+     *             when the EDI input can not be read
+     * @throws IOException
+     *             when the JSON output can not be written
+     */
+    void write() throws EDIStreamException, IOException;
+
+    /**
+     * Write the current event of the reader. Allows the application to
+     * advance the reader itself, e.g. to set the schema of each transaction
+     * as it begins.
+     *
+     * @throws IOException
+     *             when the JSON output can not be written
+     */
+    void writeEvent() throws IOException;
+
+    /**
+     * Flush any output buffered by the writer.
+     *
+     * @throws IOException
+     *             when the JSON output can not be written
+     */
+    void flush() throws IOException;
+}
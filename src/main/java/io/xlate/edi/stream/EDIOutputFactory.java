@@ -16,6 +16,7 @@
 package io.xlate.edi.stream;
 
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 import io.xlate.edi.internal.stream.StaEDIOutputFactory;
 
@@ -23,6 +24,44 @@ public abstract class EDIOutputFactory {
 
     public static final String PRETTY_PRINT = "io.xlate.edi.stream.PRETTY_PRINT";
 
+    /**
+     * When set to true, delimiters and release characters found in element
+     * data are preceded by the release character as the data is written,
+     * rather than causing an {@link IllegalArgumentException}. Applies only
+     * when the dialect defines a release character (e.g. EDIFACT). Default is
+     * false.
+     *
+     * @since 1.1
+     */
+    public static final String ESCAPE_DELIMITERS = "io.xlate.edi.stream.ESCAPE_DELIMITERS";
+
+    /**
+     * A {@link Character} written in place of any delimiter found in element
+     * data that is not escaped with a release character (e.g. X12). When not
+     * set, element data containing a delimiter causes an
+     * {@link IllegalArgumentException}.
+     *
+     * @since 1.1
+     */
+    public static final String DELIMITER_SUBSTITUTE = "io.xlate.edi.stream.DELIMITER_SUBSTITUTE";
+
+    /**
+     * When set to true, writers created for a {@link WritableByteChannel}
+     * encode their output into a direct {@link java.nio.ByteBuffer ByteBuffer}.
+     * Default is false.
+     *
+     * @since 1.1
+     */
+    public static final String DIRECT_BUFFER = "io.xlate.edi.stream.DIRECT_BUFFER";
+
+    /**
+     * An {@link EDIStreamMetrics} listener notified of the bytes, segments
+     * and transactions written. Not set by default.
+     *
+     * @since 1.1
+     */
+    public static final String METRICS = "io.xlate.edi.stream.METRICS";
+
     /**
      * Create a new instance of the factory. This static method creates a new
      * factory instance.
@@ -59,6 +98,37 @@ public abstract class EDIOutputFactory {
     public abstract EDIStreamWriter createEDIStreamWriter(OutputStream stream,
                                                           String encoding) throws EDIStreamException;
 
+    /**
+     * Create a new EDIStreamWriter that writes to a channel. Output is
+     * encoded into a buffer owned by the writer and written to the channel
+     * in bulk.
+     *
+     * @param channel
+     *            - the channel to write to
+     * @return the writer instance
+     *
+     * @since 1.1
+     */
+    public abstract EDIStreamWriter createEDIStreamWriter(WritableByteChannel channel);
+
+    /**
+     * Create a new EDIStreamWriter that writes to a channel. Output is
+     * encoded into a buffer owned by the writer and written to the channel
+     * in bulk.
+     *
+     * @param channel
+     *            - the channel to write to
+     * @param encoding
+     *            - the encoding to use
+     * @return the writer instance
+     * @throws EDIStreamException
+     *  when encoding is not supported
+     *
+     * @since 1.1
+     */
+    public abstract EDIStreamWriter createEDIStreamWriter(WritableByteChannel channel,
+                                                          String encoding) throws EDIStreamException;
+
     /**
      * Query the set of properties that this factory supports.
      *
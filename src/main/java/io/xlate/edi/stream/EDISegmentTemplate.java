@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.stream;
+
+/**
+ * A segment layout compiled by an {@link EDIStreamWriter} for repeated use
+ * with {@link EDIStreamWriter#writeSegment(EDISegmentTemplate, CharSequence...)}.
+ * A template may only be used with the writer that compiled it.
+ *
+ * @since 1.1
+ */
+public interface EDISegmentTemplate {
+
+    /**
+     * Get the tag of the segment written by this template.
+     *
+     * @return the segment tag
+     */
+    String getTag();
+
+    /**
+     * Get the number of values accepted by this template, i.e. the total
+     * number of simple elements and components in the layout.
+     *
+     * @return the number of values
+     */
+    int getValueCount();
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.stream;
+
+/**
+ * Listener notified of the throughput of readers and writers, set on a
+ * factory using {@link EDIInputFactory#EDI_METRICS} or
+ * {@link EDIOutputFactory#METRICS}.
+ *
+ * Notifications are made once per segment, with the counters accumulated
+ * while the segment was processed, by the thread using the reader or writer.
+ * Implementations shared by multiple readers or writers must be safe for use
+ * by multiple threads and should return quickly.
+ *
+ * The trading partner of each notification is the interchange sender (ISA06
+ * or UNB02-1) for readers and the interchange receiver (ISA08 or UNB03-1) for
+ * writers, or null before it is known.
+ *
+ * @see InMemoryEDIStreamMetrics
+ *
+ * @since 1.1
+ */
+public interface EDIStreamMetrics {
+
+    /**
+     * Metrics listener ignoring all notifications. Readers and writers
+     * configured with this listener do not collect metrics.
+     */
+    EDIStreamMetrics NONE = new EDIStreamMetrics() {
+    };
+
+    /**
+     * A segment has been read.
+     *
+     * @param partner
+     *            the trading partner
+     * @param bytes
+     *            the number of bytes read, including delimiters
+     * @param lexingNanos
+     *            time spent tokenizing the segment, in nanoseconds
+     * @param validationNanos
+     *            time spent validating the segment, in nanoseconds
+     */
+    default void segmentRead(String partner, int bytes, long lexingNanos, long validationNanos) {
+    }
+
+    /**
+     * The trailer segment of a transaction has been read.
+     *
+     * @param partner
+     *            the trading partner
+     */
+    default void transactionRead(String partner) {
+    }
+
+    /**
+     * Validation errors have been reported for a segment read.
+     *
+     * @param partner
+     *            the trading partner
+     * @param error
+     *            the type of the errors
+     * @param count
+     *            the number of errors of the type in the segment
+     */
+    default void validationErrors(String partner, EDIStreamValidationError error, int count) {
+    }
+
+    /**
+     * A segment has been written.
+     *
+     * @param partner
+     *            the trading partner
+     * @param bytes
+     *            the number of bytes written, including delimiters
+     */
+    default void segmentWritten(String partner, int bytes) {
+    }
+
+    /**
+     * The trailer segment of a transaction has been written.
+     *
+     * @param partner
+     *            the trading partner
+     */
+    default void transactionWritten(String partner) {
+    }
+}
@@ -11,6 +11,8 @@ public enum EDIStreamValidationError {
     SEGMENT_NOT_IN_DEFINED_TRANSACTION_SET(EDIStreamEvent.SEGMENT_ERROR),
     SEGMENT_NOT_IN_PROPER_SEQUENCE(EDIStreamEvent.SEGMENT_ERROR),
     SEGMENT_HAS_DATA_ELEMENT_ERRORS(EDIStreamEvent.SEGMENT_ERROR),
+    TRANSACTION_ERROR_LIMIT_EXCEEDED(EDIStreamEvent.SEGMENT_ERROR),
+    INTERCHANGE_ERROR_LIMIT_EXCEEDED(EDIStreamEvent.SEGMENT_ERROR),
 
     REQUIRED_DATA_ELEMENT_MISSING(EDIStreamEvent.ELEMENT_OCCURRENCE_ERROR),
     CONDITIONAL_REQUIRED_DATA_ELEMENT_MISSING(EDIStreamEvent.ELEMENT_OCCURRENCE_ERROR),
@@ -16,7 +16,10 @@
 package io.xlate.edi.stream;
 
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
 
 import io.xlate.edi.schema.Schema;
 
@@ -111,12 +114,141 @@ public interface EDIStreamWriter {
 
     EDIStreamWriter writeElement(char[] text, int start, int end) throws EDIStreamException;
 
+    /**
+     * Write an element containing the digits of an integer value. When the
+     * element's type is known from a schema, the value is zero-padded to the
+     * minimum length of a numeric (N) element.
+     *
+     * @param value
+     *            the value to write
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the element
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeElement(long value) throws EDIStreamException;
+
+    /**
+     * Write an element containing a decimal value, rounded (half-up) to the
+     * given scale. When the element's type is known from a schema to be
+     * numeric (N), the decimal point is implied by the scale and only the
+     * digits are written, zero-padded to the minimum length of the element.
+     * Otherwise, the value is written with the decimal mark of the
+     * interchange.
+     *
+     * @param value
+     *            the value to write
+     * @param scale
+     *            the number of digits to the right of the decimal point
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the element
+     * @throws IllegalArgumentException
+     *             when the scale is negative
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeElement(BigDecimal value, int scale) throws EDIStreamException;
+
+    /**
+     * Write an element containing a date, formatted as CCYYMMDD or, when the
+     * element's type is known from a schema to have a maximum length less
+     * than 8, as YYMMDD.
+     *
+     * @param value
+     *            the value to write
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the element
+     * @throws IllegalArgumentException
+     *             when the year is not between 0 and 9999
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeElement(LocalDate value) throws EDIStreamException;
+
+    /**
+     * Write an element containing a time, formatted as HHMM followed by the
+     * seconds (SS) and hundredths of a second (dd) when they are not zero.
+     * When the element's type is known from a schema, the length is adjusted
+     * to be within the minimum and maximum length of the element.
+     *
+     * @param value
+     *            the value to write
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the element
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeElement(LocalTime value) throws EDIStreamException;
+
     EDIStreamWriter writeEmptyComponent() throws EDIStreamException;
 
     EDIStreamWriter writeComponent(CharSequence text) throws EDIStreamException;
 
     EDIStreamWriter writeComponent(char[] text, int start, int end) throws EDIStreamException;
 
+    /**
+     * Write a component containing the digits of an integer value.
+     *
+     * @param value
+     *            the value to write
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the component
+     *
+     * @see #writeElement(long)
+     * @since 1.1
+     */
+    EDIStreamWriter writeComponent(long value) throws EDIStreamException;
+
+    /**
+     * Write a component containing a decimal value, rounded (half-up) to the
+     * given scale.
+     *
+     * @param value
+     *            the value to write
+     * @param scale
+     *            the number of digits to the right of the decimal point
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the component
+     *
+     * @see #writeElement(BigDecimal, int)
+     * @since 1.1
+     */
+    EDIStreamWriter writeComponent(BigDecimal value, int scale) throws EDIStreamException;
+
+    /**
+     * Write a component containing a date.
+     *
+     * @param value
+     *            the value to write
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the component
+     *
+     * @see #writeElement(LocalDate)
+     * @since 1.1
+     */
+    EDIStreamWriter writeComponent(LocalDate value) throws EDIStreamException;
+
+    /**
+     * Write a component containing a time.
+     *
+     * @param value
+     *            the value to write
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the component
+     *
+     * @see #writeElement(LocalTime)
+     * @since 1.1
+     */
+    EDIStreamWriter writeComponent(LocalTime value) throws EDIStreamException;
+
     EDIStreamWriter writeElementData(CharSequence text) throws EDIStreamException;
 
     EDIStreamWriter writeElementData(char[] text, int start, int end) throws EDIStreamException;
@@ -126,4 +258,150 @@ public interface EDIStreamWriter {
     EDIStreamWriter writeBinaryData(byte[] text, int start, int end) throws EDIStreamException;
 
     EDIStreamWriter writeBinaryData(ByteBuffer buffer) throws EDIStreamException;
+
+    /**
+     * Write the trailer segment (SE or UNT) of the current transaction/message.
+     * The number of segments and the control number are those tracked by the
+     * writer since the transaction header (ST or UNH) was written.
+     *
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the segment
+     * @throws IllegalStateException
+     *             when no transaction has been started or a segment is
+     *             currently open
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeEndTransaction() throws EDIStreamException;
+
+    /**
+     * Write the trailer segment (GE or UNE) of the current functional group.
+     * The number of transactions and the control number are those tracked by
+     * the writer since the group header (GS or UNG) was written.
+     *
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the segment
+     * @throws IllegalStateException
+     *             when no group has been started, a transaction has not been
+     *             ended, or a segment is currently open
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeEndGroup() throws EDIStreamException;
+
+    /**
+     * Write the trailer segment (IEA or UNZ) of the current interchange. The
+     * count (functional groups, or messages for an EDIFACT interchange without
+     * groups) and the control number are those tracked by the writer since the
+     * interchange header was written. The interchange must still be ended with
+     * {@link #endInterchange()}.
+     *
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the segment
+     * @throws IllegalStateException
+     *             when no interchange header has been written, a group or
+     *             transaction has not been ended, or a segment is currently
+     *             open
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeEndInterchange() throws EDIStreamException;
+
+    /**
+     * Compile a template for a segment with the given tag and layout, using
+     * the delimiters of the current interchange. The layout gives the number
+     * of components of each element of the segment, 1 for a simple element.
+     * <p>
+     * Calls to this method are only valid after the interchange header has
+     * been written.
+     *
+     * @param tag
+     *            the segment tag, may not be an interchange header or trailer
+     * @param layout
+     *            the number of components of each element
+     * @return the compiled template
+     * @throws IllegalStateException
+     *             when the interchange header has not been written
+     * @throws IllegalArgumentException
+     *             when the tag or layout is not valid
+     *
+     * @since 1.1
+     */
+    EDISegmentTemplate compileSegmentTemplate(String tag, int... layout);
+
+    /**
+     * Write a complete segment using a template compiled by this writer. The
+     * values are given by index across all simple elements and components
+     * of the layout. Values that are null, empty, or not given are written as
+     * empty elements/components, and trailing empty elements/components are
+     * omitted.
+     * <p>
+     * When no schema is set for validation, the segment is written without
+     * per-element state checks.
+     *
+     * @param template
+     *            the template compiled by this writer
+     * @param values
+     *            the element and component values
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the segment
+     * @throws IllegalArgumentException
+     *             when the template was not compiled by this writer or more
+     *             values are given than the template accepts
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeSegment(EDISegmentTemplate template, CharSequence... values) throws EDIStreamException;
+
+    /**
+     * <p>
+     * Create a writer that buffers complete transactions/messages in memory
+     * for a later call to {@link #writeTransactions(EDIStreamWriter)} on this
+     * writer. The returned writer uses the delimiters of the current
+     * interchange and the transaction schema (if any) set on this writer.
+     * Segments are written to it starting with the transaction header (ST or
+     * UNH), where any placeholder value may be given for the control number.
+     * <p>
+     * Each transaction writer may be used by a different thread, allowing
+     * transactions to be generated in parallel. Calls to this method are only
+     * valid after the interchange header has been written.
+     *
+     * @return a new writer for buffered transactions
+     * @throws IllegalStateException
+     *             when the interchange header has not been written
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter createTransactionWriter();
+
+    /**
+     * Write the transactions buffered by a transaction writer into the
+     * current group/interchange of this writer. Each transaction is assigned
+     * the next control number in the group (or the interchange, when groups
+     * are not used), and is included in the counts written by
+     * {@link #writeEndGroup()} and {@link #writeEndInterchange()}. The
+     * transaction writer is then emptied and may be reused.
+     * <p>
+     * The transaction writer must not be in use by another thread while this
+     * method is called.
+     *
+     * @param transactionWriter
+     *            a writer created by {@link #createTransactionWriter()} on
+     *            this writer
+     * @return this writer
+     * @throws EDIStreamException
+     *             if an error occurs writing the transactions
+     * @throws IllegalArgumentException
+     *             when the transaction writer was not created by this writer
+     * @throws IllegalStateException
+     *             when a transaction is open in either writer or a buffered
+     *             transaction is missing its control numbers
+     *
+     * @since 1.1
+     */
+    EDIStreamWriter writeTransactions(EDIStreamWriter transactionWriter) throws EDIStreamException;
 }
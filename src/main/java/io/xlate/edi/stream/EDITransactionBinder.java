@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.stream;
+
+/**
+ * Binds the transactions read by an {@link EDIStreamReader} directly to
+ * instances of a class annotated with {@code javax.xml.bind.annotation.XmlElement},
+ * one transaction at a time. Instances are obtained from
+ * {@link EDIInputFactory#createTransactionBinder(Class, io.xlate.edi.schema.Schema)}.
+ *
+ * <ul>
+ * <li>fields of the transaction class and of loop classes are named by the
+ * tag of a segment or the code of a loop (loops are only reported by readers
+ * using a transaction schema)
+ * <li>fields of segment classes are named by the segment tag and an element
+ * position of at least two digits, e.g. <code>SEG01</code> or
+ * <code>SEG100</code>
+ * <li>fields of composite classes are named with a suffix of the component
+ * position, e.g. <code>SEG01-1</code>
+ * <li>element fields may be String, Integer, Long, BigInteger, BigDecimal,
+ * LocalDate, LocalTime, byte[] (binary elements) or a class with a single
+ * {@code javax.xml.bind.annotation.XmlValue} field of one of those types
+ * <li>a List field receives each occurrence of a repeated segment, loop or
+ * element
+ * </ul>
+ *
+ * Segments, loops and elements without a matching field are skipped. The
+ * bindings of the classes are resolved when the binder is created and
+ * instances may be shared by multiple threads. When running on the module
+ * path, the packages of the bound classes must be open to this module.
+ *
+ * @param <T>
+ *            the type of the bound transactions
+ *
+ * @since 1.1
+ */
+public interface EDITransactionBinder<T> {
+
+    /**
+     * Read the next transaction from the reader and bind it to a new
+     * instance. The reader is left positioned at the END_TRANSACTION event
+     * of the transaction.
+     *
+     * @param reader
+     *            the reader, positioned anywhere before the start of the
+     *            transaction
+     * @return the bound transaction, or null when the reader has no further
+     *         transactions
+     * @throws EDIStreamException
+     *             when the EDI input can not be read or an element value can
+     *             not be converted to the type of its field
+     */
+    T read(EDIStreamReader reader) throws EDIStreamException;
+
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.stream;
+
+/**
+ * Degree of schema validation performed by an {@link EDIStreamReader}. Set
+ * using the {@link EDIInputFactory#EDI_VALIDATION_LEVEL} property.
+ *
+ * @since 1.1
+ */
+public enum EDIValidationLevel {
+    /**
+     * No validation is performed, even when a control or transaction schema
+     * is available. Loop, group, and transaction events are not generated.
+     */
+    OFF,
+    /**
+     * Only the structure of the input is validated - segment sequence, loops,
+     * and the number of occurrences of segments and elements. Element values
+     * (type, length, code lists) and syntax rules are not checked.
+     */
+    STRUCTURE,
+    /**
+     * All validation available in the schema is performed. This is the
+     * default level.
+     */
+    FULL;
+
+    /**
+     * Obtain the level given by a property value. The value may be an
+     * instance of this enum or the name of one of the constants (case is
+     * ignored). A null value results in the default level, {@link #FULL}.
+     *
+     * @param value
+     *            the property value
+     * @return the validation level
+     * @throws IllegalArgumentException
+     *             if the value does not identify a validation level
+     */
+    public static EDIValidationLevel fromValue(Object value) {
+        if (value == null) {
+            return FULL;
+        }
+
+        if (value instanceof EDIValidationLevel) {
+            return (EDIValidationLevel) value;
+        }
+
+        return valueOf(value.toString().toUpperCase());
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.stream;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics listener accumulating counters per trading partner, to be read
+ * (scraped) periodically by a monitoring system. The counters are cumulative;
+ * rates are derived by the consumer from successive readings.
+ *
+ * Instances are safe for use by multiple threads.
+ *
+ * @since 1.1
+ */
+public class InMemoryEDIStreamMetrics implements EDIStreamMetrics {
+
+    /**
+     * Key of the counters for notifications made before the trading partner
+     * is known.
+     */
+    public static final String UNKNOWN_PARTNER = "";
+
+    private final ConcurrentMap<String, Counters> partners = new ConcurrentHashMap<>();
+
+    /**
+     * Get the trading partners with counters.
+     *
+     * @return the keys of the partners
+     */
+    public Set<String> getPartners() {
+        return Collections.unmodifiableSet(partners.keySet());
+    }
+
+    /**
+     * Get the counters of a trading partner.
+     *
+     * @param partner
+     *            the trading partner, or {@link #UNKNOWN_PARTNER}
+     * @return the counters of the partner, or null when no notification for
+     *         the partner has been received
+     */
+    public Counters getCounters(String partner) {
+        return partners.get(partner);
+    }
+
+    Counters counters(String partner) {
+        final String key = partner != null ? partner : UNKNOWN_PARTNER;
+        Counters counters = partners.get(key);
+
+        if (counters == null) {
+            counters = partners.computeIfAbsent(key, k -> new Counters());
+        }
+
+        return counters;
+    }
+
+    @Override
+    public void segmentRead(String partner, int bytes, long lexingNanos, long validationNanos) {
+        Counters counters = counters(partner);
+        counters.bytesRead.add(bytes);
+        counters.segmentsRead.increment();
+        counters.lexingNanos.add(lexingNanos);
+        counters.validationNanos.add(validationNanos);
+    }
+
+    @Override
+    public void transactionRead(String partner) {
+        counters(partner).transactionsRead.increment();
+    }
+
+    @Override
+    public void validationErrors(String partner, EDIStreamValidationError error, int count) {
+        counters(partner).validationErrors.get(error).add(count);
+    }
+
+    @Override
+    public void segmentWritten(String partner, int bytes) {
+        Counters counters = counters(partner);
+        counters.bytesWritten.add(bytes);
+        counters.segmentsWritten.increment();
+    }
+
+    @Override
+    public void transactionWritten(String partner) {
+        counters(partner).transactionsWritten.increment();
+    }
+
+    /**
+     * Counters of a single trading partner.
+     */
+    public static class Counters {
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder segmentsRead = new LongAdder();
+        final LongAdder transactionsRead = new LongAdder();
+        final LongAdder lexingNanos = new LongAdder();
+        final LongAdder validationNanos = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+        final LongAdder segmentsWritten = new LongAdder();
+        final LongAdder transactionsWritten = new LongAdder();
+        /*
+         * Populated for all types when created, only the adders are modified
+         */
+        final Map<EDIStreamValidationError, LongAdder> validationErrors = new EnumMap<>(EDIStreamValidationError.class);
+
+        Counters() {
+            for (EDIStreamValidationError error : EDIStreamValidationError.values()) {
+                validationErrors.put(error, new LongAdder());
+            }
+        }
+
+        public long getBytesRead() {
+            return bytesRead.sum();
+        }
+
+        public long getSegmentsRead() {
+            return segmentsRead.sum();
+        }
+
+        public long getTransactionsRead() {
+            return transactionsRead.sum();
+        }
+
+        public long getLexingNanos() {
+            return lexingNanos.sum();
+        }
+
+        public long getValidationNanos() {
+            return validationNanos.sum();
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten.sum();
+        }
+
+        public long getSegmentsWritten() {
+            return segmentsWritten.sum();
+        }
+
+        public long getTransactionsWritten() {
+            return transactionsWritten.sum();
+        }
+
+        public long getValidationErrors(EDIStreamValidationError error) {
+            return validationErrors.get(error).sum();
+        }
+
+        /**
+         * Get the number of validation errors of each type reported.
+         *
+         * @return the non-zero error counts by type
+         */
+        public Map<EDIStreamValidationError, Long> getValidationErrors() {
+            Map<EDIStreamValidationError, Long> counts = new EnumMap<>(EDIStreamValidationError.class);
+
+            validationErrors.forEach((error, count) -> {
+                long sum = count.sum();
+
+                if (sum > 0) {
+                    counts.put(error, sum);
+                }
+            });
+
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.jfr;
+
+/**
+ * Records the events in Java Flight Recorder. Events are only allocated and
+ * populated while enabled in a running recording.
+ */
+final class FlightEventRecorder extends EventRecorder {
+
+    /* Never committed, used only to query the enabled state of the event types */
+    private final InterchangeEvent interchange;
+    private final TransactionEvent transaction;
+
+    FlightEventRecorder() {
+        // Fails to link when the jdk.jfr module is not present
+        interchange = new InterchangeEvent();
+        transaction = new TransactionEvent();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return interchange.isEnabled() || transaction.isEnabled();
+    }
+
+    static <E extends jdk.jfr.Event> E begin(E event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Object interchangeBegin(int offset, int segments) {
+        InterchangeEvent event = begin(new InterchangeEvent());
+
+        if (event != null) {
+            event.bytes = -offset;
+            event.segments = -segments;
+        }
+
+        return event;
+    }
+
+    @Override
+    public void interchangeEnd(Object handle,
+                               String standard,
+                               String version,
+                               String sender,
+                               String receiver,
+                               int offset,
+                               int segments,
+                               int errors) {
+        InterchangeEvent event = (InterchangeEvent) handle;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.standard = standard;
+            event.version = version;
+            event.sender = sender;
+            event.receiver = receiver;
+            event.bytes += offset;
+            event.segments += segments;
+            event.errors = errors;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object transactionBegin(int offset, int segments) {
+        TransactionEvent event = begin(new TransactionEvent());
+
+        if (event != null) {
+            event.bytes = -offset;
+            event.segments = -segments;
+        }
+
+        return event;
+    }
+
+    @Override
+    public void transactionEnd(Object handle,
+                               String type,
+                               String version,
+                               boolean validated,
+                               int offset,
+                               int segments,
+                               int errors) {
+        TransactionEvent event = (TransactionEvent) handle;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.version = version;
+            event.validated = validated;
+            event.bytes += offset;
+            event.segments += segments;
+            event.errors = errors;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object schemaLoadBegin() {
+        return begin(new SchemaLoadEvent());
+    }
+
+    @Override
+    public void schemaLoadEnd(Object handle, String source, String format, long bytes, int types) {
+        SchemaLoadEvent event = (SchemaLoadEvent) handle;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.format = format;
+            event.bytes = bytes;
+            event.types = types;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object controlSchemaLoadBegin() {
+        return begin(new ControlSchemaLoadEvent());
+    }
+
+    @Override
+    public void controlSchemaLoadEnd(Object handle, String resource, boolean loaded) {
+        ControlSchemaLoadEvent event = (ControlSchemaLoadEvent) handle;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.resource = resource;
+            event.loaded = loaded;
+            event.commit();
+        }
+    }
+}
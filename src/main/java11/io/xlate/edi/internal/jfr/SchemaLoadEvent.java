@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.xlate.edi.SchemaLoad")
+@Label("EDI Schema Load")
+@Category({ "StAEDI", "Schema" })
+final class SchemaLoadEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Format")
+    String format;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Types")
+    int types;
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.xlate.edi.Transaction")
+@Label("EDI Transaction")
+@Category({ "StAEDI", "Reader" })
+@Description("Transaction read and validated, from the header to the trailer segment")
+final class TransactionEvent extends jdk.jfr.Event {
+
+    @Label("Transaction Type")
+    String type;
+
+    @Label("Version")
+    String version;
+
+    @Label("Validated")
+    @Description("A transaction schema was used to validate the transaction")
+    boolean validated;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Segments")
+    int segments;
+
+    @Label("Validation Errors")
+    int errors;
+}
@@ -0,0 +1,11 @@
+module io.xlate.staedi {
+    requires java.base;
+    requires java.desktop;
+    requires java.logging;
+    requires transitive java.xml;
+    requires static java.xml.bind;
+    requires static jdk.jfr;
+
+    exports io.xlate.edi.schema;
+    exports io.xlate.edi.stream;
+}
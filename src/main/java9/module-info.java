@@ -1,8 +1,11 @@
+// java.xml.bind is deprecated for removal in Java 9, it is only needed for EDITransactionBinder
+@SuppressWarnings("removal")
 module io.xlate.staedi {
     requires java.base;
     requires java.desktop;
     requires java.logging;
     requires transitive java.xml;
+    requires static java.xml.bind;
 
     exports io.xlate.edi.schema;
     exports io.xlate.edi.stream;
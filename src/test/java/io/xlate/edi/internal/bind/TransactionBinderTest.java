@@ -0,0 +1,277 @@
+package io.xlate.edi.internal.bind;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlValue;
+
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDITransactionBinder;
+
+public class TransactionBinderTest {
+
+    static final String TWO_TRANSACTIONS = "ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+            + "GS*FA*ReceiverDept*SenderDept*20050812*195335*000005*X*005010X230~"
+            + "ST*000*0001~"
+            + "AA1*ABC*12*20200131*1230~"
+            + "AA2*X*1^2^3*A:7:1.50~"
+            + "SE*4*0001~"
+            + "ST*000*0002~"
+            + "AA1*DEF*34~"
+            + "SE*3*0002~"
+            + "GE*2*000005~"
+            + "IEA*1*508121953~";
+
+    EDIStreamReader reader(String edi) throws EDIStreamException {
+        return EDIInputFactory.newFactory().createEDIStreamReader(new ByteArrayInputStream(edi.getBytes()));
+    }
+
+    @Test
+    public void testBindTransactionsInSequence() throws Exception {
+        EDITransactionBinder<TestTx> binder = EDIInputFactory.newFactory().createTransactionBinder(TestTx.class);
+        EDIStreamReader reader = reader(TWO_TRANSACTIONS);
+
+        TestTx tx1 = binder.read(reader);
+        assertNotNull(tx1);
+        assertEquals(EDIStreamEvent.END_TRANSACTION, reader.getEventType());
+        assertEquals("0001", tx1.st.st02);
+        assertEquals("ABC", tx1.aa1.aa101);
+        assertEquals(12, tx1.aa1.aa102);
+        assertEquals(LocalDate.of(2020, 1, 31), tx1.aa1.aa103);
+        assertEquals(LocalTime.of(12, 30), tx1.aa1.aa104);
+        assertEquals("X", tx1.aa2.aa201);
+        assertEquals(3, tx1.aa2.aa202.size());
+        assertEquals(Long.valueOf(3), tx1.aa2.aa202.get(2));
+        assertEquals("A", tx1.aa2.aa203.comp11);
+        assertEquals(Integer.valueOf(7), tx1.aa2.aa203.comp12);
+        assertEquals(new BigDecimal("1.50"), tx1.aa2.aa203.comp13.value);
+
+        TestTx tx2 = binder.read(reader);
+        assertNotNull(tx2);
+        assertEquals("0002", tx2.st.st02);
+        assertEquals("DEF", tx2.aa1.aa101);
+        assertEquals(34, tx2.aa1.aa102);
+        assertNull(tx2.aa1.aa103);
+        assertNull(tx2.aa2);
+
+        assertNull(binder.read(reader));
+    }
+
+    @Test
+    public void testBindLoopsWithSchema() throws Exception {
+        Schema schema = SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        EDITransactionBinder<Ack997> binder = EDIInputFactory.newFactory().createTransactionBinder(Ack997.class, schema);
+        InputStream stream = getClass().getResourceAsStream("/x12/simple997.edi");
+        EDIStreamReader reader = EDIInputFactory.newFactory().createEDIStreamReader(stream);
+
+        Ack997 ack = binder.read(reader);
+        assertNotNull(ack);
+        assertEquals("HC", ack.ak1.ak101);
+        assertEquals(1, ack.loop2000.size());
+
+        Loop2000 loop2000 = ack.loop2000.get(0);
+        assertEquals("837", loop2000.ak2.ak201);
+        assertEquals(1, loop2000.loop2100.size());
+        assertEquals("NM1", loop2000.loop2100.get(0).ak3.ak301);
+        assertEquals("R", loop2000.ak5.ak501);
+        assertEquals(Integer.valueOf(1), ack.ak9.ak903);
+
+        assertNull(binder.read(reader));
+    }
+
+    @Test
+    public void testInvalidValue() throws Exception {
+        EDITransactionBinder<TestTx> binder = EDIInputFactory.newFactory().createTransactionBinder(TestTx.class);
+        EDIStreamReader reader = reader(TWO_TRANSACTIONS.replace("AA1*ABC*12", "AA1*ABC*1X"));
+
+        EDIStreamException thrown = assertThrows(EDIStreamException.class, () -> binder.read(reader));
+        assertTrue(thrown.getMessage().contains("AA102"), thrown.getMessage());
+    }
+
+    @Test
+    public void testBinaryElement() throws Exception {
+        Schema schema = SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchemaBinarySegment.xml"));
+        EDITransactionBinder<BinaryTx> binder = EDIInputFactory.newFactory().createTransactionBinder(BinaryTx.class, schema);
+        InputStream stream = getClass().getResourceAsStream("/x12/simple_with_binary_segment.edi");
+        EDIStreamReader reader = EDIInputFactory.newFactory().createEDIStreamReader(stream);
+
+        BinaryTx tx = binder.read(reader);
+        assertEquals(3, tx.bin.size());
+        assertEquals(Integer.valueOf(25), tx.bin.get(1).bin01);
+        assertArrayEquals("12345678901234567890\n1234".getBytes(), tx.bin.get(1).bin02);
+    }
+
+    @Test
+    public void testElementPositionsBeyondTwoDigits() throws Exception {
+        StringBuilder segment = new StringBuilder("AA3");
+
+        for (int i = 1; i <= 100; i++) {
+            segment.append("*E").append(i);
+        }
+
+        EDITransactionBinder<WideTx> binder = EDIInputFactory.newFactory().createTransactionBinder(WideTx.class);
+        EDIStreamReader reader = reader(TWO_TRANSACTIONS.replace("AA1*DEF*34~", segment + "~"));
+
+        assertNotNull(binder.read(reader));
+        WideTx tx = binder.read(reader);
+        assertEquals("E1", tx.aa3.aa301);
+        assertEquals("E10", tx.aa3.aa310);
+        assertEquals("E100", tx.aa3.aa3100);
+    }
+
+    @Test
+    public void testUnboundClass() {
+        assertThrows(IllegalArgumentException.class, () -> EDIInputFactory.newFactory().createTransactionBinder(NoDefaultConstructor.class));
+    }
+
+    @XmlRootElement
+    static class TestTx {
+        @XmlElement(name = "ST")
+        St st;
+        @XmlElement(name = "AA1")
+        Aa1 aa1;
+        @XmlElement(name = "AA2")
+        Aa2 aa2;
+    }
+
+    static class St {
+        @XmlElement(name = "ST02")
+        String st02;
+    }
+
+    static class Aa1 {
+        @XmlElement(name = "AA101")
+        private String aa101;
+        @XmlElement(name = "AA102")
+        private int aa102;
+        @XmlElement(name = "AA103")
+        private LocalDate aa103;
+        @XmlElement(name = "AA104")
+        private LocalTime aa104;
+    }
+
+    static class Aa2 {
+        @XmlElement(name = "AA201")
+        private String aa201;
+        @XmlElement(name = "AA202")
+        private List<Long> aa202;
+        @XmlElement(name = "AA203")
+        private Comp1 aa203;
+    }
+
+    static class Comp1 {
+        @XmlElement(name = "COMP1-1")
+        private String comp11;
+        @XmlElement(name = "COMP1-2")
+        private Integer comp12;
+        @XmlElement(name = "COMP1-3")
+        private NumberType comp13;
+    }
+
+    static class NumberType {
+        @XmlValue
+        BigDecimal value;
+    }
+
+    @XmlRootElement
+    static class Ack997 {
+        @XmlElement(name = "AK1")
+        Ak1 ak1;
+        @XmlElement(name = "2000")
+        List<Loop2000> loop2000;
+        @XmlElement(name = "AK9")
+        Ak9 ak9;
+    }
+
+    static class Loop2000 {
+        @XmlElement(name = "AK2")
+        Ak2 ak2;
+        @XmlElement(name = "2100")
+        List<Loop2100> loop2100;
+        @XmlElement(name = "AK5")
+        Ak5 ak5;
+    }
+
+    static class Loop2100 {
+        @XmlElement(name = "AK3")
+        Ak3 ak3;
+    }
+
+    static class Ak1 {
+        @XmlElement(name = "AK101")
+        String ak101;
+    }
+
+    static class Ak2 {
+        @XmlElement(name = "AK201")
+        String ak201;
+    }
+
+    static class Ak3 {
+        @XmlElement(name = "AK301")
+        String ak301;
+    }
+
+    static class Ak5 {
+        @XmlElement(name = "AK501")
+        String ak501;
+    }
+
+    static class Ak9 {
+        @XmlElement(name = "AK903")
+        Integer ak903;
+    }
+
+    @XmlRootElement
+    static class BinaryTx {
+        @XmlElement(name = "BIN")
+        List<Bin> bin;
+    }
+
+    static class Bin {
+        @XmlElement(name = "BIN01")
+        Integer bin01;
+        @XmlElement(name = "BIN02")
+        byte[] bin02;
+    }
+
+    @XmlRootElement
+    static class WideTx {
+        @XmlElement(name = "AA3")
+        Aa3 aa3;
+    }
+
+    static class Aa3 {
+        @XmlElement(name = "AA301")
+        String aa301;
+        @XmlElement(name = "AA310")
+        String aa310;
+        @XmlElement(name = "AA3100")
+        String aa3100;
+    }
+
+    static class NoDefaultConstructor {
+        NoDefaultConstructor(String value) {
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.xlate.edi.internal.generate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIStreamReader;
+
+public class DocumentGeneratorTest {
+
+    Schema schema;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schema = SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+    }
+
+    byte[] generate(DocumentGenerator generator) throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        generator.generate(stream);
+        return stream.toByteArray();
+    }
+
+    /**
+     * Read the document with the transaction schema, returning the number of
+     * transactions followed by the errors reported.
+     */
+    List<String> read(byte[] document) throws Exception {
+        return read(document, schema);
+    }
+
+    List<String> read(byte[] document, Schema schema) throws Exception {
+        EDIStreamReader reader = EDIInputFactory.newFactory().createEDIStreamReader(new ByteArrayInputStream(document));
+        List<String> results = new ArrayList<>();
+        int transactions = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_TRANSACTION:
+                transactions++;
+                reader.setTransactionSchema(schema);
+                break;
+            case SEGMENT_ERROR:
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+                results.add(reader.getErrorType().name());
+                break;
+            default:
+                break;
+            }
+        }
+
+        results.add(0, String.valueOf(transactions));
+        return results;
+    }
+
+    @Test
+    public void testValidX12Transactions() throws Exception {
+        DocumentGenerator generator = new DocumentGenerator("X12", "005010X230", "997", schema);
+        generator.setTransactionCount(20);
+
+        byte[] document = generate(generator);
+
+        assertEquals(Arrays.asList("20"), read(document));
+        assertEquals(0, generator.getInjectedErrorCount());
+    }
+
+    @Test
+    public void testValidEDIFACTTransactions() throws Exception {
+        Schema invoic = SchemaFactory.newFactory().createSchema(getClass().getResource("/EDIFACT/EDISchemaINVOIC.xml"));
+        DocumentGenerator generator = new DocumentGenerator("EDIFACT", "D:97B:UN", "INVOIC", invoic);
+        generator.setSeed(7);
+        generator.setTransactionCount(5);
+
+        byte[] document = generate(generator);
+        String text = new String(document);
+
+        assertTrue(text.startsWith("UNB+UNOA:4+SENDER+RECEIVER+20200101:1200+1'UNH+0001+INVOIC:D:97B:UN'BGM+"), text);
+        assertTrue(text.contains("'CNT+"), text);
+        assertEquals(Arrays.asList("5"), read(document, invoic));
+    }
+
+    @Test
+    public void testSameSeedSameDocument() throws Exception {
+        DocumentGenerator generator = new DocumentGenerator("X12", "005010X230", "997", schema);
+        generator.setSeed(42);
+        generator.setTransactionCount(10);
+        generator.setErrorRate(0.05);
+
+        byte[] first = generate(generator);
+        assertArrayEquals(first, generate(generator));
+
+        generator.setSeed(43);
+        assertFalse(Arrays.equals(first, generate(generator)));
+    }
+
+    @Test
+    public void testTargetSize() throws Exception {
+        DocumentGenerator generator = new DocumentGenerator("X12", "005010X230", "997", schema);
+        generator.setTargetSize(100_000);
+        generator.setMaxRepeat(3);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int count = generator.generate(stream);
+
+        assertTrue(stream.size() >= 100_000);
+        assertTrue(count > 1);
+        assertEquals(String.valueOf(count), read(stream.toByteArray()).get(0));
+    }
+
+    static Map<String, Long> countErrors(List<String> results) {
+        return results.stream()
+                      .skip(1)
+                      .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+    }
+
+    @Test
+    public void testErrorInjection() throws Exception {
+        DocumentGenerator generator = new DocumentGenerator("X12", "005010X230", "997", schema);
+        generator.setSeed(3);
+        generator.setTransactionCount(20);
+        generator.setErrorRate(0.01);
+
+        List<String> results = read(generate(generator));
+
+        assertEquals("20", results.get(0));
+        assertEquals(16, generator.getInjectedErrorCount());
+        Map<String, Long> expected = new TreeMap<>();
+        expected.put("DATA_ELEMENT_TOO_LONG", 3L);
+        expected.put("INVALID_CHARACTER_DATA", 3L);
+        expected.put("INVALID_CODE_VALUE", 3L);
+        expected.put("REQUIRED_DATA_ELEMENT_MISSING", 7L);
+        assertEquals(expected, countErrors(results));
+
+        generator.setErrorRate(0.1);
+        results = read(generate(generator));
+
+        assertEquals("20", results.get(0));
+        assertEquals(157, generator.getInjectedErrorCount());
+        assertEquals(expected.keySet(), countErrors(results).keySet());
+    }
+
+    @Test
+    public void testInterchangeSchemaRejected() throws Exception {
+        Schema control = SchemaFactory.newFactory().createSchema(getClass().getResource("/X12/v00402.xml"));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentGenerator("X12", "00402", "997", control));
+    }
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class EventRecorderTest {
+
+    static class Unlinkable extends EventRecorder {
+        Unlinkable() {
+            // As when the JFR recorder is loaded without the jdk.jfr module
+            throw new NoClassDefFoundError("jdk/jfr/Event");
+        }
+    }
+
+    static void assertNoOp(EventRecorder recorder) {
+        assertEquals(EventRecorder.class, recorder.getClass());
+        assertFalse(recorder.isEnabled());
+        assertNull(recorder.interchangeBegin(0, 0));
+        assertNull(recorder.transactionBegin(0, 0));
+        assertNull(recorder.schemaLoadBegin());
+        assertNull(recorder.controlSchemaLoadBegin());
+    }
+
+    @Test
+    public void testLoadFallbackWhenNotFound() {
+        assertNoOp(EventRecorder.load("io.xlate.edi.internal.jfr.MissingRecorder"));
+    }
+
+    @Test
+    public void testLoadFallbackWhenNotLinked() {
+        assertNoOp(EventRecorder.load(Unlinkable.class.getName()));
+    }
+
+    @Test
+    public void testLoadRecorder() {
+        assertEquals(EventRecorder.class, EventRecorder.load(EventRecorder.class.getName()).getClass());
+    }
+}
@@ -0,0 +1,82 @@
+package io.xlate.edi.internal.schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.stream.EDIInputFactory;
+
+class SchemaUtilsTest {
+
+    @Test
+    void testPreloadControlSchemas() throws Exception {
+        EDIInputFactory.preloadControlSchemas();
+        assertEquals(new HashSet<>(SchemaUtils.controlVersions.values()), SchemaUtils.controlSchemas.keySet());
+    }
+
+    @Test
+    void testSharedResourceSameInstance() throws Exception {
+        Schema v1 = SchemaUtils.getControlSchema("EDIFACT", new String[] { "UNOA", "1" });
+        Schema v2 = SchemaUtils.getControlSchema("EDIFACT", new String[] { "UNOA", "2" });
+        assertNotNull(v1);
+        assertSame(v1, v2);
+    }
+
+    @Test
+    void testUnknownVersion() throws Exception {
+        assertNull(SchemaUtils.getControlSchema("EDIFACT", new String[] { "UNOA", "0" }));
+    }
+
+    @Test
+    void testConcurrentLoadSingleInstance() throws Exception {
+        SchemaUtils.controlSchemas.clear();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Schema>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < 32; i++) {
+            tasks.add(() -> SchemaUtils.getControlSchema("X12", new String[] { "00501" }));
+        }
+
+        try {
+            Schema first = null;
+
+            for (Future<Schema> result : executor.invokeAll(tasks)) {
+                Schema schema = result.get();
+                assertNotNull(schema);
+
+                if (first == null) {
+                    first = schema;
+                }
+
+                assertSame(first, schema);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCompiledPath() {
+        assertEquals("X12/v00402.bin", SchemaUtils.compiledPath("X12/v00402.xml"));
+        assertEquals("schema.bin", SchemaUtils.compiledPath("schema"));
+    }
+
+    @Test
+    void testControlSchemasPrecompiled() {
+        for (String resource : SchemaUtils.controlVersions.values()) {
+            assertNotNull(SchemaUtils.getURL(SchemaUtils.compiledPath(resource)), resource);
+        }
+    }
+}
@@ -17,19 +17,34 @@ package io.xlate.edi.internal.schema;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
+import io.xlate.edi.schema.EDIComplexType;
+import io.xlate.edi.schema.EDIReference;
 import io.xlate.edi.schema.EDISchemaException;
+import io.xlate.edi.schema.EDISimpleType;
+import io.xlate.edi.schema.EDIType;
 import io.xlate.edi.schema.Schema;
 import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.stream.EDIInputFactory;
 import io.xlate.edi.stream.EDIStreamConstants.Standards;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamReader;
 
 @SuppressWarnings("resource")
 public class StaEDISchemaFactoryTest {
@@ -130,4 +145,333 @@ public class StaEDISchemaFactoryTest {
         assertEquals("Unexpected XML element [{"+StaEDISchemaFactory.XMLNS+"}unexpected]", thrown.getOriginalMessage());
     }
 
+    @Test
+    public void testCreateSchemaByURLCached() throws EDISchemaException {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, 64);
+        URL schemaURL = getClass().getResource("/x12/EDISchema997.xml");
+        Schema schema1 = factory.createSchema(schemaURL);
+        Schema schema2 = factory.createSchema(schemaURL);
+        assertSame(schema1, schema2);
+        assertEquals(1L, factory.getProperty(SchemaFactory.SCHEMA_CACHE_HITS));
+        assertEquals(1L, factory.getProperty(SchemaFactory.SCHEMA_CACHE_MISSES));
+    }
+
+    @Test
+    public void testCreateSchemaByStreamCached() throws EDISchemaException {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, 64);
+        Schema schema1 = factory.createSchema(getClass().getResourceAsStream("/x12/EDISchema997.xml"));
+        Schema schema2 = factory.createSchema(getClass().getResourceAsStream("/x12/EDISchema997.xml"));
+        assertSame(schema1, schema2);
+        assertEquals(1L, factory.getProperty(SchemaFactory.SCHEMA_CACHE_HITS));
+    }
+
+    @Test
+    public void testCacheDisabledByDefault() throws EDISchemaException {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        assertEquals(0, factory.getProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES));
+        URL schemaURL = getClass().getResource("/x12/EDISchema997.xml");
+        assertNotSame(factory.createSchema(schemaURL), factory.createSchema(schemaURL));
+        assertEquals(0L, factory.getProperty(SchemaFactory.SCHEMA_CACHE_HITS));
+    }
+
+    @Test
+    public void testCacheLeastRecentlyUsedEvicted() throws EDISchemaException {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, "2");
+        URL schema997 = getClass().getResource("/x12/EDISchema997.xml");
+        URL schema00402 = getClass().getResource("/X12/v00402.xml");
+        URL schema00200 = getClass().getResource("/X12/v00200.xml");
+
+        Schema first = factory.createSchema(schema997);
+        factory.createSchema(schema00402);
+        assertSame(first, factory.createSchema(schema997));
+        factory.createSchema(schema00200);
+
+        assertEquals(2, factory.getCache().size());
+        assertSame(first, factory.createSchema(schema997));
+        assertEquals(2L, factory.getProperty(SchemaFactory.SCHEMA_CACHE_HITS));
+        factory.createSchema(schema00402);
+        assertEquals(4L, factory.getProperty(SchemaFactory.SCHEMA_CACHE_MISSES));
+    }
+
+    @Test
+    public void testCacheWeightLimit() throws EDISchemaException {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, 64);
+        URL schemaURL = getClass().getResource("/x12/EDISchema997.xml");
+        long weight = SchemaCache.weigh(factory.createSchema(schemaURL));
+        assertEquals(weight, factory.getCache().getWeight());
+
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_WEIGHT, weight - 1);
+        assertEquals(0, factory.getCache().size());
+        assertEquals(0L, factory.getCache().getWeight());
+        assertNotSame(factory.createSchema(schemaURL), factory.createSchema(schemaURL));
+    }
+
+    @Test
+    public void testCachePropertyValidation() {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        assertEquals(StaEDISchemaFactory.DEFAULT_CACHE_MAX_ENTRIES, factory.getProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES));
+        assertThrows(IllegalArgumentException.class, () -> factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, "-1"));
+        assertThrows(IllegalArgumentException.class, () -> factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_WEIGHT, "many"));
+        assertThrows(IllegalArgumentException.class, () -> factory.setProperty(SchemaFactory.SCHEMA_CACHE_HITS, 0L));
+    }
+
+    @Test
+    public void testCompiledSchemaRoundTrip() throws EDISchemaException {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        Schema[] schemas = {
+            factory.createSchema(getClass().getResource("/x12/EDISchema997.xml")),
+            factory.createSchema(getClass().getResource("/EDIFACT/v4.xml"))
+        };
+
+        for (Schema schema : schemas) {
+            ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+            factory.writeCompiledSchema(schema, compiled);
+            StaEDISchema loaded = (StaEDISchema) factory.createCompiledSchema(new ByteArrayInputStream(compiled.toByteArray()));
+
+            assertEquals(((StaEDISchema) schema).getTypes().keySet(), loaded.getTypes().keySet());
+            assertEquals(schema.getMainLoop().getId(), loaded.getMainLoop().getId());
+
+            for (Map.Entry<String, EDIType> entry : ((StaEDISchema) schema).getTypes().entrySet()) {
+                EDIType loadedType = loaded.getType(entry.getKey());
+                assertEquals(entry.getValue().toString(), loadedType.toString());
+
+                if (loadedType instanceof EDIComplexType) {
+                    for (EDIReference ref : ((EDIComplexType) loadedType).getReferences()) {
+                        assertSame(loaded.getType(((Reference) ref).getRefId()), ref.getReferencedType());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledSchemaInvalidStream() {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        InputStream xml = getClass().getResourceAsStream("/x12/EDISchema997.xml");
+        EDISchemaException thrown1 = assertThrows(EDISchemaException.class, () -> factory.createCompiledSchema(xml));
+        assertEquals("Stream does not contain a compiled schema", thrown1.getOriginalMessage());
+
+        InputStream empty = new ByteArrayInputStream(new byte[0]);
+        EDISchemaException thrown2 = assertThrows(EDISchemaException.class, () -> factory.createCompiledSchema(empty));
+        assertEquals("Unable to read compiled schema", thrown2.getOriginalMessage());
+    }
+
+    @Test
+    public void testCompiledSchemaUnsupportedImplementation() {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        Schema schema = Mockito.mock(Schema.class);
+        assertThrows(IllegalArgumentException.class, () -> factory.writeCompiledSchema(schema, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testCompiledSchemaLazyTypeResolution() throws Exception {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        InputStream stream = new ByteArrayInputStream((""
+                + "<schema xmlns='" + StaEDISchemaFactory.XMLNS + "'>"
+                + "<transaction><sequence><segment ref='AAA' /><segment ref='BBB' /></sequence></transaction>"
+                + "<elementType name='E1' base='string' maxLength='5' />"
+                + "<elementType name='E2' base='string' maxLength='5' />"
+                + "<elementType name='E3' base='string' maxLength='5' />"
+                + "<segmentType name='AAA'><sequence><element ref='E1' /></sequence></segmentType>"
+                + "<segmentType name='BBB'><sequence><element ref='E2' /></sequence></segmentType>"
+                + "<segmentType name='CCC'><sequence><element ref='E3' /></sequence></segmentType>"
+                + "</schema>").getBytes());
+        Schema schema = factory.createSchema(stream);
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        factory.writeCompiledSchema(schema, compiled);
+
+        CompiledSchemaFormat.LazyTypeMap types = (CompiledSchemaFormat.LazyTypeMap) CompiledSchemaFormat.readTypeMap(new DataInputStream(new ByteArrayInputStream(compiled.toByteArray())), true);
+        assertEquals(0, types.table.resolvedCount());
+        assertTrue(types.containsKey("BBB"));
+        assertEquals(0, types.table.resolvedCount());
+
+        StaEDISchema loaded = new StaEDISchema();
+        loaded.setTypes(types);
+        // Only the transaction
+        assertEquals(1, types.table.resolvedCount());
+
+        List<EDIReference> segments = loaded.getMainLoop().getReferences();
+        EDIComplexType aaa = (EDIComplexType) segments.get(0).getReferencedType();
+        assertEquals(2, types.table.resolvedCount());
+        assertSame(loaded.getType("E1"), aaa.getReferences().get(0).getReferencedType());
+        // transaction, AAA, E1; BBB reachable from the main loop but not used
+        assertEquals(3, types.table.resolvedCount());
+        assertNotNull(types.table.data);
+
+        assertSame(loaded.getType("BBB"), segments.get(1).getReferencedType());
+        assertEquals(4, types.table.resolvedCount());
+        assertTrue(loaded.containsSegment("CCC"));
+        assertEquals(((StaEDISchema) schema).getTypes().keySet(), types.keySet());
+        // All types built, the record data is released
+        assertEquals(7, types.table.resolvedCount());
+        assertNull(types.table.data);
+    }
+
+    @Test
+    public void testLazyTypeResolutionByValidator() throws Exception {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        Schema schema = factory.createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        factory.writeCompiledSchema(schema, compiled);
+
+        CompiledSchemaFormat.LazyTypeMap types = (CompiledSchemaFormat.LazyTypeMap) CompiledSchemaFormat.readTypeMap(new DataInputStream(new ByteArrayInputStream(compiled.toByteArray())), true);
+        StaEDISchema loaded = new StaEDISchema();
+        loaded.setTypes(types);
+
+        // The optional AK2 loop is not present
+        String input = "ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+                + "GS*FA*ReceiverDept*SenderDept*20050812*195335*000005*X*005010X230~"
+                + "ST*997*0001~"
+                + "AK1*HC*000001~"
+                + "AK9*A*1*1*1~"
+                + "SE*4*0001~"
+                + "GE*1*000005~"
+                + "IEA*1*508121953~";
+        EDIStreamReader reader = EDIInputFactory.newFactory().createEDIStreamReader(new ByteArrayInputStream(input.getBytes()));
+        int errors = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_TRANSACTION:
+                reader.setTransactionSchema(loaded);
+                break;
+            case SEGMENT_ERROR:
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+                errors++;
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertEquals(0, errors);
+        // The segments of the loop are resolved to be matched, but not their elements
+        assertTrue(types.table.types[types.keys.get("AK2")] != null);
+        assertNull(types.table.types[types.keys.get("E0143")]);
+        assertNull(types.table.types[types.keys.get("C030")]);
+        assertTrue(types.table.resolvedCount() < types.table.types.length);
+    }
+
+    @Test
+    public void testCreateCompiledSchemaLazy() throws EDISchemaException {
+        SchemaFactory factory = SchemaFactory.newFactory();
+        Schema schema = factory.createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        factory.writeCompiledSchema(schema, compiled);
+
+        factory.setProperty(SchemaFactory.LAZY_TYPE_RESOLUTION, true);
+        Schema loaded = factory.createCompiledSchema(new ByteArrayInputStream(compiled.toByteArray()));
+        assertTrue(loaded.containsSegment("AK9"));
+        assertEquals(schema.getType("AK9").toString(), loaded.getType("AK9").toString());
+    }
+
+    @Test
+    public void testCreateCompiledSchemaLazySharesElements() throws EDISchemaException {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        Schema schema = factory.createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        factory.writeCompiledSchema(schema, compiled);
+
+        factory.setProperty(SchemaFactory.LAZY_TYPE_RESOLUTION, true);
+        factory.setProperty(SchemaFactory.SHARE_TYPES, true);
+        Schema loaded1 = factory.createCompiledSchema(new ByteArrayInputStream(compiled.toByteArray()));
+        Schema loaded2 = factory.createCompiledSchema(new ByteArrayInputStream(compiled.toByteArray()));
+        assertSame(loaded1.getType("E0002"), loaded2.getType("E0002"));
+        assertSame(loaded1.getType("E0097"), ((EDIComplexType) loaded2.getType("AK9")).getReferences().get(1).getReferencedType());
+        assertNotSame(loaded1.getType("AK9"), loaded2.getType("AK9"));
+    }
+
+    @Test
+    public void testSharedTypes() throws EDISchemaException {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, 0);
+        factory.setProperty(SchemaFactory.SHARE_TYPES, true);
+        URL schemaURL = getClass().getResource("/x12/EDISchema997.xml");
+
+        Schema schema1 = factory.createSchema(schemaURL);
+        Schema schema2 = factory.createSchema(schemaURL);
+        assertNotSame(schema1, schema2);
+        assertNotSame(schema1.getMainLoop(), schema2.getMainLoop());
+        assertSame(schema1.getType("AK9"), schema2.getType("AK9"));
+        assertSame(schema1.getType("E0002"), schema2.getType("E0002"));
+        assertSame("E0002".intern(), schema1.getType("E0002").getId());
+
+        EDIReference ak1 = schema2.getMainLoop().getReferences().get(0);
+        assertSame(schema1.getType("AK1"), ak1.getReferencedType());
+
+        EDIComplexType ak9 = (EDIComplexType) schema2.getType("AK9");
+        assertSame(schema2.getType("E0097"), ak9.getReferences().get(1).getReferencedType());
+    }
+
+    @Test
+    public void testSharedTypesDistinguishDefinitions() throws EDISchemaException {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        factory.setProperty(SchemaFactory.SHARE_TYPES, "true");
+        String schemaXml = ""
+                + "<schema xmlns='" + StaEDISchemaFactory.XMLNS + "'>"
+                + "<transaction><sequence><segment ref='AAA' /></sequence></transaction>"
+                + "<elementType name='E1' base='string' maxLength='%d' />"
+                + "<segmentType name='AAA'><sequence><element ref='E1' /></sequence></segmentType>"
+                + "</schema>";
+
+        Schema schema1 = factory.createSchema(new ByteArrayInputStream(String.format(schemaXml, 5).getBytes()));
+        Schema schema2 = factory.createSchema(new ByteArrayInputStream(String.format(schemaXml, 6).getBytes()));
+        Schema schema3 = factory.createSchema(new ByteArrayInputStream(String.format(schemaXml + " ", 5).getBytes()));
+
+        assertNotSame(schema1.getType("E1"), schema2.getType("E1"));
+        assertNotSame(schema1.getType("AAA"), schema2.getType("AAA"));
+        assertSame(schema1.getType("AAA"), schema3.getType("AAA"));
+        assertEquals(4, factory.getTypePool().size());
+    }
+
+    @Test
+    public void testSharedTypesReleasedWithSchemas() throws Exception {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, 0);
+        factory.setProperty(SchemaFactory.SHARE_TYPES, true);
+        Schema schema = factory.createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        int pooled = factory.getTypePool().size();
+        assertTrue(pooled > 0);
+
+        // Pooled types are the canonical instances, no copy is retained
+        EDISimpleType e0715 = (EDISimpleType) schema.getType("E0715");
+        assertSame(e0715, factory.getTypePool().share(e0715));
+        assertSame("E0715".intern(), e0715.getId());
+
+        schema = null;
+        e0715 = null;
+
+        for (int i = 0; i < 50 && factory.getTypePool().size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, factory.getTypePool().size());
+    }
+
+    @Test
+    public void testCacheKeyIncludesTypeProperties() throws EDISchemaException {
+        StaEDISchemaFactory factory = new StaEDISchemaFactory();
+        factory.setProperty(SchemaFactory.SCHEMA_CACHE_MAX_ENTRIES, 64);
+        URL schemaURL = getClass().getResource("/x12/EDISchema997.xml");
+
+        Schema unshared = factory.createSchema(schemaURL);
+        assertSame(unshared, factory.createSchema(schemaURL));
+        assertEquals(0, factory.getTypePool().size());
+
+        factory.setProperty(SchemaFactory.SHARE_TYPES, true);
+        Schema shared = factory.createSchema(schemaURL);
+        assertNotSame(unshared, shared);
+        assertTrue(factory.getTypePool().size() > 0);
+        assertSame(shared.getType("E0715"), factory.getTypePool().share((EDISimpleType) unshared.getType("E0715")));
+
+        factory.setProperty(SchemaFactory.SHARE_TYPES, false);
+        assertSame(unshared, factory.createSchema(schemaURL));
+        assertEquals(2, factory.getCache().size());
+    }
 }
@@ -17,10 +17,13 @@ package io.xlate.edi.internal.stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -34,6 +37,7 @@ import io.xlate.edi.stream.EDIStreamException;
 import io.xlate.edi.stream.EDIStreamFilter;
 import io.xlate.edi.stream.EDIStreamReader;
 import io.xlate.edi.stream.EDIStreamValidationError;
+import io.xlate.edi.stream.EDIValidationLevel;
 
 @SuppressWarnings("resource")
 public class ErrorEventsTest {
@@ -276,4 +280,161 @@ public class ErrorEventsTest {
 
         assertTrue(!reader.hasNext(), "Unexpected errors exist");
     }
+
+    @Test
+    public void testInvalidElementsStructureValidation() throws EDIStreamException, EDISchemaException {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_VALIDATION_LEVEL, EDIValidationLevel.STRUCTURE);
+        InputStream stream = getClass().getResourceAsStream("/x12/extraDelimiter997.edi");
+        SchemaFactory schemaFactory = SchemaFactory.newFactory();
+        Schema control = SchemaUtils.getControlSchema("X12", new String[] { "00501" });
+        Schema transaction = schemaFactory.createSchema(getClass().getResourceAsStream("/x12/EDISchema997.xml"));
+        EDIStreamReader reader = factory.createEDIStreamReader(stream, control);
+        List<EDIStreamValidationError> errors = new ArrayList<>();
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_TRANSACTION:
+                reader.setTransactionSchema(transaction);
+                break;
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+            case SEGMENT_ERROR:
+                errors.add(reader.getErrorType());
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertTrue(errors.contains(EDIStreamValidationError.TOO_MANY_REPETITIONS));
+        assertTrue(errors.contains(EDIStreamValidationError.TOO_MANY_COMPONENTS));
+        assertTrue(errors.stream().noneMatch(e -> e.getCategory() == EDIStreamEvent.ELEMENT_DATA_ERROR),
+                   "Unexpected element data errors");
+    }
+
+    @Test
+    public void testListSyntaxMissingFirstStructureValidation() throws EDIStreamException {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_VALIDATION_LEVEL, "structure");
+        InputStream stream = new ByteArrayInputStream((""
+                + "UNB+UNOA:4:::02+005435656:1+006415160:1+20060515:1434+00000000000778'"
+                + "UNG++15623+23457+20060515:1433+CD1352+UN+D:97B+A3P52'"
+                + "UNH+00000000000117+INVOIC:D:97B:UN'"
+                + "UNT+2+00000000000117'"
+                + "UNE+1+CD1352'"
+                + "UNZ+1+00000000000778'").getBytes());
+
+        EDIStreamReader reader = factory.createEDIStreamReader(stream);
+        reader = factory.createFilteredReader(reader, errorFilter);
+
+        assertFalse(reader.hasNext(), "Unexpected errors");
+    }
+
+    @Test
+    public void testValidationOff() throws EDIStreamException {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_VALIDATION_LEVEL, EDIValidationLevel.OFF);
+        InputStream stream = getClass().getResourceAsStream("/x12/extraDelimiter997.edi");
+        EDIStreamReader reader = factory.createEDIStreamReader(stream);
+        int segments = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_GROUP:
+            case START_TRANSACTION:
+            case START_LOOP:
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+            case SEGMENT_ERROR:
+                throw new AssertionError("Unexpected event: " + reader.getEventType());
+            case START_SEGMENT:
+                segments++;
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertTrue(segments > 0, "No segments read");
+    }
+
+    @Test
+    public void testTransactionErrorLimit() throws EDIStreamException, EDISchemaException {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_TRANSACTION_ERROR_LIMIT, 2);
+        InputStream stream = getClass().getResourceAsStream("/x12/extraDelimiter997.edi");
+        SchemaFactory schemaFactory = SchemaFactory.newFactory();
+        Schema control = SchemaUtils.getControlSchema("X12", new String[] { "00501" });
+        Schema transaction = schemaFactory.createSchema(getClass().getResourceAsStream("/x12/EDISchema997.xml"));
+        EDIStreamReader reader = factory.createEDIStreamReader(stream, control);
+        List<EDIStreamValidationError> errors = new ArrayList<>();
+        int openLoops = 0;
+        boolean transactionEnded = false;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_TRANSACTION:
+                reader.setTransactionSchema(transaction);
+                break;
+            case START_LOOP:
+                openLoops++;
+                break;
+            case END_LOOP:
+                openLoops--;
+                break;
+            case END_TRANSACTION:
+                assertEquals(0, openLoops, "Loops not closed at end of transaction");
+                transactionEnded = true;
+                break;
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+            case SEGMENT_ERROR:
+                errors.add(reader.getErrorType());
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertTrue(transactionEnded);
+        assertEquals(3, errors.size());
+        assertEquals(EDIStreamValidationError.INVALID_CHARACTER_DATA, errors.get(0));
+        assertEquals(EDIStreamValidationError.TOO_MANY_REPETITIONS, errors.get(1));
+        assertEquals(EDIStreamValidationError.TRANSACTION_ERROR_LIMIT_EXCEEDED, errors.get(2));
+    }
+
+    @Test
+    public void testInterchangeErrorLimitAbort() throws EDIStreamException, EDISchemaException {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_INTERCHANGE_ERROR_LIMIT, 1);
+        factory.setProperty(EDIInputFactory.EDI_ERROR_LIMIT_ABORT, true);
+        InputStream stream = getClass().getResourceAsStream("/x12/extraDelimiter997.edi");
+        SchemaFactory schemaFactory = SchemaFactory.newFactory();
+        Schema control = SchemaUtils.getControlSchema("X12", new String[] { "00501" });
+        Schema transaction = schemaFactory.createSchema(getClass().getResourceAsStream("/x12/EDISchema997.xml"));
+        EDIStreamReader reader = factory.createEDIStreamReader(stream, control);
+        List<EDIStreamValidationError> errors = new ArrayList<>();
+
+        EDIStreamException thrown = assertThrows(EDIStreamException.class, () -> {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case START_TRANSACTION:
+                    reader.setTransactionSchema(transaction);
+                    break;
+                case ELEMENT_DATA_ERROR:
+                case ELEMENT_OCCURRENCE_ERROR:
+                case SEGMENT_ERROR:
+                    errors.add(reader.getErrorType());
+                    break;
+                default:
+                    break;
+                }
+            }
+        });
+
+        assertTrue(thrown.getMessage().contains(EDIStreamValidationError.INTERCHANGE_ERROR_LIMIT_EXCEEDED.toString()));
+        assertEquals(1, errors.size());
+        assertFalse(reader.hasNext());
+    }
 }
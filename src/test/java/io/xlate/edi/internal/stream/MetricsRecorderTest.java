@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIOutputFactory;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamMetrics;
+import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDIStreamValidationError;
+import io.xlate.edi.stream.EDIStreamWriter;
+import io.xlate.edi.stream.InMemoryEDIStreamMetrics;
+import io.xlate.edi.stream.InMemoryEDIStreamMetrics.Counters;
+
+public class MetricsRecorderTest {
+
+    static final String INTERCHANGE = "ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+            + "GS*FA*ReceiverDept*SenderDept*20050812*195335*000005*X*005010X230~"
+            + "ST*997*0001~"
+            + "AK1*HC NOT IN CODESET*000001~"
+            + "AK9*R*1*1*0~"
+            + "SE*4*0001~"
+            + "ST*997*0002~"
+            + "AK1*HC*000002~"
+            + "AK9*R*1*1*0~"
+            + "SE*4*0002~"
+            + "GE*2*000005~"
+            + "IEA*1*508121953~";
+
+    void read(EDIInputFactory factory, String input) throws Exception {
+        Schema schema = SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        EDIStreamReader reader = factory.createEDIStreamReader(new ByteArrayInputStream(input.getBytes()));
+
+        while (reader.hasNext()) {
+            if (reader.next() == EDIStreamEvent.START_TRANSACTION) {
+                reader.setTransactionSchema(schema);
+            }
+        }
+
+        reader.close();
+    }
+
+    @Test
+    public void testReaderMetrics() throws Exception {
+        InMemoryEDIStreamMetrics metrics = new InMemoryEDIStreamMetrics();
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_METRICS, metrics);
+
+        read(factory, INTERCHANGE);
+        read(factory, INTERCHANGE);
+
+        assertEquals(Collections.singleton("ReceiverID"), metrics.getPartners());
+        Counters counters = metrics.getCounters("ReceiverID");
+        assertEquals(INTERCHANGE.length() * 2, counters.getBytesRead());
+        assertEquals(24, counters.getSegmentsRead());
+        assertEquals(4, counters.getTransactionsRead());
+        assertEquals(2, counters.getValidationErrors().size());
+        assertEquals(2, counters.getValidationErrors(EDIStreamValidationError.DATA_ELEMENT_TOO_LONG));
+        assertEquals(2, counters.getValidationErrors(EDIStreamValidationError.INVALID_CODE_VALUE));
+        assertTrue(counters.getLexingNanos() > 0);
+        assertTrue(counters.getValidationNanos() > 0);
+        assertEquals(0, counters.getBytesWritten());
+    }
+
+    @Test
+    public void testReaderSegmentNotifications() throws Exception {
+        Map<String, Integer> segmentBytes = new HashMap<>();
+        EDIStreamMetrics metrics = new EDIStreamMetrics() {
+            int segment = 0;
+
+            @Override
+            public void segmentRead(String partner, int bytes, long lexingNanos, long validationNanos) {
+                segmentBytes.put(++segment + ":" + partner, bytes);
+            }
+        };
+
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_METRICS, metrics);
+        read(factory, INTERCHANGE);
+
+        assertEquals(12, segmentBytes.size());
+        assertEquals(Integer.valueOf(106), segmentBytes.get("1:ReceiverID"));
+        assertEquals(Integer.valueOf(66), segmentBytes.get("2:ReceiverID"));
+        assertEquals(Integer.valueOf(12), segmentBytes.get("3:ReceiverID"));
+        assertEquals(Integer.valueOf(16), segmentBytes.get("12:ReceiverID"));
+    }
+
+    @Test
+    public void testWriterMetrics() throws Exception {
+        InMemoryEDIStreamMetrics metrics = new InMemoryEDIStreamMetrics();
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.METRICS, metrics);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+
+        writer.startInterchange();
+        writer.writeStartSegment("UNB").writeStartElement()
+              .startComponent().writeElementData("UNOA").endComponent()
+              .startComponent().writeElementData("3").endComponent()
+              .endElement()
+              .writeElement("SENDER")
+              .writeStartElement()
+              .startComponent().writeElementData("PARTNER").endComponent()
+              .startComponent().writeElementData("ZZ").endComponent()
+              .endElement()
+              .writeStartElement()
+              .startComponent().writeElementData("200101").endComponent()
+              .startComponent().writeElementData("1200").endComponent()
+              .endElement()
+              .writeElement("1")
+              .writeEndSegment();
+
+        EDIStreamWriter transactions = writer.createTransactionWriter();
+
+        for (int i = 1; i <= 3; i++) {
+            transactions.writeStartSegment("UNH").writeElement(String.valueOf(i)).writeElement("INVOIC").writeEndSegment();
+            transactions.writeStartSegment("BGM").writeElement("380").writeEndSegment();
+            transactions.writeEndTransaction();
+        }
+
+        writer.writeTransactions(transactions);
+        writer.writeEndInterchange();
+        writer.endInterchange();
+        writer.close();
+
+        assertEquals(Collections.singleton("PARTNER"), metrics.getPartners());
+        Counters counters = metrics.getCounters("PARTNER");
+        assertEquals(stream.size(), counters.getBytesWritten());
+        assertEquals(11, counters.getSegmentsWritten());
+        assertEquals(3, counters.getTransactionsWritten());
+        assertEquals(0, counters.getSegmentsRead());
+    }
+
+    @Test
+    public void testDisabled() {
+        assertSame(MetricsRecorder.DISABLED, MetricsRecorder.of(null));
+        assertSame(MetricsRecorder.DISABLED, MetricsRecorder.of(EDIStreamMetrics.NONE));
+
+        MetricsRecorder.DISABLED.setPartner("PARTNER");
+        MetricsRecorder.DISABLED.segmentRead(100);
+        assertNull(MetricsRecorder.DISABLED.getPartner());
+    }
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.EDISchemaException;
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.schema.SchemaRegistry;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDIStreamValidationError;
+
+public class SchemaRegistryTest {
+
+    static final String EDIFACT_INVOIC = ""
+            + "UNB+UNOA:3+005435656:1+006415160:1+060515:1434+00000000000778'"
+            + "UNH+00000000000117+INVOIC:D:97B:UN'"
+            + "UNT+2+00000000000117'"
+            + "UNZ+1+00000000000778'";
+
+    static final String INVOIC_SCHEMA = ""
+            + "<schema xmlns='http://xlate.io/EDISchema/v2'>"
+            + "<transaction><sequence><segment ref='BGM' minOccurs='1' /></sequence></transaction>"
+            + "<elementType name='E1' base='string' maxLength='5' />"
+            + "<segmentType name='BGM'><sequence><element ref='E1' /></sequence></segmentType>"
+            + "</schema>";
+
+    List<EDIStreamValidationError> readErrors(InputStream stream, SchemaRegistry registry) throws EDIStreamException {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+
+        if (registry != null) {
+            factory.setProperty(EDIInputFactory.EDI_SCHEMA_REGISTRY, registry);
+        }
+
+        EDIStreamReader reader = factory.createEDIStreamReader(stream);
+        List<EDIStreamValidationError> errors = new ArrayList<>();
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+            case SEGMENT_ERROR:
+                errors.add(reader.getErrorType());
+                break;
+            default:
+                break;
+            }
+        }
+
+        return errors;
+    }
+
+    Schema invoicSchema() throws EDISchemaException {
+        return SchemaFactory.newFactory().createSchema(new ByteArrayInputStream(INVOIC_SCHEMA.getBytes()));
+    }
+
+    @Test
+    public void testX12TransactionSchemaSelected() throws Exception {
+        SchemaRegistry registry = new SchemaRegistry();
+        Schema schema997 = SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchema997.xml"));
+        registry.register("X12", "005010X230", "997", schema997);
+
+        assertTrue(readErrors(getClass().getResourceAsStream("/x12/extraDelimiter997.edi"), null).isEmpty());
+
+        List<EDIStreamValidationError> errors = readErrors(getClass().getResourceAsStream("/x12/extraDelimiter997.edi"), registry);
+        assertTrue(errors.contains(EDIStreamValidationError.TOO_MANY_REPETITIONS));
+        assertTrue(errors.contains(EDIStreamValidationError.TOO_MANY_COMPONENTS));
+    }
+
+    @Test
+    public void testEdifactTransactionSchemaSelectedForPartner() throws Exception {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.register("EDIFACT", "D97B", "INVOIC", "005435656", "006415160", invoicSchema());
+
+        List<EDIStreamValidationError> errors = readErrors(new ByteArrayInputStream(EDIFACT_INVOIC.getBytes()), registry);
+        assertEquals(1, errors.size());
+        assertEquals(EDIStreamValidationError.MANDATORY_SEGMENT_MISSING, errors.get(0));
+    }
+
+    @Test
+    public void testEdifactTransactionSchemaOtherPartner() throws Exception {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.register("EDIFACT", "D97B", "INVOIC", "OTHER", "006415160", invoicSchema());
+        registry.register("EDIFACT", "D97A", "INVOIC", invoicSchema());
+
+        assertTrue(readErrors(new ByteArrayInputStream(EDIFACT_INVOIC.getBytes()), registry).isEmpty());
+    }
+
+    @Test
+    public void testApplicationSchemaTakesPrecedence() throws Exception {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.register("EDIFACT", "D97B", "INVOIC", invoicSchema());
+
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_SCHEMA_REGISTRY, registry);
+        EDIStreamReader reader = factory.createEDIStreamReader(new ByteArrayInputStream(EDIFACT_INVOIC.getBytes()));
+        int errors = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_TRANSACTION:
+                reader.setTransactionSchema(null);
+                break;
+            case SEGMENT_ERROR:
+                errors++;
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertEquals(0, errors);
+    }
+
+    @Test
+    public void testLookupPrefersPartnerSchema() throws Exception {
+        SchemaRegistry registry = new SchemaRegistry();
+        Schema generic = invoicSchema();
+        Schema partner = invoicSchema();
+        registry.register("EDIFACT", "D97B", "INVOIC", generic);
+        registry.register("EDIFACT", "D97B", "INVOIC", "S", "R", partner);
+
+        assertEquals(2, registry.size());
+        assertSame(partner, registry.lookup("EDIFACT", "D97B", "INVOIC", "S", "R"));
+        assertSame(generic, registry.lookup("EDIFACT", "D97B", "INVOIC", "S", "X"));
+        assertSame(generic, registry.lookup("EDIFACT", "D97B", "INVOIC", null, null));
+        assertNull(registry.lookup("EDIFACT", "D96A", "INVOIC", "S", "R"));
+
+        assertSame(partner, registry.unregister("EDIFACT", "D97B", "INVOIC", "S", "R"));
+        assertSame(generic, registry.lookup("EDIFACT", "D97B", "INVOIC", "S", "R"));
+    }
+
+    @Test
+    public void testInvalidRegistryProperty() {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        assertThrows(IllegalArgumentException.class, () -> factory.setProperty(EDIInputFactory.EDI_SCHEMA_REGISTRY, "registry"));
+    }
+}
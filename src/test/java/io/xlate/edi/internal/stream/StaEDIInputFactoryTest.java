@@ -15,6 +15,7 @@
  ******************************************************************************/
 package io.xlate.edi.internal.stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -31,6 +32,7 @@ import io.xlate.edi.schema.SchemaFactory;
 import io.xlate.edi.stream.EDIInputFactory;
 import io.xlate.edi.stream.EDIStreamException;
 import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDIValidationLevel;
 
 @SuppressWarnings("resource")
 public class StaEDIInputFactoryTest {
@@ -105,4 +107,19 @@ public class StaEDIInputFactoryTest {
         EDIInputFactory factory = EDIInputFactory.newFactory();
         assertThrows(IllegalArgumentException.class, () -> factory.setProperty("FOO", null));
     }
+
+    @Test
+    public void testSetValidationLevel() {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        assertTrue(factory.isPropertySupported(EDIInputFactory.EDI_VALIDATION_LEVEL));
+        factory.setProperty(EDIInputFactory.EDI_VALIDATION_LEVEL, "structure");
+        assertEquals(EDIValidationLevel.STRUCTURE, factory.getProperty(EDIInputFactory.EDI_VALIDATION_LEVEL));
+        assertThrows(IllegalArgumentException.class, () -> factory.setProperty(EDIInputFactory.EDI_VALIDATION_LEVEL, "partial"));
+    }
+
+    @Test
+    public void testBindingApiAvailable() {
+        assertTrue(StaEDIInputFactory.isClassAvailable(StaEDIInputFactory.JAXB_ANNOTATION));
+        assertFalse(StaEDIInputFactory.isClassAvailable("javax.xml.bind.annotation.Missing"));
+    }
 }
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIJsonWriter;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamReader;
+
+public class StaEDIJsonWriterTest {
+
+    static final String TRANSACTION = "ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+            + "GS*FA*ReceiverDept*SenderDept*20050812*195335*000005*X*005010X230~"
+            + "ST*997*0001~"
+            + "AK3*NM1*8**8~"
+            + "N1*A^B*X:Y::Z*\"q\\~"
+            + "SE*4*0001~"
+            + "GE*1*000005~"
+            + "IEA*1*508121953~";
+
+    static String toJson(String edi, boolean typedNumbers) throws Exception {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.JSON_TYPED_NUMBERS, typedNumbers);
+        EDIStreamReader reader = factory.createEDIStreamReader(new ByteArrayInputStream(edi.getBytes()));
+        StringWriter result = new StringWriter();
+        factory.createJsonWriter(reader, result).write();
+        return result.toString();
+    }
+
+    @Test
+    public void testStructure() throws Exception {
+        String json = toJson(TRANSACTION, false);
+
+        assertTrue(json.startsWith("{\"type\":\"interchange\",\"name\":\"INTERCHANGE\",\"data\":["
+                + "{\"type\":\"segment\",\"name\":\"ISA\",\"elements\":{\"ISA01\":\"00\","), json);
+        assertTrue(json.contains("{\"type\":\"group\",\"name\":\"GROUP\",\"data\":["), json);
+        assertTrue(json.contains("{\"type\":\"transaction\",\"name\":\"TRANSACTION\",\"data\":["
+                + "{\"type\":\"segment\",\"name\":\"ST\",\"elements\":{\"ST01\":\"997\",\"ST02\":\"0001\"}},"
+                + "{\"type\":\"segment\",\"name\":\"AK3\",\"elements\":{\"AK301\":\"NM1\",\"AK302\":\"8\",\"AK304\":\"8\"}},"
+                + "{\"type\":\"segment\",\"name\":\"N1\",\"elements\":{"
+                + "\"N101\":[\"A\",\"B\"],"
+                + "\"N102\":{\"N102-1\":\"X\",\"N102-2\":\"Y\",\"N102-4\":\"Z\"},"
+                + "\"N103\":\"\\\"q\\\\\"}},"
+                + "{\"type\":\"segment\",\"name\":\"SE\",\"elements\":{\"SE01\":\"4\",\"SE02\":\"0001\"}}]}"), json);
+        assertTrue(json.endsWith("{\"type\":\"segment\",\"name\":\"IEA\",\"elements\":{\"IEA01\":\"1\",\"IEA02\":\"508121953\"}}]}\n"), json);
+    }
+
+    @Test
+    public void testTypedNumbers() throws Exception {
+        String json = toJson(TRANSACTION, true);
+
+        // Leading zeros are kept
+        assertTrue(json.contains("\"GS06\":\"000005\","), json);
+        assertTrue(json.contains("\"SE01\":4,\"SE02\":\"0001\""), json);
+        assertTrue(json.contains("\"IEA01\":1,\"IEA02\":508121953"), json);
+        // Not described by a schema
+        assertTrue(json.contains("\"AK302\":\"8\""), json);
+    }
+
+    @Test
+    public void testToNumber() {
+        assertEquals("12.5", StaEDIJsonWriter.toNumber("12.5".toCharArray(), 0, 4, '.'));
+        assertEquals("12.5", StaEDIJsonWriter.toNumber("12,5".toCharArray(), 0, 4, ','));
+        assertEquals("-0.5", StaEDIJsonWriter.toNumber("-0,5".toCharArray(), 0, 4, ','));
+        assertEquals("0", StaEDIJsonWriter.toNumber("0".toCharArray(), 0, 1, '.'));
+        assertNull(StaEDIJsonWriter.toNumber("12.5".toCharArray(), 0, 4, ','));
+        assertNull(StaEDIJsonWriter.toNumber("12,5".toCharArray(), 0, 4, '.'));
+        assertNull(StaEDIJsonWriter.toNumber("0012".toCharArray(), 0, 4, '.'));
+        assertNull(StaEDIJsonWriter.toNumber("-05".toCharArray(), 0, 3, '.'));
+        assertNull(StaEDIJsonWriter.toNumber("1A".toCharArray(), 0, 2, '.'));
+    }
+
+    @Test
+    public void testElementTypesOnlyWhenTypedNumbers() throws Exception {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        StaEDIStreamReader reader = (StaEDIStreamReader) factory.createEDIStreamReader(new ByteArrayInputStream(TRANSACTION.getBytes()));
+        factory.createJsonWriter(reader, new StringWriter());
+        assertEquals(EDIStreamEvent.START_INTERCHANGE, reader.next());
+        assertEquals(EDIStreamEvent.START_SEGMENT, reader.next());
+        assertEquals(EDIStreamEvent.ELEMENT_DATA, reader.next());
+        assertNull(reader.getElementType());
+
+        factory.setProperty(EDIInputFactory.JSON_TYPED_NUMBERS, true);
+        reader = (StaEDIStreamReader) factory.createEDIStreamReader(new ByteArrayInputStream(TRANSACTION.getBytes()));
+        factory.createJsonWriter(reader, new StringWriter());
+        assertEquals(EDIStreamEvent.START_INTERCHANGE, reader.next());
+        assertEquals(EDIStreamEvent.START_SEGMENT, reader.next());
+        assertEquals(EDIStreamEvent.ELEMENT_DATA, reader.next());
+        assertEquals("I01", reader.getElementType().getId());
+    }
+
+    @Test
+    public void testOutputStream() throws Exception {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        EDIStreamReader reader = factory.createEDIStreamReader(new ByteArrayInputStream(TRANSACTION.getBytes()));
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        factory.createJsonWriter(reader, result).write();
+
+        assertEquals(toJson(TRANSACTION, false), new String(result.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBinaryElement() throws Exception {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        InputStream stream = getClass().getResourceAsStream("/x12/simple_with_binary_segment.edi");
+        EDIStreamReader reader = factory.createEDIStreamReader(stream);
+        Schema schema = SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchemaBinarySegment.xml"));
+        StringWriter result = new StringWriter();
+        EDIJsonWriter writer = factory.createJsonWriter(reader, result);
+
+        while (reader.hasNext()) {
+            EDIStreamEvent event = reader.next();
+            writer.writeEvent();
+
+            if (event == EDIStreamEvent.START_TRANSACTION) {
+                reader.setTransactionSchema(schema);
+            }
+        }
+
+        String json = result.toString();
+        String expected = Base64.getEncoder().encodeToString("12345678901234567890\n1234".getBytes());
+        assertTrue(json.contains("{\"type\":\"segment\",\"name\":\"BIN\",\"elements\":{\"BIN01\":\"25\",\"BIN02\":\"" + expected + "\"}}"), json);
+    }
+}
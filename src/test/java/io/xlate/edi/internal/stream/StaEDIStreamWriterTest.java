@@ -17,6 +17,7 @@ package io.xlate.edi.internal.stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
@@ -24,10 +25,26 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import io.xlate.edi.internal.schema.SchemaUtils;
 import io.xlate.edi.schema.EDISchemaException;
@@ -35,6 +52,7 @@ import io.xlate.edi.schema.Schema;
 import io.xlate.edi.schema.SchemaFactory;
 import io.xlate.edi.stream.EDIInputFactory;
 import io.xlate.edi.stream.EDIOutputFactory;
+import io.xlate.edi.stream.EDISegmentTemplate;
 import io.xlate.edi.stream.EDIStreamConstants;
 import io.xlate.edi.stream.EDIStreamEvent;
 import io.xlate.edi.stream.EDIStreamException;
@@ -356,6 +374,587 @@ public class StaEDIStreamWriterTest {
         assertThrows(IllegalArgumentException.class, () -> writer.writeElementData(new char[] { 'C', 'H', '~', 'R', 'S' }, 0, 5));
     }
 
+    @Test
+    public void testWriteElementDataCharArrayRange() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        writer.writeStartSegment("GS");
+        writer.writeStartElement();
+        writer.writeElementData(new char[] { '~', 'C', 'H', 'A', 'R', 'S', '~' }, 1, 6);
+        writer.endElement();
+        writer.writeElement(new char[] { '*', 'E', '2', '*' }, 1, 3);
+        writer.writeEndSegment();
+        assertEquals("GS*CHARS*E2~", stream.toString());
+    }
+
+    @Test
+    public void testSegmentsWrittenInBulk() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream result = new ByteArrayOutputStream(16384);
+        int[] writes = new int[2];
+        OutputStream stream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writes[0]++;
+                result.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writes[1]++;
+                result.write(b, off, len);
+            }
+        };
+
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        int headerWrites = writes[0];
+        writes[1] = 0;
+        result.reset();
+
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            large.append((char) ('A' + i % 26));
+        }
+
+        writer.writeStartSegment("GS");
+        writer.writeElement("FA").writeElement(large);
+        assertEquals(1, writes[1], "Full buffer not written");
+        writer.writeEndSegment();
+
+        assertEquals(headerWrites, writes[0], "Unexpected single byte writes");
+        assertEquals(2, writes[1]);
+        assertEquals("GS*FA*" + large + "~", result.toString());
+    }
+
+    @Test
+    public void testWriteElementDataInvalidCharacter() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        writer.writeStartSegment("GS");
+        writer.writeStartElement();
+        assertThrows(EDIStreamException.class, () -> writer.writeElementData("BAD\u0000DATA"));
+    }
+
+    @Test
+    public void testWriteElementDataSeparatorRejected() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        writer.writeStartSegment("GS");
+        writer.writeStartElement();
+        assertThrows(IllegalArgumentException.class, () -> writer.writeElementData("BAD*DATA"));
+    }
+
+    @Test
+    public void testWriteElementDataSeparatorSubstituted() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.DELIMITER_SUBSTITUTE, ' ');
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        writer.writeStartSegment("N1");
+        writer.writeElement("ST");
+        writer.writeElement("A*B:C^D~E");
+        writer.writeEndSegment();
+        assertEquals("N1*ST*A B C D E~", stream.toString());
+    }
+
+    @Test
+    public void testWriteElementDataSubstituteIsSeparator() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.DELIMITER_SUBSTITUTE, ':');
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        writer.writeStartSegment("N1");
+        writer.writeStartElement();
+        assertThrows(IllegalArgumentException.class, () -> writer.writeElementData("A*B"));
+    }
+
+    @Test
+    public void testWriteElementDataEscapedEDIFACT() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.ESCAPE_DELIMITERS, true);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writer.writeStartSegment("UNB");
+        writer.writeStartElement().writeComponent("UNOA").writeComponent("3").endElement();
+        writer.writeStartElement().writeComponent("SENDER").endElement();
+        writer.writeStartElement().writeComponent("RECEIVER").endElement();
+        writer.writeStartElement().writeComponent("200101").writeComponent("0000").endElement();
+        writer.writeElement("1");
+        writer.writeEndSegment();
+        stream.reset();
+        writer.writeStartSegment("FTX");
+        writer.writeElement("AAI");
+        writer.writeEmptyElement();
+        writer.writeEmptyElement();
+        writer.writeElement("WHAT? 1+1=2: IT'S TRUE");
+        writer.writeEndSegment();
+        assertEquals("FTX+AAI+++WHAT?? 1?+1=2?: IT?'S TRUE'", stream.toString());
+    }
+
+    @Test
+    public void testWriteElementDataEscapedEDIFACTRoundTrip() throws Exception {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.ESCAPE_DELIMITERS, true);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writer.writeStartSegment("UNB");
+        writer.writeStartElement().writeComponent("UNOA").writeComponent("3").endElement();
+        writer.writeStartElement().writeComponent("SENDER").endElement();
+        writer.writeStartElement().writeComponent("RECEIVER").endElement();
+        writer.writeStartElement().writeComponent("200101").writeComponent("0000").endElement();
+        writer.writeElement("1");
+        writer.writeEndSegment();
+        writer.writeStartSegment("FTX");
+        writer.writeElement("A+B:C'D?E");
+        writer.writeEndSegment();
+        writer.writeStartSegment("UNZ");
+        writer.writeElement("0");
+        writer.writeElement("1");
+        writer.writeEndSegment();
+        writer.endInterchange();
+        writer.close();
+
+        EDIStreamReader reader = EDIInputFactory.newFactory()
+                                                .createEDIStreamReader(new ByteArrayInputStream(stream.toByteArray()));
+        String value = null;
+
+        while (reader.hasNext()) {
+            if (reader.next() == EDIStreamEvent.START_SEGMENT && "FTX".equals(reader.getText())) {
+                reader.next();
+                value = reader.getText();
+            }
+        }
+
+        assertEquals("A+B:C'D?E", value);
+    }
+
+    @Test
+    public void testWriteControlTrailersX12() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        writer.writeStartSegment("GS");
+        writer.writeElement("FA").writeElement("Receiver").writeElement("Sender");
+        writer.writeElement("20050812").writeElement("195335").writeElement("1234");
+        writer.writeElement("X").writeElement("005010X230");
+        writer.writeEndSegment();
+
+        for (int i = 1; i <= 2; i++) {
+            writer.writeStartSegment("ST").writeElement("997").writeElement("000" + i).writeEndSegment();
+            writer.writeStartSegment("AK1").writeElement("HC").writeElement("1").writeEndSegment();
+            writer.writeStartSegment("AK9").writeElement("A").writeElement("1").writeEndSegment();
+            writer.writeEndTransaction();
+        }
+
+        writer.writeEndGroup();
+        writer.writeEndInterchange();
+        writer.endInterchange();
+        writer.close();
+
+        assertEquals("GS*FA*Receiver*Sender*20050812*195335*1234*X*005010X230~"
+                + "ST*997*0001~AK1*HC*1~AK9*A*1~SE*4*0001~"
+                + "ST*997*0002~AK1*HC*1~AK9*A*1~SE*4*0002~"
+                + "GE*2*1234~"
+                + "IEA*1*508121953~", stream.toString());
+    }
+
+    @Test
+    public void testWriteControlTrailersEDIFACT() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writer.writeStartSegment("UNB");
+        writer.writeStartElement().writeComponent("UNOA").writeComponent("3").endElement();
+        writer.writeStartElement().writeComponent("SENDER").endElement();
+        writer.writeStartElement().writeComponent("RECEIVER").endElement();
+        writer.writeStartElement().writeComponent("200101").writeComponent("0000").endElement();
+        writer.writeElement("REF1");
+        writer.writeEndSegment();
+        stream.reset();
+        writer.writeStartSegment("UNH").writeElement("MSG1");
+        writer.writeStartElement().writeComponent("INVOIC").writeComponent("D").writeComponent("97B").writeComponent("UN").endElement();
+        writer.writeEndSegment();
+        writer.writeStartSegment("BGM").writeElement("380").writeEndSegment();
+        writer.writeEndTransaction();
+        writer.writeEndInterchange();
+        writer.endInterchange();
+        writer.close();
+
+        assertEquals("UNH+MSG1+INVOIC:D:97B:UN'BGM+380'UNT+3+MSG1'UNZ+1+REF1'", stream.toString());
+    }
+
+    @Test
+    public void testWriteControlTrailersIllegal() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        assertThrows(IllegalStateException.class, () -> writer.writeEndTransaction());
+        assertThrows(IllegalStateException.class, () -> writer.writeEndGroup());
+        writer.writeStartSegment("ST").writeElement("997").writeElement("0001").writeEndSegment();
+        assertThrows(IllegalStateException.class, () -> writer.writeEndInterchange());
+    }
+
+    @Test
+    public void testWriteToChannel() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(Channels.newChannel(stream));
+        writer.startInterchange();
+        writeHeader(writer);
+        writer.writeStartSegment("GS");
+        writer.writeElement("FA");
+        writer.writeEndSegment();
+        writer.close();
+        assertEquals("ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+                + "GS*FA~", stream.toString());
+    }
+
+    @Test
+    public void testWriteToChannelDirectBuffer() throws Exception {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.DIRECT_BUFFER, true);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(Channels.newChannel(stream), "US-ASCII");
+        byte[] binary = { '\n', 0x00, 0x01, 0x02, 0x03, 0x04, 0x05, '\t' };
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        writer.writeStartSegment("BIN");
+        writer.writeElement("8");
+        writer.writeStartElementBinary();
+        writer.writeBinaryData(new ByteArrayInputStream(binary));
+        writer.endElement();
+        writer.writeEndSegment();
+        writer.close();
+        assertEquals("BIN*8*\n\u0000\u0001\u0002\u0003\u0004\u0005\t~", stream.toString());
+    }
+
+    @Test
+    public void testWriteBinaryDataGatheredToFileChannel(@TempDir Path dir) throws Exception {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        Path file = dir.resolve("out.edi");
+        byte[] binary = new byte[10000];
+        Arrays.fill(binary, (byte) 'B');
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            EDIStreamWriter writer = factory.createEDIStreamWriter(channel);
+            writer.startInterchange();
+            writeHeader(writer);
+            writer.writeStartSegment("BIN");
+            writer.writeElement("10000");
+            writer.writeStartElementBinary();
+            writer.writeBinaryData(ByteBuffer.wrap(binary));
+            writer.endElement();
+            writer.writeEndSegment();
+            writer.close();
+        }
+
+        String result = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+        assertTrue(result.endsWith("~BIN*10000*" + new String(binary, StandardCharsets.US_ASCII) + "~"));
+    }
+
+    @Test
+    public void testWriteSegmentTemplate() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        EDISegmentTemplate po1 = writer.compileSegmentTemplate("PO1", 1, 1, 1, 1, 1, 2, 1, 1);
+        assertEquals("PO1", po1.getTag());
+        assertEquals(9, po1.getValueCount());
+        writer.writeSegment(po1, "1", "10", "EA", "9.25", null, "VP", "ABC", "", "X");
+        writer.writeSegment(po1, "2", "5", "EA", "", "", "", "", "", "");
+        writer.writeSegment(po1);
+        writer.writeSegment(po1, "3", "1", "EA", null, null, "", "DEF");
+        assertEquals("PO1*1*10*EA*9.25**VP:ABC**X~"
+                + "PO1*2*5*EA~"
+                + "PO1~"
+                + "PO1*3*1*EA***:DEF~", stream.toString());
+    }
+
+    @Test
+    public void testWriteSegmentTemplateTrailerCount() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        factory.setProperty(EDIOutputFactory.DELIMITER_SUBSTITUTE, ' ');
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        EDISegmentTemplate st = writer.compileSegmentTemplate("ST", 1, 1);
+        EDISegmentTemplate n1 = writer.compileSegmentTemplate("N1", 1, 1);
+        writer.writeSegment(st, "850", "0042");
+        writer.writeSegment(n1, "ST", "A*B");
+        writer.writeEndTransaction();
+        assertEquals("ST*850*0042~N1*ST*A B~SE*3*0042~", stream.toString());
+    }
+
+    @Test
+    public void testWriteSegmentTemplateValidated() throws EDISchemaException, EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.setControlSchema(SchemaUtils.getControlSchema("X12", new String[] { "00501" }));
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        EDISegmentTemplate gs = writer.compileSegmentTemplate("GS", 1, 1, 1, 1, 1, 1, 1, 1);
+        writer.writeSegment(gs, "FA", "Receiver", "Sender", "20050812", "195335", "1234", "X", "005010X230");
+        assertEquals("GS*FA*Receiver*Sender*20050812*195335*1234*X*005010X230~", stream.toString());
+    }
+
+    @Test
+    public void testWriteSegmentTemplateIllegal() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        EDIStreamWriter writer = factory.createEDIStreamWriter(new ByteArrayOutputStream(4096));
+        EDIStreamWriter other = factory.createEDIStreamWriter(new ByteArrayOutputStream(4096));
+        writer.startInterchange();
+        assertThrows(IllegalStateException.class, () -> writer.compileSegmentTemplate("N1", 1, 1));
+        writeHeader(writer);
+        other.startInterchange();
+        writeHeader(other);
+        assertThrows(IllegalArgumentException.class, () -> writer.compileSegmentTemplate("IEA", 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> writer.compileSegmentTemplate("N*", 1));
+        assertThrows(IllegalArgumentException.class, () -> writer.compileSegmentTemplate("N1", 1, 0));
+        EDISegmentTemplate n1 = writer.compileSegmentTemplate("N1", 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> writer.writeSegment(n1, "ST", "NAME", "EXTRA"));
+        assertThrows(IllegalArgumentException.class, () -> other.writeSegment(n1, "ST"));
+    }
+
+    private static void write997(EDIStreamWriter writer, String ak101) throws EDIStreamException {
+        writer.writeStartSegment("ST").writeElement("997").writeElement("XXXX").writeEndSegment();
+        writer.writeStartSegment("AK1").writeElement("HC").writeElement(ak101).writeEndSegment();
+        writer.writeStartSegment("AK9").writeElement("A").writeElement("1").writeElement("1").writeElement("1").writeEndSegment();
+        writer.writeEndTransaction();
+    }
+
+    @Test
+    public void testWriteTransactionsMerged() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        writer.writeStartSegment("GS");
+        writer.writeElement("FA").writeElement("Receiver").writeElement("Sender");
+        writer.writeElement("20050812").writeElement("195335").writeElement("1234");
+        writer.writeElement("X").writeElement("005010X230");
+        writer.writeEndSegment();
+
+        EDIStreamWriter first = writer.createTransactionWriter();
+        EDIStreamWriter second = writer.createTransactionWriter();
+        write997(first, "1");
+        write997(second, "2");
+        write997(first, "3");
+
+        writer.writeTransactions(first);
+        writer.writeTransactions(second);
+        write997(second, "4");
+        writer.writeTransactions(second);
+        writer.writeEndGroup();
+        writer.writeEndInterchange();
+        writer.endInterchange();
+        writer.close();
+
+        assertEquals("GS*FA*Receiver*Sender*20050812*195335*1234*X*005010X230~"
+                + "ST*997*0001~AK1*HC*1~AK9*A*1*1*1~SE*4*0001~"
+                + "ST*997*0002~AK1*HC*3~AK9*A*1*1*1~SE*4*0002~"
+                + "ST*997*0003~AK1*HC*2~AK9*A*1*1*1~SE*4*0003~"
+                + "ST*997*0004~AK1*HC*4~AK9*A*1*1*1~SE*4*0004~"
+                + "GE*4*1234~"
+                + "IEA*1*508121953~", stream.toString());
+    }
+
+    @Test
+    public void testWriteTransactionsParallel() throws Exception {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.setControlSchema(SchemaUtils.getControlSchema("X12", new String[] { "00501" }));
+        writer.startInterchange();
+        writeHeader(writer);
+        writer.writeStartSegment("GS");
+        writer.writeElement("FA").writeElement("Receiver").writeElement("Sender");
+        writer.writeElement("20050812").writeElement("195335").writeElement("1234");
+        writer.writeElement("X").writeElement("005010X230");
+        writer.writeEndSegment();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<EDIStreamWriter>> results = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            final EDIStreamWriter transactions = writer.createTransactionWriter();
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < 250; i++) {
+                    write997(transactions, String.valueOf(i + 1));
+                }
+                return transactions;
+            }));
+        }
+
+        try {
+            for (Future<EDIStreamWriter> result : results) {
+                writer.writeTransactions(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        writer.writeEndGroup();
+        writer.writeEndInterchange();
+        writer.endInterchange();
+        writer.close();
+
+        EDIStreamReader reader = EDIInputFactory.newFactory()
+                                                .createEDIStreamReader(new ByteArrayInputStream(stream.toByteArray()));
+        int transactionCount = 0;
+        String groupCount = null;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_TRANSACTION:
+                transactionCount++;
+                break;
+            case SEGMENT_ERROR:
+            case ELEMENT_DATA_ERROR:
+            case ELEMENT_OCCURRENCE_ERROR:
+                fail("Unexpected error: " + reader.getErrorType());
+                break;
+            case START_SEGMENT:
+                if ("GE".equals(reader.getText())) {
+                    reader.next();
+                    groupCount = reader.getText();
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertEquals(1000, transactionCount);
+        assertEquals("1000", groupCount);
+        assertTrue(stream.toString().contains("ST*997*1000~"));
+    }
+
+    @Test
+    public void testWriteTransactionsIllegal() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        EDIStreamWriter writer = factory.createEDIStreamWriter(new ByteArrayOutputStream(4096));
+        EDIStreamWriter other = factory.createEDIStreamWriter(new ByteArrayOutputStream(4096));
+        writer.startInterchange();
+        assertThrows(IllegalStateException.class, () -> writer.createTransactionWriter());
+        writeHeader(writer);
+        other.startInterchange();
+        writeHeader(other);
+
+        EDIStreamWriter transactions = writer.createTransactionWriter();
+        transactions.writeStartSegment("ST").writeElement("997").writeElement("0001").writeEndSegment();
+        assertThrows(IllegalStateException.class, () -> writer.writeTransactions(transactions));
+        assertThrows(IllegalArgumentException.class, () -> other.writeTransactions(transactions));
+
+        EDIStreamWriter unnumbered = writer.createTransactionWriter();
+        unnumbered.writeStartSegment("ST").writeElement("997").writeEmptyElement().writeEndSegment();
+        unnumbered.writeStartSegment("SE").writeElement("2").writeEmptyElement().writeEndSegment();
+        assertThrows(IllegalStateException.class, () -> writer.writeTransactions(unnumbered));
+    }
+
+    @Test
+    public void testWriteTypedElements() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.startInterchange();
+        writeHeader(writer);
+        stream.reset();
+        writer.writeStartSegment("TST");
+        writer.writeElement(0L);
+        writer.writeElement(-42L);
+        writer.writeElement(Long.MIN_VALUE);
+        writer.writeElement(new BigDecimal("9.256"), 2);
+        writer.writeElement(new BigDecimal("-0.5"), 2);
+        writer.writeElement(new BigDecimal("12"), 0);
+        writer.writeElement(new BigDecimal("123456789012345678901234567890.5"), 1);
+        writer.writeElement(LocalDate.of(2005, 8, 12));
+        writer.writeElement(LocalTime.of(19, 53));
+        writer.writeElement(LocalTime.of(19, 53, 35));
+        writer.writeElement(LocalTime.of(19, 53, 35, 120_000_000));
+        writer.writeStartElement().writeComponent(7L).writeComponent(new BigDecimal("1.5"), 3).endElement();
+        writer.writeEndSegment();
+        assertEquals("TST*0*-42*-9223372036854775808*9.26*-0.50*12*123456789012345678901234567890.5"
+                + "*20050812*1953*195335*19533512*7:1.500~", stream.toString());
+    }
+
+    @Test
+    public void testWriteTypedElementsFormattedBySchema() throws EDISchemaException, EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+        EDIStreamWriter writer = factory.createEDIStreamWriter(stream);
+        writer.setControlSchema(SchemaUtils.getControlSchema("X12", new String[] { "00501" }));
+        writer.startInterchange();
+        writer.writeStartSegment("ISA");
+        writer.writeElement("00").writeElement("          ");
+        writer.writeElement("00").writeElement("          ");
+        writer.writeElement("ZZ").writeElement("ReceiverID     ");
+        writer.writeElement("ZZ").writeElement("Sender         ");
+        writer.writeElement(LocalDate.of(2005, 8, 12));
+        writer.writeElement(LocalTime.of(19, 53, 35));
+        writer.writeElement("^");
+        writer.writeElement("00501");
+        writer.writeElement(new BigDecimal("42"), 0);
+        writer.writeElement(0L);
+        writer.writeElement("P");
+        writer.writeElement(":");
+        writer.writeEndSegment();
+        writer.writeStartSegment("GS");
+        writer.writeElement("FA").writeElement("Receiver").writeElement("Sender");
+        writer.writeElement(LocalDate.of(2005, 8, 12));
+        writer.writeElement(LocalTime.of(19, 53));
+        writer.writeElement(1234L);
+        writer.writeElement("X").writeElement("005010X230");
+        writer.writeEndSegment();
+
+        assertEquals("ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*000000042*0*P*:~"
+                + "GS*FA*Receiver*Sender*20050812*1953*1234*X*005010X230~", stream.toString());
+    }
+
+    @Test
+    public void testWriteTypedElementsIllegal() throws EDIStreamException {
+        EDIOutputFactory factory = EDIOutputFactory.newFactory();
+        EDIStreamWriter writer = factory.createEDIStreamWriter(new ByteArrayOutputStream(4096));
+        writer.startInterchange();
+        writeHeader(writer);
+        writer.writeStartSegment("TST");
+        assertThrows(IllegalArgumentException.class, () -> writer.writeElement(BigDecimal.ONE, -1));
+    }
+
     @Test
     public void testWriteBinaryDataInputStream() throws EDIStreamException {
         EDIOutputFactory factory = EDIOutputFactory.newFactory();
@@ -20,16 +20,21 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -133,6 +138,34 @@ public class StaEDIXMLStreamReaderTest {
         assertEquals(XMLStreamConstants.END_DOCUMENT, xmlReader.next());
     }
 
+    @Test
+    public void testNamesReused() throws Exception {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_VALIDATE_CONTROL_STRUCTURE, "false");
+        InputStream stream = getClass().getResourceAsStream("/EDIFACT/invoic_d97b.edi");
+        XMLStreamReader xmlReader = new StaEDIXMLStreamReader(factory.createEDIStreamReader(stream));
+        Map<String, QName> names = new HashMap<>();
+        int reused = 0;
+
+        while (xmlReader.hasNext()) {
+            if (xmlReader.next() == XMLStreamConstants.START_ELEMENT) {
+                QName name = xmlReader.getName();
+                QName previous = names.putIfAbsent(name.getLocalPart(), name);
+
+                if (previous != null) {
+                    assertSame(previous, name, name.getLocalPart());
+                    reused++;
+                }
+
+                xmlReader.require(XMLStreamConstants.START_ELEMENT, null, name.getLocalPart());
+            }
+        }
+
+        assertTrue(names.containsKey("NAD01"));
+        assertTrue(names.containsKey("NAD02-3"));
+        assertTrue(reused > 0);
+    }
+
     @Test
     public void testGetElementText() throws Exception {
         XMLStreamReader xmlReader = getXmlReader(DUMMY_X12);
@@ -460,7 +493,9 @@ public class StaEDIXMLStreamReaderTest {
         assertEquals(XMLStreamConstants.START_ELEMENT, xmlReader.next()); // BIN02;
         assertEquals(XMLStreamConstants.CDATA, xmlReader.next()); // BIN02 content;
         String expected2 = Base64.getEncoder().encodeToString("12345678901234567890\n1234".getBytes());
-        assertArrayEquals(expected2.toCharArray(), xmlReader.getTextCharacters());
+        char[] text2 = xmlReader.getTextCharacters();
+        int start2 = xmlReader.getTextStart();
+        assertArrayEquals(expected2.toCharArray(), Arrays.copyOfRange(text2, start2, start2 + xmlReader.getTextLength()));
         assertEquals(XMLStreamConstants.END_ELEMENT, xmlReader.next()); // BIN02;
 
         assertEquals(XMLStreamConstants.END_ELEMENT, xmlReader.next());
@@ -488,6 +523,61 @@ public class StaEDIXMLStreamReaderTest {
         assertEquals("BIN", xmlReader.getLocalName());
     }
 
+    @Test
+    public void testGetCdataBinary_Chunked() throws Exception {
+        byte[] binary = new byte[10000];
+
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) i;
+        }
+
+        ByteArrayOutputStream edi = new ByteArrayOutputStream();
+        edi.write(("ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+                + "GS*FA*ReceiverDept*SenderDept*20190922*155401*000001*X*005010~"
+                + "ST*000*0001~"
+                + "BIN*" + binary.length + "*").getBytes());
+        edi.write(binary);
+        edi.write("~SE*3*0001~GE*1*000001~IEA*1*508121953~".getBytes());
+
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        EDIStreamReader ediReader = factory.createEDIStreamReader(new ByteArrayInputStream(edi.toByteArray()));
+        XMLStreamReader xmlReader = new StaEDIXMLStreamReader(ediReader);
+
+        SchemaFactory schemaFactory = SchemaFactory.newFactory();
+        Schema schema = schemaFactory.createSchema(getClass().getResource("/x12/EDISchemaBinarySegment.xml"));
+
+        StringBuilder text = new StringBuilder();
+        int chunks = 0;
+        boolean inBinary = false;
+
+        while (xmlReader.hasNext()) {
+            switch (xmlReader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if ("TRANSACTION".equals(xmlReader.getLocalName())) {
+                    ediReader.setTransactionSchema(schema);
+                }
+                inBinary = "BIN02".equals(xmlReader.getLocalName());
+                break;
+            case XMLStreamConstants.CDATA:
+                assertTrue(inBinary);
+                assertTrue(xmlReader.getTextLength() <= 4096);
+                text.append(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+                chunks++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if ("BIN02".equals(xmlReader.getLocalName())) {
+                    inBinary = false;
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        assertEquals(4, chunks);
+        assertEquals(Base64.getEncoder().encodeToString(binary), text.toString());
+    }
+
     @Test
     public void testGetCdataBinary_BoundsChecks() throws Exception {
         EDIInputFactory factory = EDIInputFactory.newFactory();
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIOutputFactory;
+import io.xlate.edi.stream.EDIStreamReader;
+
+@SuppressWarnings("resource")
+public class StaEDIXMLStreamWriterTest {
+
+    static void copy(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                writer.writeStartElement(reader.getLocalName());
+                break;
+            case XMLStreamConstants.CHARACTERS:
+                writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData(reader.getText());
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                writer.writeEndElement();
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                writer.writeEndDocument();
+                break;
+            default:
+                break;
+            }
+        }
+
+        writer.close();
+    }
+
+    static String read(String resource) {
+        InputStream stream = StaEDIXMLStreamWriterTest.class.getResourceAsStream(resource);
+
+        try (Scanner scanner = new Scanner(stream, "US-ASCII")) {
+            return scanner.useDelimiter("\\A").next().replaceAll("[\\r\\n]", "");
+        }
+    }
+
+    String roundTrip(String resource) throws Exception {
+        EDIInputFactory factory = EDIInputFactory.newFactory();
+        factory.setProperty(EDIInputFactory.EDI_VALIDATE_CONTROL_STRUCTURE, "false");
+        EDIStreamReader ediReader = factory.createEDIStreamReader(getClass().getResourceAsStream(resource));
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        XMLStreamWriter xmlWriter = new StaEDIXMLStreamWriter(EDIOutputFactory.newFactory().createEDIStreamWriter(result));
+        copy(new StaEDIXMLStreamReader(ediReader), xmlWriter);
+        return new String(result.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    String fromXml(String xml) throws Exception {
+        XMLStreamReader xmlReader = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(xml));
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        XMLStreamWriter xmlWriter = new StaEDIXMLStreamWriter(EDIOutputFactory.newFactory().createEDIStreamWriter(result));
+        copy(xmlReader, xmlWriter);
+        return new String(result.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testRoundTripX12() throws Exception {
+        assertEquals(read("/x12/simple997.edi"), roundTrip("/x12/simple997.edi"));
+    }
+
+    @Test
+    public void testRoundTripEDIFACT() throws Exception {
+        assertEquals(read("/EDIFACT/invoic_d97b.edi"), roundTrip("/EDIFACT/invoic_d97b.edi"));
+    }
+
+    @Test
+    public void testWriteFromXmlDocument() throws Exception {
+        String xml = "<INTERCHANGE>\n"
+                + "  <ISA><ISA01>00</ISA01><ISA02>          </ISA02><ISA03>00</ISA03><ISA04>          </ISA04>"
+                + "<ISA05>ZZ</ISA05><ISA06>ReceiverID     </ISA06><ISA07>ZZ</ISA07><ISA08>Sender         </ISA08>"
+                + "<ISA09>050812</ISA09><ISA10>1953</ISA10><ISA11>^</ISA11><ISA12>00501</ISA12>"
+                + "<ISA13>508121953</ISA13><ISA14>0</ISA14><ISA15>P</ISA15><ISA16>:</ISA16></ISA>\n"
+                + "  <GROUP>\n"
+                + "    <TRANSACTION>\n"
+                + "      <L0001>\n"
+                + "        <N1><N101>ST</N101><N104>9</N104></N1>\n"
+                + "        <REF><REF01>ZZ</REF01><REF01>YY</REF01><REF02><REF02-1>A</REF02-1><REF02-3>C</REF02-3></REF02></REF>\n"
+                + "        <TMP><C001><C001-1>X</C001-1><C001-2>Y</C001-2></C001></TMP>\n"
+                + "      </L0001>\n"
+                + "    </TRANSACTION>\n"
+                + "  </GROUP>\n"
+                + "  <IEA><IEA01>1</IEA01><IEA02>508121953</IEA02></IEA>\n"
+                + "</INTERCHANGE>";
+
+        assertEquals("ISA*00*          *00*          *ZZ*ReceiverID     *ZZ*Sender         *050812*1953*^*00501*508121953*0*P*:~"
+                + "N1*ST***9~"
+                + "REF*ZZ^YY*A::C~"
+                + "TMP*X:Y~"
+                + "IEA*1*508121953~", fromXml(xml));
+    }
+
+    @Test
+    public void testWriteBinarySections() throws Exception {
+        String[] header = { "00", "          ", "00", "          ", "ZZ", "ReceiverID     ", "ZZ", "Sender         ",
+                            "050812", "1953", "^", "00501", "508121953", "0", "P", ":" };
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        XMLStreamWriter writer = new StaEDIXMLStreamWriter(EDIOutputFactory.newFactory().createEDIStreamWriter(result));
+        writer.writeStartElement("INTERCHANGE");
+        writer.writeStartElement("ISA");
+
+        for (int i = 0; i < header.length; i++) {
+            writer.writeStartElement(String.format("ISA%02d", i + 1));
+            writer.writeCharacters(header[i]);
+            writer.writeEndElement();
+        }
+
+        writer.writeEndElement();
+        result.reset();
+
+        writer.writeStartElement("BIN");
+        writer.writeStartElement("BIN01");
+        writer.writeCharacters("8");
+        writer.writeEndElement();
+        writer.writeStartElement("BIN02");
+        // "ABCDEFGH", split within the Base64 units
+        writer.writeCData("QUJDR");
+        writer.writeCharacters("EVGR0\n".toCharArray(), 0, 6);
+        writer.writeCData("g=");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.flush();
+
+        assertEquals("BIN*8*ABCDEFGH~", new String(result.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testWriteInvalidBinary() throws Exception {
+        assertThrows(XMLStreamException.class, () -> {
+            XMLStreamWriter writer = new StaEDIXMLStreamWriter(EDIOutputFactory.newFactory().createEDIStreamWriter(new ByteArrayOutputStream()));
+            writer.writeStartElement("INTERCHANGE");
+            writer.writeStartElement("BIN");
+            writer.writeStartElement("BIN01");
+            writer.writeCData("QUJDR");
+            writer.writeEndElement();
+        });
+    }
+
+    @Test
+    public void testUnexpectedText() throws Exception {
+        assertThrows(XMLStreamException.class, () -> fromXml("<INTERCHANGE>text</INTERCHANGE>"));
+    }
+}
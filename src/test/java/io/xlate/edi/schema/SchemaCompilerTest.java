@@ -0,0 +1,74 @@
+package io.xlate.edi.schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SchemaCompilerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testCompileSchema() throws Exception {
+        Files.createDirectories(directory.resolve("x12"));
+        Files.copy(getClass().getResourceAsStream("/x12/EDISchema997.xml"),
+                   directory.resolve("x12/EDISchema997.xml"),
+                   StandardCopyOption.REPLACE_EXISTING);
+
+        SchemaCompiler.main(new String[] { directory.toString(), "/x12/EDISchema997.xml" });
+
+        Path compiled = directory.resolve("x12/EDISchema997.bin");
+        assertTrue(Files.exists(compiled));
+
+        try (InputStream stream = Files.newInputStream(compiled)) {
+            Schema schema = SchemaFactory.newFactory().createCompiledSchema(stream);
+            assertTrue(schema.containsSegment("AK9"));
+        }
+    }
+
+    @Test
+    void testCompileControlIndex() throws Exception {
+        Files.createDirectories(directory.resolve("x12"));
+        Files.copy(getClass().getResourceAsStream("/x12/EDISchema997.xml"),
+                   directory.resolve("x12/EDISchema997.xml"),
+                   StandardCopyOption.REPLACE_EXISTING);
+        Files.write(directory.resolve(SchemaCompiler.CONTROL_INDEX),
+                    Arrays.asList("X12.00401=/x12/EDISchema997.xml", "X12.00402=/x12/EDISchema997.xml"));
+
+        SchemaCompiler.main(new String[] { directory.toString() });
+
+        assertEquals(Collections.singleton("/x12/EDISchema997.xml"),
+                     SchemaCompiler.readControlIndex(directory.resolve(SchemaCompiler.CONTROL_INDEX)));
+        assertTrue(Files.exists(directory.resolve("x12/EDISchema997.bin")));
+    }
+
+    @Test
+    void testMissingControlIndex() {
+        assertThrows(IOException.class, () -> SchemaCompiler.main(new String[] { directory.toString() }));
+    }
+
+    @Test
+    void testCompileInvalidSchema() throws Exception {
+        Files.write(directory.resolve("invalid.xml"), "<noschema/>".getBytes());
+        EDISchemaException thrown = assertThrows(EDISchemaException.class,
+                                                 () -> SchemaCompiler.main(new String[] { directory.toString(), "invalid.xml" }));
+        assertTrue(thrown.getMessage().startsWith("Invalid schema "));
+    }
+
+    @Test
+    void testMissingArguments() {
+        assertThrows(IllegalArgumentException.class, () -> SchemaCompiler.main(new String[0]));
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.internal.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.xlate.edi.schema.Schema;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamReader;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightEventRecorderTest {
+
+    static final String INTERCHANGE_EVENT = "io.xlate.edi.Interchange";
+    static final String TRANSACTION_EVENT = "io.xlate.edi.Transaction";
+    static final String SCHEMA_LOAD_EVENT = "io.xlate.edi.SchemaLoad";
+
+    static final String TRANSACTION1 = "ST*997*0001~"
+            + "AK1*HC NOT IN CODESET*000001~"
+            + "AK9*R*1*1*0~"
+            + "SE*4*0001~";
+
+    static final String TRANSACTION2 = "ST*997*0002~"
+            + "AK1*HC*000002~"
+            + "AK9*R*1*1*0~"
+            + "SE*4*0002~";
+
+    static final String INTERCHANGE = "ISA*00*          *00*          *ZZ*Sender         *ZZ*ReceiverID     *050812*1953*^*00501*508121953*0*P*:~"
+            + "GS*FA*ReceiverDept*SenderDept*20050812*195335*000005*X*005010X230~"
+            + TRANSACTION1
+            + TRANSACTION2
+            + "GE*2*000005~"
+            + "IEA*1*508121953~";
+
+    Path dump;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dump = Files.createTempFile("staedi-", ".jfr");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Files.deleteIfExists(dump);
+    }
+
+    List<RecordedEvent> record(Recording recording, URL schemaLocation) throws Exception {
+        recording.start();
+
+        Schema schema = SchemaFactory.newFactory().createSchema(schemaLocation);
+        EDIStreamReader reader = EDIInputFactory.newFactory().createEDIStreamReader(new ByteArrayInputStream(INTERCHANGE.getBytes()));
+
+        while (reader.hasNext()) {
+            if (reader.next() == EDIStreamEvent.START_TRANSACTION) {
+                reader.setTransactionSchema(schema);
+            }
+        }
+
+        reader.close();
+        recording.stop();
+        recording.dump(dump);
+
+        return RecordingFile.readAllEvents(dump)
+                            .stream()
+                            .filter(e -> e.getEventType().getName().startsWith("io.xlate.edi."))
+                            .collect(Collectors.toList());
+    }
+
+    static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+        assertEquals("io.xlate.edi.internal.jfr.FlightEventRecorder", EventRecorder.getInstance().getClass().getName());
+        URL schemaLocation = getClass().getResource("/x12/EDISchema997.xml");
+        List<RecordedEvent> events;
+
+        try (Recording recording = new Recording()) {
+            recording.enable(INTERCHANGE_EVENT).withoutThreshold();
+            recording.enable(TRANSACTION_EVENT).withoutThreshold();
+            recording.enable(SCHEMA_LOAD_EVENT).withoutThreshold();
+            events = record(recording, schemaLocation);
+        }
+
+        List<RecordedEvent> loads = events(events, SCHEMA_LOAD_EVENT)
+                .stream()
+                .filter(e -> "XML".equals(e.getString("format")))
+                .collect(Collectors.toList());
+        assertEquals(1, loads.size());
+        assertEquals(schemaLocation.toExternalForm(), loads.get(0).getString("source"));
+        assertEquals("XML", loads.get(0).getString("format"));
+        assertEquals(Files.size(Path.of(schemaLocation.toURI())), loads.get(0).getLong("bytes"));
+        assertTrue(loads.get(0).getInt("types") > 0);
+
+        List<RecordedEvent> interchanges = events(events, INTERCHANGE_EVENT);
+        assertEquals(1, interchanges.size());
+        RecordedEvent interchange = interchanges.get(0);
+        assertEquals("X12", interchange.getString("standard"));
+        assertEquals("00501", interchange.getString("version"));
+        assertEquals("Sender", interchange.getString("sender"));
+        assertEquals("ReceiverID", interchange.getString("receiver"));
+        assertEquals(INTERCHANGE.length(), interchange.getLong("bytes"));
+        assertEquals(12, interchange.getInt("segments"));
+        assertEquals(2, interchange.getInt("errors"));
+
+        List<RecordedEvent> transactions = events(events, TRANSACTION_EVENT);
+        assertEquals(2, transactions.size());
+        assertTransaction(transactions.get(0), TRANSACTION1, 2);
+        assertTransaction(transactions.get(1), TRANSACTION2, 0);
+    }
+
+    static void assertTransaction(RecordedEvent transaction, String text, int errors) {
+        assertEquals("997", transaction.getString("type"));
+        assertEquals("005010X230", transaction.getString("version"));
+        assertTrue(transaction.getBoolean("validated"));
+        assertEquals(text.length(), transaction.getLong("bytes"));
+        assertEquals(4, transaction.getInt("segments"));
+        assertEquals(errors, transaction.getInt("errors"));
+    }
+
+    @Test
+    public void testTransactionEventOnly() throws Exception {
+        List<RecordedEvent> events;
+
+        try (Recording recording = new Recording()) {
+            // Custom events are enabled by default
+            recording.disable(INTERCHANGE_EVENT);
+            recording.enable(TRANSACTION_EVENT).withoutThreshold();
+            events = record(recording, getClass().getResource("/x12/EDISchema997.xml"));
+        }
+
+        assertEquals(0, events(events, INTERCHANGE_EVENT).size());
+        List<RecordedEvent> transactions = events(events, TRANSACTION_EVENT);
+        assertEquals(2, transactions.size());
+        assertTransaction(transactions.get(0), TRANSACTION1, 2);
+        assertTransaction(transactions.get(1), TRANSACTION2, 0);
+    }
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the (standard JMH) command line arguments
+ * with the GC profiler, reporting the allocation rate and bytes allocated per
+ * operation, and a heap small enough to expose retention of whole documents.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar io.xlate.edi.benchmarks.AllocationProfiler ReaderBenchmark -p transactions=10000
+ * </pre>
+ */
+public class AllocationProfiler {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Xms64m", "-Xmx64m")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Builds documents of a given number of transactions by repeating the
+ * transaction of one of the sample documents, with sequential control
+ * numbers and correct trailer counts.
+ */
+public final class Corpus {
+
+    public static final String X12 = "/x12/simple997.edi";
+    public static final String EDIFACT = "/EDIFACT/invoic_d97b.edi";
+
+    private Corpus() {
+    }
+
+    public static String resource(String name) {
+        try (InputStream stream = Corpus.class.getResourceAsStream(name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Resource not found: " + name);
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int amount;
+
+            while ((amount = stream.read(chunk)) > -1) {
+                buffer.write(chunk, 0, amount);
+            }
+
+            return new String(buffer.toByteArray(), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Build a document with the interchange and group envelope of the sample
+     * and its (first) transaction repeated.
+     *
+     * @param sample
+     *            resource name of a sample with a single transaction
+     * @param transactions
+     *            number of transactions in the result
+     * @return the document
+     */
+    public static byte[] scale(String sample, int transactions) {
+        final String text = resource(sample);
+        final boolean x12 = text.startsWith("ISA");
+        final char elementSeparator = x12 ? text.charAt(3) : '+';
+        final char terminator = x12 ? text.charAt(105) : '\'';
+        final String startTag = x12 ? "ST" : "UNH";
+        final String endTag = x12 ? "SE" : "UNT";
+
+        List<String[]> header = new ArrayList<>();
+        List<String[]> body = new ArrayList<>();
+        List<String[]> trailer = new ArrayList<>();
+        List<String[]> current = header;
+
+        for (String segment : text.split(Pattern.quote(String.valueOf(terminator)))) {
+            segment = segment.trim();
+
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            String[] elements = segment.split(Pattern.quote(String.valueOf(elementSeparator)), -1);
+
+            if (elements[0].equals(startTag) && current == header) {
+                current = body;
+            }
+
+            current.add(elements);
+
+            if (elements[0].equals(endTag) && current == body) {
+                current = trailer;
+            }
+        }
+
+        final boolean groups = header.stream().anyMatch(e -> e[0].equals("GS") || e[0].equals("UNG"));
+        final int controlIndex = x12 ? 2 : 1;
+        StringBuilder result = new StringBuilder(text.length() * transactions);
+
+        header.forEach(e -> append(result, e, elementSeparator, terminator));
+
+        for (int i = 1; i <= transactions; i++) {
+            String control = String.format("%04d", i);
+
+            for (String[] elements : body) {
+                String[] copy = elements.clone();
+
+                if (copy[0].equals(startTag)) {
+                    copy[controlIndex] = control;
+                } else if (copy[0].equals(endTag)) {
+                    copy[1] = String.valueOf(body.size());
+                    copy[2] = control;
+                }
+
+                append(result, copy, elementSeparator, terminator);
+            }
+        }
+
+        for (String[] elements : trailer) {
+            String[] copy = elements.clone();
+
+            switch (copy[0]) {
+            case "GE":
+            case "UNE":
+                copy[1] = String.valueOf(transactions);
+                break;
+            case "UNZ":
+                if (!groups) {
+                    copy[1] = String.valueOf(transactions);
+                }
+                break;
+            default:
+                break;
+            }
+
+            append(result, copy, elementSeparator, terminator);
+        }
+
+        return result.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static void append(StringBuilder result, String[] elements, char elementSeparator, char terminator) {
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) {
+                result.append(elementSeparator);
+            }
+            result.append(elements[i]);
+        }
+
+        result.append(terminator).append('\n');
+    }
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Documents of each standard, scaled from the samples to several sizes.
+ */
+@State(Scope.Benchmark)
+public class Documents {
+
+    @Param({ "X12", "EDIFACT" })
+    public String standard;
+
+    @Param({ "1", "100", "10000" })
+    public int transactions;
+
+    public byte[] document;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        document = Corpus.scale("X12".equals(standard) ? Corpus.X12 : Corpus.EDIFACT, transactions);
+    }
+}
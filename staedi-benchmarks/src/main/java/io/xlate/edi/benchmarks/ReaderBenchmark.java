@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.xlate.edi.schema.EDISchemaException;
+import io.xlate.edi.schema.SchemaFactory;
+import io.xlate.edi.schema.SchemaRegistry;
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIStreamEvent;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamReader;
+
+/**
+ * Reading documents with increasing levels of validation. Tokenization is
+ * measured through a reader without control structure validation, the
+ * lexer itself not being part of the public API.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Factories {
+        EDIInputFactory tokenizing;
+        EDIInputFactory controlValidating;
+        EDIInputFactory transactionValidating;
+
+        @Setup(Level.Trial)
+        public void setup() throws EDISchemaException {
+            tokenizing = EDIInputFactory.newFactory();
+            tokenizing.setProperty(EDIInputFactory.EDI_VALIDATE_CONTROL_STRUCTURE, "false");
+
+            controlValidating = EDIInputFactory.newFactory();
+
+            // Only the X12 sample has a transaction schema, EDIFACT is read with control validation
+            SchemaRegistry registry = new SchemaRegistry();
+            registry.register("X12", "005010X230", "997",
+                              SchemaFactory.newFactory().createSchema(getClass().getResource("/x12/EDISchema997.xml")));
+            transactionValidating = EDIInputFactory.newFactory();
+            transactionValidating.setProperty(EDIInputFactory.EDI_SCHEMA_REGISTRY, registry);
+        }
+    }
+
+    @Benchmark
+    public void tokenize(Documents documents, Factories factories, Blackhole blackhole) throws Exception {
+        read(factories.tokenizing, documents.document, blackhole);
+    }
+
+    @Benchmark
+    public void readWithControlValidation(Documents documents, Factories factories, Blackhole blackhole) throws Exception {
+        read(factories.controlValidating, documents.document, blackhole);
+    }
+
+    @Benchmark
+    public void readWithTransactionValidation(Documents documents, Factories factories, Blackhole blackhole) throws Exception {
+        read(factories.transactionValidating, documents.document, blackhole);
+    }
+
+    static void read(EDIInputFactory factory, byte[] document, Blackhole blackhole) throws EDIStreamException, IOException {
+        EDIStreamReader reader = factory.createEDIStreamReader(new ByteArrayInputStream(document));
+
+        while (reader.hasNext()) {
+            EDIStreamEvent event = reader.next();
+            blackhole.consume(event);
+
+            if (event == EDIStreamEvent.ELEMENT_DATA) {
+                blackhole.consume(reader.getTextLength());
+            }
+        }
+
+        reader.close();
+    }
+}
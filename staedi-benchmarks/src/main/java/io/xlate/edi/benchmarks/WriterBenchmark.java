@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2017 xlate.io LLC, http://www.xlate.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package io.xlate.edi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.xlate.edi.stream.EDIInputFactory;
+import io.xlate.edi.stream.EDIOutputFactory;
+import io.xlate.edi.stream.EDIStreamException;
+import io.xlate.edi.stream.EDIStreamReader;
+import io.xlate.edi.stream.EDIStreamWriter;
+
+/**
+ * Writing the segments of the scaled documents, recorded from the documents
+ * before the benchmark, to an output stream that discards its input.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Segments {
+        /* Tag, then elements each with one or more components */
+        final List<String[][]> segments = new ArrayList<>();
+        final EDIOutputFactory factory = EDIOutputFactory.newFactory();
+
+        @Setup(Level.Trial)
+        public void setup(Documents documents) throws Exception {
+            EDIInputFactory inputFactory = EDIInputFactory.newFactory();
+            inputFactory.setProperty(EDIInputFactory.EDI_VALIDATE_CONTROL_STRUCTURE, "false");
+            EDIStreamReader reader = inputFactory.createEDIStreamReader(new ByteArrayInputStream(documents.document));
+            List<String[]> elements = new ArrayList<>();
+            List<String> components = null;
+            String tag = null;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case START_SEGMENT:
+                    tag = reader.getText();
+                    elements.clear();
+                    break;
+                case START_COMPOSITE:
+                    components = new ArrayList<>();
+                    break;
+                case END_COMPOSITE:
+                    elements.add(components.toArray(new String[0]));
+                    components = null;
+                    break;
+                case ELEMENT_DATA:
+                    if (components != null) {
+                        components.add(reader.getText());
+                    } else {
+                        elements.add(new String[] { reader.getText() });
+                    }
+                    break;
+                case END_SEGMENT:
+                    String[][] segment = new String[elements.size() + 1][];
+                    segment[0] = new String[] { tag };
+
+                    for (int i = 0; i < elements.size(); i++) {
+                        segment[i + 1] = elements.get(i);
+                    }
+
+                    segments.add(segment);
+                    break;
+                default:
+                    break;
+                }
+            }
+
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public void write(Segments segments, Blackhole blackhole) throws EDIStreamException {
+        EDIStreamWriter writer = segments.factory.createEDIStreamWriter(new NullOutputStream(blackhole));
+        writer.startInterchange();
+
+        for (String[][] segment : segments.segments) {
+            writer.writeStartSegment(segment[0][0]);
+
+            for (int i = 1; i < segment.length; i++) {
+                String[] element = segment[i];
+
+                if (element.length == 1) {
+                    if (element[0].isEmpty()) {
+                        writer.writeEmptyElement();
+                    } else {
+                        writer.writeElement(element[0]);
+                    }
+                } else {
+                    writer.writeStartElement();
+
+                    for (String component : element) {
+                        if (component.isEmpty()) {
+                            writer.writeEmptyComponent();
+                        } else {
+                            writer.writeComponent(component);
+                        }
+                    }
+
+                    writer.endElement();
+                }
+            }
+
+            writer.writeEndSegment();
+        }
+
+        writer.endInterchange();
+        writer.close();
+    }
+
+    static class NullOutputStream extends OutputStream {
+        final Blackhole blackhole;
+
+        NullOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+}